@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the locking pattern of `locksEx.BankAccount.withdraw()`.
+ * 
+ * `withdraw()` itself sleeps for 3 seconds and prints on every call, so it cannot be
+ * measured directly. These benchmarks reproduce its critical section without the sleep
+ * and the logging: take a `ReentrantLock`, check the balance, deduct, unlock.
+ * 
+ * - `tryLockWithdraw` uses `tryLock()` and gives up when the lock is busy, as `withdraw()` does.
+ *   It returns whether the withdrawal happened, so the rejection rate is visible too.
+ * - `lockWithdraw` blocks in `lock()` instead, for comparison.
+ * - `fair` switches between the fair lock `BankAccount` uses and a non-fair one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BankAccountLockBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean fair;
+
+    private Lock lock;
+    private long balance;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        lock = new ReentrantLock(fair);
+        balance = Long.MAX_VALUE;  // Large enough that the balance check never fails
+    }
+
+    @Benchmark
+    public boolean tryLockWithdraw() {
+        if (lock.tryLock()) {
+            try {
+                if (balance >= 1) {
+                    balance -= 1;
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean lockWithdraw() {
+        lock.lock();
+        try {
+            if (balance >= 1) {
+                balance -= 1;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
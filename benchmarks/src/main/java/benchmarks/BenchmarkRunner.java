@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks at 1, 2, 4, 8 and N threads (N = available processors) and writes
+ * one JSON result file per thread count, so runs can be diffed between commits.
+ * 
+ * Usage:
+ *   java -jar benchmarks/target/benchmarks.jar [includeRegex] [outputDir]
+ * 
+ * - `includeRegex` selects benchmarks as in JMH's own command line (default: all of them).
+ * - `outputDir` is where `jmh-<threads>t.json` files are written (default: `jmh-results`).
+ * 
+ * The benchmark classes declare both `Throughput` and `SampleTime` modes, so every file
+ * contains operations per microsecond as well as the latency percentiles.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "benchmarks\\..*Benchmark";
+        File outputDir = new File(args.length > 1 ? args[1] : "jmh-results");
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("Cannot create output directory " + outputDir);
+        }
+
+        // LinkedHashSet drops N when it equals one of the fixed counts
+        Set<Integer> threadCounts = new LinkedHashSet<>();
+        threadCounts.add(1);
+        threadCounts.add(2);
+        threadCounts.add(4);
+        threadCounts.add(8);
+        threadCounts.add(Runtime.getRuntime().availableProcessors());
+
+        for (int threads : threadCounts) {
+            File result = new File(outputDir, "jmh-" + threads + "t.json");
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(result.getPath())
+                    .build();
+            new Runner(options).run();
+            System.out.println("Results for " + threads + " thread(s) written to " + result);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import counterEngine.CounterStrategy;
+import counterEngine.CounterType;
+
+/**
+ * Measures `increment()` on every counter in the repo, shared by all benchmark threads.
+ * 
+ * - `synchronizedEx` is the monitor-locked `synchronizedEx.Counter`.
+ * - `raceCondition` is the unsynchronized `raceCondition.Counter`. It loses updates, so
+ *   its numbers are an upper bound, not a valid alternative.
+ * - The remaining values are the `counterEngine.CounterType` strategies.
+ * 
+ * The thread count is not fixed here; `BenchmarkRunner` runs this class at 1, 2, 4, 8 and N threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CounterBenchmark {
+
+    @Param({ "synchronizedEx", "raceCondition", "MONITOR", "ATOMIC", "STRIPED", "BATCHED" })
+    public String counter;
+
+    private CounterStrategy shared;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        switch (counter) {
+            case "synchronizedEx":
+                shared = new synchronizedEx.Counter();
+                break;
+            case "raceCondition":
+                shared = new raceCondition.Counter();
+                break;
+            default:
+                shared = CounterType.parse(counter).create();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        shared.flush();
+    }
+
+    @Benchmark
+    public void increment() {
+        shared.increment();
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import threadSafeCollection.AtomicScoreStore;
+import threadSafeCollection.RankedScoreStore;
+
+/**
+ * Compares a top-100 query on `RankedScoreStore` with scanning and sorting a plain store.
+ * 
+ * - `rankedTopK` walks the first 100 entries of the leaderboard index, O(k).
+ * - `scanAndSortTopK` copies every score out of an `AtomicScoreStore` and sorts it, O(n log n).
+ * - `rankedUpdate` shows what keeping the index up to date costs per score update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardBenchmark {
+    private static final int K = 100;
+
+    @Param({ "10000", "1000000" })
+    public int users;
+
+    private RankedScoreStore ranked;
+    private AtomicScoreStore plain;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ranked = new RankedScoreStore();
+        plain = new AtomicScoreStore();
+        keys = new String[users];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < users; i++) {
+            keys[i] = "User" + (i + 1);
+            long score = random.nextLong(1_000_000);
+            ranked.putScore(keys[i], score);
+            plain.putScore(keys[i], score);
+        }
+    }
+
+    @Benchmark
+    public List<RankedScoreStore.Entry> rankedTopK() {
+        return ranked.topK(K);
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Long>> scanAndSortTopK() {
+        List<Map.Entry<String, Long>> all = new ArrayList<>(users);
+        plain.forEach((user, score) -> all.add(Map.entry(user, score)));
+        all.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return all.subList(0, Math.min(K, all.size()));
+    }
+
+    @Benchmark
+    public boolean rankedUpdate() {
+        return ranked.addScore(keys[ThreadLocalRandom.current().nextInt(users)], 1);
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ledger.AccountLedger;
+import ledger.CasLedger;
+import ledger.StampedLedger;
+import ledger.WithdrawalResult;
+
+/**
+ * Measures withdrawals on the `ledger` implementations over a large set of accounts.
+ * 
+ * Balances start high enough that withdrawals keep succeeding for the whole run, so the
+ * numbers reflect the commit path and not the cheap rejection path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerBenchmark {
+
+    @Param({ "cas", "stamped" })
+    public String ledgerType;
+
+    @Param({ "1", "100000" })
+    public int accounts;
+
+    private AccountLedger ledger;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        long initialBalance = Long.MAX_VALUE / 2;
+        ledger = "stamped".equals(ledgerType)
+                ? new StampedLedger(accounts, initialBalance)
+                : new CasLedger(accounts, initialBalance);
+    }
+
+    @Benchmark
+    public WithdrawalResult withdraw() {
+        return ledger.withdraw(ThreadLocalRandom.current().nextInt(accounts), 1);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import locksEx.AdaptiveSpinLock;
+
+/**
+ * Compares `locksEx.AdaptiveSpinLock` with fair and non-fair `ReentrantLock`.
+ * 
+ * - `lock` selects the implementation.
+ * - `holdTokens` is the work done inside the critical section, in `Blackhole.consumeCPU`
+ *   tokens. Small values favour spinning; large values should make the adaptive lock park
+ *   like the non-fair `ReentrantLock`.
+ * - `reentrantLock` takes the lock twice, as `ReentrantLockExample` does, to show the cost
+ *   of the reentrant path.
+ * 
+ * Run with several thread counts (`BenchmarkRunner` does this) to see contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockBenchmark {
+
+    @Param({ "fair", "nonfair", "adaptive" })
+    public String lock;
+
+    @Param({ "10", "1000" })
+    public long holdTokens;
+
+    private Lock instance;
+    private long counter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        switch (lock) {
+            case "fair":
+                instance = new ReentrantLock(true);
+                break;
+            case "nonfair":
+                instance = new ReentrantLock(false);
+                break;
+            case "adaptive":
+                instance = new AdaptiveSpinLock();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown lock: " + lock);
+        }
+    }
+
+    @Benchmark
+    public long lockUnlock() {
+        instance.lock();
+        try {
+            Blackhole.consumeCPU(holdTokens);
+            return ++counter;
+        } finally {
+            instance.unlock();
+        }
+    }
+
+    @Benchmark
+    public long reentrantLock() {
+        instance.lock();
+        try {
+            instance.lock();
+            try {
+                Blackhole.consumeCPU(holdTokens);
+                return ++counter;
+            } finally {
+                instance.unlock();
+            }
+        } finally {
+            instance.unlock();
+        }
+    }
+}
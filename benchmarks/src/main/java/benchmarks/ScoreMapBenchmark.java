@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import threadSafeCollection.ScoreStore;
+import threadSafeCollection.ScoreStoreType;
+
+/**
+ * Measures the score updates used by `threadSafeCollection.ThreadSafeMapExample`.
+ * 
+ * `updateScore()` is private and prints on every call, so its store operation is measured
+ * directly: `ScoreStore.addScore(user, increment)`.
+ * 
+ * - `store` selects the `ScoreStoreType`. `BOXED` is the original
+ *   `computeIfPresent(user, (key, value) -> value + increment)` on a `String -> Integer` map.
+ *   Run with `-prof gc` to see the allocation rate of each store.
+ * - `users` is the number of keys. With 1 key all threads contend on the same bin, which
+ *   is the hot-user case. With many keys the updates spread over the table.
+ * - `readScore` measures `get()`, which never blocks writers.
+ * - For `PIPELINED`, `updateScore` measures publishing into the ring buffer; the consumers
+ *   apply the updates on their own threads.
+ * - The `readMostly` group runs 19 reader threads against 1 writer, the 95% read mix of our
+ *   traffic. `SNAPSHOT` should keep its reads fast while the writer is active.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreMapBenchmark {
+
+    @Param({ "BOXED", "ATOMIC", "INDEXED", "SNAPSHOT", "PIPELINED" })
+    public String store;
+
+    @Param({ "1", "1024" })
+    public int users;
+
+    private ScoreStore userScores;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userScores = ScoreStoreType.parse(store).create();
+        keys = new String[users];
+        for (int i = 0; i < users; i++) {
+            keys[i] = "User" + (i + 1);
+            userScores.putScore(keys[i], 0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (userScores instanceof AutoCloseable) {
+            ((AutoCloseable) userScores).close();
+        }
+    }
+
+    @Benchmark
+    public boolean updateScore() {
+        String user = keys[ThreadLocalRandom.current().nextInt(users)];
+        return userScores.addScore(user, 1);
+    }
+
+    @Benchmark
+    public long readScore() {
+        return userScores.getScore(keys[ThreadLocalRandom.current().nextInt(users)], 0);
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(19)
+    public long readMostlyRead() {
+        return readScore();
+    }
+
+    @Benchmark
+    @Group("readMostly")
+    @GroupThreads(1)
+    public boolean readMostlyWrite() {
+        return updateScore();
+    }
+}
@@ -1,3 +1,5 @@
+import logging.Log;
+
 /**
  * This class demonstrates the use of daemon threads in Java.
  * 
@@ -30,6 +32,13 @@
  * Note: Since `t1` is a daemon thread running an infinite loop, the main thread 
  * will exit immediately after printing "Main thread...". 
  * This will cause the JVM to terminate, and the daemon thread will be abruptly stopped.
+ *
+ * Background logging:
+ * - The messages are published to `logging.Log` instead of `System.out`. Its single consumer
+ *   is a real background daemon thread: it batches the messages and writes them out, so the
+ *   loop below never contends on the `PrintStream` lock.
+ * - When the ring buffer is full the loop waits (or drops messages with
+ *   `-Dlogging.overflow=drop`), instead of flooding the console without bound.
  */
 public class DaemonThread extends Thread {
 
@@ -37,7 +46,7 @@ public class DaemonThread extends Thread {
     public void run() {
         // Infinite loop to continuously print a message
         while (true) {
-            System.out.println("Thread is running...");
+            Log.println("Thread is running...");
         }
     } 
 
@@ -52,6 +61,6 @@ public class DaemonThread extends Thread {
         t1.start();
         
         // Print message from the main thread
-        System.out.println("Main thread..");
+        Log.println("Main thread..");
     }
 }
@@ -1,3 +1,6 @@
+import execution.ExecutionMode;
+import execution.TaskGroup;
+
 /**
  * This class demonstrates how to interrupt a thread in Java.
  * 
@@ -27,6 +30,11 @@
  * - `InterruptedException`: This exception is thrown when a thread is interrupted during sleep or waiting.
  *
  * The program shows how a thread can be interrupted while sleeping and how it handles the interruption.
+ *
+ * Pass an execution mode (`platform`, `fixed_pool` or `virtual`) as the first argument to run
+ * the same `run()` body as an `execution.TaskGroup` subtask on that kind of thread. Cancelling
+ * the group's token takes the place of `interrupt()`: it interrupts the subtask if it is
+ * running, or skips it if it has not started yet. The subtask's final state is printed.
  */
 public class InterruptThread extends Thread {
 
@@ -45,6 +53,16 @@ public class InterruptThread extends Thread {
     public static void main(String[] args) throws InterruptedException {
         // Creating a thread object
         InterruptThread t1 = new InterruptThread();
+
+        if (args.length > 0) {
+            try (TaskGroup<Void> group = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, ExecutionMode.parse(args[0]), 1, null)) {
+                TaskGroup.Subtask<Void> subtask = group.fork("t1", t1);
+                group.token().cancel();  // Interrupts the subtask, whatever thread it runs on
+                group.awaitAll();
+                System.out.println("Main thread executes after waiting: " + subtask);
+            }
+            return;
+        }
         
         // Starting the thread (puts it in the RUNNABLE state and executes run() method)
         t1.start();
@@ -1,3 +1,8 @@
+import java.util.concurrent.ExecutionException;
+
+import execution.ExecutionMode;
+import execution.TaskGroup;
+
 /**
  * This example demonstrates different methods of the Thread class in Java:
  * 
@@ -17,6 +22,10 @@
  *  - join(): This method forces the current thread to wait until the thread on which join() is called
  *            has completed execution (i.e., it reaches the "TERMINATED" state). This ensures that
  *            the calling thread will not continue until the joined thread finishes.
+ *
+ * Pass an execution mode (`platform`, `fixed_pool` or `virtual`) as the first argument to
+ * run the same `run()` body as an `execution.TaskGroup` subtask on that kind of thread;
+ * `TaskGroup.join()` then takes the place of `Thread.join()`.
  */
 
  public class MyThread extends Thread {
@@ -33,6 +42,18 @@
 
     public static void main(String[] args) throws InterruptedException {
         MyThread t1 = new MyThread();
+
+        if (args.length > 0) {
+            // The Thread object is only used as the task; the mode provides the thread
+            try (TaskGroup<Void> group = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, ExecutionMode.parse(args[0]), 1, null)) {
+                group.fork("t1", t1);
+                group.join();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+            System.out.println("Main thread executes after waiting:");
+            return;
+        }
         
         // Starting the thread (puts it in RUNNABLE state and runs run() method)
         t1.start();
@@ -1,3 +1,10 @@
+import java.util.concurrent.ExecutionException;
+
+import execution.CpuKernel;
+import execution.ExecutionMode;
+import execution.TaskGroup;
+import logging.Log;
+
 /**
  * This class demonstrates the use of thread priorities in Java.
  * 
@@ -13,7 +20,8 @@
  *   - `t1` has the highest priority (MAX_PRIORITY).
  *   - `t2` has the lowest priority (MIN_PRIORITY).
  *   - `t3` has the normal priority (NORM_PRIORITY).
- * - Each thread executes the same task, which involves building a large string one million times.
+ * - Each thread executes the same task: five rounds of `CpuKernel` work. The kernel does pure
+ *   arithmetic and allocates nothing, so the time measured is CPU time and not garbage collection.
  *   This simulates a CPU-intensive task that takes some time to complete.
  * - While each thread is running, it prints its name, priority, and the current iteration count.
  * - The priorities are used by the thread scheduler to decide how much CPU time to allocate 
@@ -27,9 +35,22 @@
  * 
  * The program demonstrates how different priorities can influence thread execution,
  * although the final behavior depends on the operating system's thread scheduler.
+ * Run `priority.PriorityFairnessReport` to measure whether priorities have any effect, and
+ * `priority.PrioritySchedulerReport` for the same three tasks on `priority.PriorityScheduler`,
+ * which orders work by priority itself instead of leaving it to the OS.
+ * 
+ * Pass an execution mode (`platform`, `fixed_pool` or `virtual`) as the first argument to run
+ * the three bodies as `execution.TaskGroup` subtasks on that kind of thread instead. Each
+ * subtask sets the priority of the thread it runs on; virtual threads ignore it.
  */
 public class PriorityThread extends Thread {
 
+    // Units of CpuKernel work per round (about the cost of the old one-million-append loop)
+    private static final int UNITS_PER_ROUND = 10;
+
+    // Accumulates kernel results so the JIT cannot drop the work
+    private long sink;
+
     public PriorityThread(String name) {
         super(name);  // Call to the superclass constructor to set the thread's name
     }
@@ -38,14 +59,11 @@ public class PriorityThread extends Thread {
     public void run() {
         // The run() method contains the code that will be executed when the thread starts
         for (int i = 0; i < 5; i++) {
-            // StringBuilder is used for better performance when appending strings in a loop
-            StringBuilder str = new StringBuilder(); 
-            for (int j = 0; j < 1000000; j++) {
-                str.append("q");  // Append "q" one million times (simulating a heavy task)
-            }
+            // Allocation-free CPU work (simulating a heavy task)
+            sink += CpuKernel.run(UNITS_PER_ROUND, sink + i);
 
-            // Print the name of the thread, its priority, and the current iteration count
-            System.out.println(Thread.currentThread().getName() + " - priority: " 
+            // Print the task's name, the priority of the thread running it, and the current iteration count
+            Log.println(getName() + " - priority: " 
                 + Thread.currentThread().getPriority() + " - count: " + i);
         }
     }
@@ -61,11 +79,36 @@ public class PriorityThread extends Thread {
         t2.setPriority(Thread.MIN_PRIORITY);  // Set t2 to minimum priority (1)
         t3.setPriority(Thread.NORM_PRIORITY); // Set t3 to normal priority (5)
 
+        if (args.length > 0) {
+            runWith(ExecutionMode.parse(args[0]), t1, t2, t3);
+            Log.println("All tasks finished, checksum: " + (t1.sink + t2.sink + t3.sink));
+            return;
+        }
+
         // Start all the threads
         t1.start();  // Starts the thread t1 (with highest priority)
         t2.start();  // Starts the thread t2 (with lowest priority)
         t3.start();  // Starts the thread t3 (with normal priority)
 
-        // Main thread ends here, but the created threads continue to run concurrently
+        // Wait for all three so their work is not lost when main returns
+        t1.join();
+        t2.join();
+        t3.join();
+        Log.println("All threads finished, checksum: " + (t1.sink + t2.sink + t3.sink));
+    }
+
+    // Runs each body on a thread of the mode, with the priority its Thread object was given
+    private static void runWith(ExecutionMode mode, PriorityThread... tasks) throws InterruptedException {
+        try (TaskGroup<Void> group = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, mode, tasks.length, null)) {
+            for (PriorityThread task : tasks) {
+                group.fork(task.getName(), () -> {
+                    Thread.currentThread().setPriority(task.getPriority());
+                    task.run();
+                });
+            }
+            group.join();
+        } catch (ExecutionException e) {
+            Log.println("Task failed: " + e.getCause());
+        }
     }
 }
@@ -0,0 +1,186 @@
+package admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import metrics.LogHistogram;
+
+/**
+ * Admission control in front of a slow shared resource, such as the account engine.
+ * 
+ * Key Concepts:
+ * - **Rate limit**: an optional `TokenBucket` caps how many operations start per second.
+ *   A caller without a token does not fail; it reserves the next free slot and sleeps until
+ *   then, as long as that is before its deadline.
+ * - **In-flight limit**: a fair `Semaphore` allows at most `maxInFlight` operations at once.
+ *   Callers queue for it in arrival order instead of hammering the resource (compare the
+ *   "could not acquire the lock" path in `locksEx.BankAccount`).
+ * - **Deadline and load shedding**: every call has a timeout for getting in. If it passes, or
+ *   if `maxQueued` callers are already waiting, the call is rejected immediately. Rejecting
+ *   early is what keeps the latency of admitted calls flat under overload.
+ * 
+ * - **Retry with jittered backoff**: `executeWithRetry()` also retries an operation that reports
+ *   a transient failure, like a `tryLock()` that found the lock busy. Retry `n` waits a random
+ *   time up to `min(maxBackoff, BASE_BACKOFF * 2^n)`, so a group of callers that failed
+ *   together does not come back together. It stops at the same deadline.
+ * 
+ * Both methods return the operation's result, or the given `rejected` value if the call was
+ * not admitted in time. Wait times, rejects and retries are counted for reports.
+ */
+public class AdmissionController {
+
+    // An operation guarded by the controller
+    public interface Operation<T> {
+        T run() throws InterruptedException;
+    }
+
+    static final long BASE_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    static final long DEFAULT_MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final TokenBucket rateLimit;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long timeoutNanos;
+    private final long maxBackoffNanos;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateRejected = new LongAdder();
+    private final LongAdder overloadRejected = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LogHistogram waitNanos = new LogHistogram();
+
+    /**
+     * @param rateLimit   Start rate limit, or null for none.
+     * @param maxInFlight Operations allowed to run at the same time.
+     * @param maxQueued   Callers allowed to wait for admission; further callers are rejected.
+     * @param timeout     Longest time a caller waits to be admitted.
+     */
+    public AdmissionController(TokenBucket rateLimit, int maxInFlight, int maxQueued, long timeout, TimeUnit unit) {
+        this(rateLimit, maxInFlight, maxQueued, timeout, unit, DEFAULT_MAX_BACKOFF_NANOS);
+    }
+
+    // maxBackoffNanos caps the retry pauses of executeWithRetry(); raise it for slow operations
+    public AdmissionController(TokenBucket rateLimit, int maxInFlight, int maxQueued, long timeout, TimeUnit unit,
+            long maxBackoffNanos) {
+        this.rateLimit = rateLimit;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.inFlight = new Semaphore(maxInFlight, true);
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    public <T> T execute(Operation<T> operation, T rejected) throws InterruptedException {
+        long start = System.nanoTime();
+        if (!admit(start, start + timeoutNanos)) {
+            return rejected;
+        }
+        try {
+            return operation.run();
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /**
+     * Like `execute()`, but if the result matches `retryable` the operation is run again after
+     * a jittered backoff, until it succeeds or the deadline passes. Each attempt is admitted
+     * separately, so a waiting retry does not hold an in-flight slot.
+     */
+    public <T> T executeWithRetry(Operation<T> operation, Predicate<? super T> retryable, T rejected)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+        for (int attempt = 0; ; attempt++) {
+            if (!admit(System.nanoTime(), deadline)) {
+                return rejected;
+            }
+            T result;
+            try {
+                result = operation.run();
+            } finally {
+                inFlight.release();
+            }
+            if (!retryable.test(result)) {
+                return result;
+            }
+            long pause = backoff(attempt);
+            if (System.nanoTime() + pause - deadline > 0) {
+                overloadRejected.increment();
+                return rejected;
+            }
+            retries.increment();
+            TimeUnit.NANOSECONDS.sleep(pause);
+        }
+    }
+
+    // Waits for a rate token and an in-flight permit; false if the call is rejected
+    private boolean admit(long start, long deadline) throws InterruptedException {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            overloadRejected.increment();
+            return false;
+        }
+        try {
+            if (rateLimit != null) {
+                long wait = rateLimit.reserve(deadline - System.nanoTime());
+                if (wait < 0) {
+                    rateRejected.increment();
+                    return false;
+                }
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            if (!inFlight.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                overloadRejected.increment();
+                return false;
+            }
+            admitted.increment();
+            waitNanos.record(System.nanoTime() - start);
+            return true;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    // "Full jitter" exponential backoff
+    private long backoff(int attempt) {
+        long cap = Math.min(maxBackoffNanos, BASE_BACKOFF_NANOS << Math.min(attempt, 20));
+        return 1 + ThreadLocalRandom.current().nextLong(cap);
+    }
+
+    public long admitted() {
+        return admitted.sum();
+    }
+
+    // Rejected because the next rate token was further away than the deadline
+    public long rateRejected() {
+        return rateRejected.sum();
+    }
+
+    // Rejected because the queue was full, no in-flight slot freed up or retries ran past the deadline
+    public long overloadRejected() {
+        return overloadRejected.sum();
+    }
+
+    // Repeated attempts made by executeWithRetry()
+    public long retries() {
+        return retries.sum();
+    }
+
+    // Time admitted calls waited before they could start
+    public LogHistogram waitTime() {
+        return waitNanos;
+    }
+
+    // Operations currently running
+    public int inFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+}
@@ -0,0 +1,56 @@
+package admission;
+
+import java.util.concurrent.TimeUnit;
+
+import ledger.WithdrawalResult;
+import locksEx.BankAccount;
+
+/**
+ * Runs the `locksEx.ThreadEx` scenario with retries instead of dropped withdrawals.
+ * 
+ * Usage: `java admission.AdmissionExample [customers] [amount]`
+ * 
+ * What this code does:
+ * - Several customers (default 3) withdraw `amount` (default 30) from one `BankAccount`
+ *   at the same time. In `ThreadEx` every customer that finds the lock busy just gives up.
+ * - Here each withdrawal goes through an `AdmissionController` with `executeWithRetry()`:
+ *   a busy lock (`REJECTED`) is retried with jittered backoff until the 15 second deadline, so
+ *   every customer is served while there is money, one after the other.
+ * - At the end it prints each customer's outcome, the final balance and how many retries
+ *   were needed.
+ */
+public class AdmissionExample {
+    public static void main(String[] args) throws InterruptedException {
+        int customers = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int amount = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        BankAccount account = new BankAccount();
+        // Withdrawals take 3 seconds, so retries may back off for up to half a second
+        AdmissionController controller = new AdmissionController(null, customers, customers, 15, TimeUnit.SECONDS,
+                TimeUnit.MILLISECONDS.toNanos(500));
+
+        WithdrawalResult[] results = new WithdrawalResult[customers];
+        Thread[] threads = new Thread[customers];
+        for (int i = 0; i < customers; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    results[index] = controller.executeWithRetry(() -> account.tryWithdraw(amount),
+                            result -> result == WithdrawalResult.REJECTED, WithdrawalResult.REJECTED);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "Customer" + (i + 1));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < customers; i++) {
+            System.out.println(threads[i].getName() + ": " + results[i]);
+        }
+        System.out.println("Final balance: " + account.getBalance() + ", retries: " + controller.retries()
+                + ", rejected: " + controller.overloadRejected());
+    }
+}
@@ -0,0 +1,143 @@
+package admission;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import execution.CpuKernel;
+import ledger.CasLedger;
+import ledger.LedgerEngine;
+import ledger.WithdrawalResult;
+import metrics.LogHistogram;
+
+/**
+ * Drives withdrawals at increasing offered load, with and without admission control, and
+ * shows how latency and rejects behave under overload.
+ * 
+ * Usage: `java admission.OverloadReport [secondsPerRun] [clients] [maxInFlight]`
+ * 
+ * What this code does:
+ * - Each withdrawal does a little CPU work (`CpuKernel`) before `LedgerEngine.withdraw()`, so
+ *   the CPU is the bottleneck. A short calibration measures the capacity in withdrawals/s.
+ * - `clients` threads (default 64) send withdrawals on a fixed schedule at 50%, 90%, 120% and
+ *   200% of capacity. Latency is measured from the scheduled send time, so time a client
+ *   spends behind schedule counts too.
+ * - Three setups are compared: no admission control, an in-flight limit (default: the number
+ *   of cores) with a short queue and a 20 ms deadline, and the same plus a token bucket at
+ *   90% of capacity.
+ * - For each run it prints completed and rejected withdrawals per second and the p50, p99 and
+ *   p99.9 latency of the completed ones. Without admission control, latency grows with the
+ *   backlog once the load passes capacity; with it, the excess is rejected and p99 stays flat.
+ */
+public class OverloadReport {
+    private static final int KERNEL_UNITS = 1;
+    private static final int ACCOUNTS = 1024;
+
+    // Keeps the kernel's result alive so the JIT cannot drop the work
+    static long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2.0;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int maxInFlight = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long durationNanos = (long) (seconds * 1_000_000_000L);
+
+        LedgerEngine engine = new LedgerEngine(new CasLedger(ACCOUNTS, Long.MAX_VALUE / ACCOUNTS));
+        double capacity = calibrate(engine);
+        System.out.printf("Capacity: about %,.0f withdrawals/s on %d cores; %d clients%n",
+                capacity, Runtime.getRuntime().availableProcessors(), clients);
+        System.out.printf("%-14s %6s %12s %12s %9s %10s %10s %10s%n",
+                "setup", "load", "completed/s", "rejected/s", "reject %", "p50 us", "p99 us", "p99.9 us");
+
+        double[] loads = { 0.5, 0.9, 1.2, 2.0 };
+        for (double load : loads) {
+            run("none", null, engine, capacity * load, load, clients, durationNanos);
+        }
+        for (double load : loads) {
+            AdmissionController controller = new AdmissionController(null, maxInFlight, maxInFlight * 4,
+                    20, TimeUnit.MILLISECONDS);
+            run("in-flight", controller, engine, capacity * load, load, clients, durationNanos);
+        }
+        for (double load : loads) {
+            // Bursts of up to 1 ms worth of permits
+            TokenBucket bucket = new TokenBucket(capacity * 0.9, Math.max(1, (int) (capacity * 0.9 / 1000)));
+            AdmissionController controller = new AdmissionController(bucket, maxInFlight, maxInFlight * 4,
+                    20, TimeUnit.MILLISECONDS);
+            run("rate+in-flight", controller, engine, capacity * load, load, clients, durationNanos);
+        }
+    }
+
+    private static WithdrawalResult withdraw(LedgerEngine engine, int account) throws InterruptedException {
+        sink += CpuKernel.run(KERNEL_UNITS, account);  // The expensive part of a withdrawal
+        return engine.withdraw(account, 1);
+    }
+
+    // Withdrawals per second the machine can sustain, from a single-threaded run after warm-up
+    private static double calibrate(LedgerEngine engine) throws InterruptedException {
+        double rate = 0;
+        for (int round = 0; round < 2; round++) {  // The first round only lets the JIT compile the kernel
+            int operations = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                withdraw(engine, operations % ACCOUNTS);
+                operations++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < 1_000_000_000L);
+            rate = operations / (elapsed / 1e9);
+        }
+        return rate * Runtime.getRuntime().availableProcessors();
+    }
+
+    private static void run(String setup, AdmissionController controller, LedgerEngine engine, double rate,
+            double load, int clients, long durationNanos) throws InterruptedException {
+        LogHistogram latency = new LogHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        long intervalNanos = (long) (1e9 * clients / rate);
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime() + 50_000_000L;  // Give every client time to start
+        long end = start + durationNanos;
+
+        for (int c = 0; c < clients; c++) {
+            long offset = intervalNanos * c / clients;  // Spread the clients' schedules evenly
+            Thread client = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    for (long next = start + offset; next < end; next += intervalNanos) {
+                        long wait = next - System.nanoTime();
+                        if (wait > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        int account = random.nextInt(ACCOUNTS);
+                        WithdrawalResult result = controller == null
+                                ? withdraw(engine, account)
+                                : controller.execute(() -> withdraw(engine, account), WithdrawalResult.REJECTED);
+                        if (result == WithdrawalResult.REJECTED) {
+                            rejected.increment();
+                        } else {
+                            completed.increment();
+                            latency.record(System.nanoTime() - next);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "Client-" + c);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+
+        // Clients that fell behind keep sending after the end time; count the whole run
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long total = completed.sum() + rejected.sum();
+        System.out.printf("%-14s %5.0f%% %,12.0f %,12.0f %8.1f%% %10.0f %10.0f %10.0f%n", setup, load * 100,
+                completed.sum() / elapsed, rejected.sum() / elapsed, total == 0 ? 0.0 : 100.0 * rejected.sum() / total,
+                latency.percentile(50) / 1e3, latency.percentile(99) / 1e3, latency.percentile(99.9) / 1e3);
+    }
+}
@@ -0,0 +1,70 @@
+package admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket: allows `permitsPerSecond` on average and bursts of up to `burst`.
+ * 
+ * Key Concepts:
+ * - Instead of a token count that a timer refills, the bucket keeps one timestamp: the time
+ *   at which the bucket will be full again if no more permits are taken (the "theoretical
+ *   arrival time" of the generic cell rate algorithm). Each permit pushes it forward by one
+ *   interval, `1 / permitsPerSecond`.
+ * - A permit is granted if that timestamp is less than `burst` intervals ahead of now.
+ * - `tryAcquire()` is one CAS on an `AtomicLong`: no lock, no timer thread, no allocation.
+ * - `reserve()` books the next free slot even if it is in the future and returns how long
+ *   to wait for it. Waiting callers are thereby served in order, and no permit goes unused
+ *   while callers sleep.
+ */
+public class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        toleranceNanos = (burst - 1) * intervalNanos;
+        fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;  // An idle bucket does not save up beyond full
+            if (base - now > toleranceNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes the next permit and returns how many nanoseconds to wait before using it,
+     * or -1 (taking nothing) if that wait would be longer than `maxWaitNanos`.
+     */
+    public long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        while (true) {
+            long current = fullAt.get();
+            long base = current - now > 0 ? current : now;
+            long wait = Math.max(0, base - now - toleranceNanos);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (fullAt.compareAndSet(current, base + intervalNanos)) {
+                return wait;
+            }
+        }
+    }
+
+    // How long until tryAcquire() can succeed again; 0 if it can succeed now
+    public long nanosUntilAvailable() {
+        return Math.max(0, fullAt.get() - toleranceNanos - System.nanoTime());
+    }
+}
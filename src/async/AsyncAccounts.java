@@ -0,0 +1,162 @@
+package async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import ledger.AccountLedger;
+import ledger.WithdrawalResult;
+import metrics.LogHistogram;
+import timer.TimerWheel;
+
+/**
+ * Non-blocking front end for an `AccountLedger`: every operation returns a `CompletableFuture`
+ * right away, and no thread waits while a withdrawal is being processed.
+ *
+ * Key Concepts:
+ * - **Same steps as `LedgerEngine`**: a withdrawal is validated, processed and then committed
+ *   atomically by the ledger. The processing time is not a `Thread.sleep` here but a timeout
+ *   on the shared `timer.TimerWheel`, so thousands of withdrawals can be in processing at once
+ *   without a thread each. Processing times are rounded up to the wheel's 1 ms tick.
+ * - **Outcomes instead of `void`**: the future completes with `SUCCESS`,
+ *   `INSUFFICIENT_BALANCE`, `INVALID_REQUEST` or `REJECTED`. A withdrawal is `REJECTED` at once,
+ *   without touching the balance, when `maxInFlight` withdrawals are already in progress.
+ * - **Batched commits**: commits go through a `CommitBatcher` chosen by the account number, so
+ *   commits submitted together are applied in one executor task, and the commits of one
+ *   account are never applied at the same time. Deposits run in the order they were submitted;
+ *   withdrawals whose processing ends in the same timer tick may commit in any order.
+ *   `stripes` batchers let that many executor threads commit at the same time.
+ * - **Composition**: `transfer()` chains the debit and the credit with `thenCompose()`. The
+ *   credit is only submitted once the debit succeeded, and no thread blocks in between.
+ *   Further stages, like a score update in `AsyncScores`, can be chained the same way.
+ *
+ * Callbacks attached to the returned futures run on the executor thread that completed them,
+ * so they should be short or move themselves to another executor with the `...Async` methods.
+ */
+public class AsyncAccounts {
+    private final AccountLedger ledger;
+    private final long processingNanos;
+    private final int maxInFlight;
+    private final CommitBatcher[] batchers;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LogHistogram batchSizes = new LogHistogram();
+
+    // Commits on one batcher, without processing time or in-flight limit
+    public AsyncAccounts(AccountLedger ledger, Executor executor) {
+        this(ledger, executor, 1, Integer.MAX_VALUE, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param executor       runs the commits and the callbacks of the returned futures
+     * @param stripes        number of batchers, and so of executor threads that can commit at once
+     * @param maxInFlight    withdrawals allowed between submission and commit; more are rejected
+     * @param processingTime simulated work before a withdrawal is committed, like in `LedgerEngine`
+     */
+    public AsyncAccounts(AccountLedger ledger, Executor executor, int stripes, int maxInFlight, long processingTime,
+            TimeUnit unit) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be at least 1");
+        }
+        this.ledger = ledger;
+        this.processingNanos = unit.toNanos(processingTime);
+        this.maxInFlight = maxInFlight;
+        this.batchers = new CommitBatcher[stripes];
+        for (int i = 0; i < stripes; i++) {
+            batchers[i] = new CommitBatcher(executor, batchSizes);
+        }
+    }
+
+    public AccountLedger ledger() {
+        return ledger;
+    }
+
+    public CompletableFuture<WithdrawalResult> withdraw(int account, long amount) {
+        // Step 1: validation, no shared state involved
+        if (!isAccount(account) || amount <= 0) {
+            return CompletableFuture.completedFuture(WithdrawalResult.INVALID_REQUEST);
+        }
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return CompletableFuture.completedFuture(WithdrawalResult.REJECTED);
+        }
+
+        // Step 3: atomic commit, re-checks the balance
+        CompletableFuture<WithdrawalResult> result = new CompletableFuture<>();
+        Runnable commit = () -> {
+            inFlight.decrementAndGet();  // Before completing, so callbacks can start the next withdrawal
+            try {
+                result.complete(ledger.withdraw(account, amount));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        };
+
+        // Step 2: processing, on the timer instead of a sleeping thread
+        CommitBatcher batcher = batcherOf(account);
+        if (processingNanos > 0) {
+            TimerWheel.shared().schedule(() -> batcher.submit(commit), processingNanos, TimeUnit.NANOSECONDS);
+        } else {
+            batcher.submit(commit);
+        }
+        return result;
+    }
+
+    // Adds a positive amount; fails with IllegalArgumentException for an unknown account or amount <= 0
+    public CompletableFuture<Void> deposit(int account, long amount) {
+        if (!isAccount(account) || amount <= 0) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Invalid deposit of " + amount + " to account " + account));
+        }
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        batcherOf(account).submit(() -> {
+            try {
+                ledger.deposit(account, amount);
+                result.complete(null);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Withdraws from one account and, if that succeeded, deposits the amount into the other.
+     * Completes with the withdrawal's outcome once the money has arrived, or right after a
+     * failed withdrawal; in that case neither balance changed.
+     */
+    public CompletableFuture<WithdrawalResult> transfer(int from, int to, long amount) {
+        if (!isAccount(to)) {
+            return CompletableFuture.completedFuture(WithdrawalResult.INVALID_REQUEST);
+        }
+        return withdraw(from, amount).thenCompose(result -> result == WithdrawalResult.SUCCESS
+                ? deposit(to, amount).thenApply(done -> result)
+                : CompletableFuture.completedFuture(result));
+    }
+
+    private boolean isAccount(int account) {
+        return account >= 0 && account < ledger.size();
+    }
+
+    private CommitBatcher batcherOf(int account) {
+        return batchers[account % batchers.length];
+    }
+
+    // Withdrawals submitted but not yet committed
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    // Withdrawals turned away because maxInFlight were already in progress
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    // Operations applied per executor task
+    public LogHistogram batchSizes() {
+        return batchSizes;
+    }
+}
@@ -0,0 +1,65 @@
+package async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import execution.ExecutionMode;
+import ledger.CasLedger;
+import ledger.WithdrawalResult;
+import logging.Log;
+import threadSafeCollection.ScoreStore;
+import threadSafeCollection.ScoreStoreType;
+
+/**
+ * The withdrawals of `locksEx.BankAccount` and the score updates of `ThreadSafeMapExample`,
+ * submitted from one thread without blocking it.
+ *
+ * What this code does:
+ * - Two accounts start with a balance of 100, like `BankAccount`. Withdrawals take 500 ms of
+ *   processing, and at most three may be in progress at once.
+ * - The main thread submits four withdrawals of 40 from account 0 right after one another. It
+ *   gets four futures back immediately. The fourth withdrawal is `REJECTED` because three are
+ *   already in progress. Of the other three, two succeed and one finds the balance too low.
+ * - When all four are done, it transfers 20 from account 1 to account 0 and, once the money
+ *   has arrived, adds it to User1's score and reads the score back. The whole chain is built
+ *   with `thenCompose()` before any of it has run.
+ * - Only at the end does the main thread wait, with `join()`, for the final score.
+ */
+public class AsyncExample {
+
+    public static void main(String[] args) {
+        ExecutorService executor = ExecutionMode.FIXED_POOL.newExecutor(1);
+        AsyncAccounts bank = new AsyncAccounts(new CasLedger(2, 100), executor, 1, 3, 500, TimeUnit.MILLISECONDS);
+        ScoreStore store = ScoreStoreType.ATOMIC.create();
+        store.putScore("User1", 10);
+        AsyncScores scores = new AsyncScores(store, executor, 1);
+
+        // Submitting the withdrawals; none of these calls waits for the processing time
+        List<CompletableFuture<WithdrawalResult>> withdrawals = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            int attempt = i;
+            CompletableFuture<WithdrawalResult> withdrawal = bank.withdraw(0, 40);
+            withdrawal.thenAccept(result -> Log.println("Withdrawal " + attempt + " of 40: " + result));
+            withdrawals.add(withdrawal);
+        }
+        Log.println("Submitted 4 withdrawals, " + bank.inFlight() + " in progress");
+
+        // Once they are done: debit, then credit, then score update, chained without blocking between the steps
+        CompletableFuture<Long> bonus = CompletableFuture.allOf(withdrawals.toArray(new CompletableFuture<?>[0]))
+                .thenCompose(done -> bank.transfer(1, 0, 20))
+                .thenCompose(result -> {
+                    Log.println("Transfer of 20 from account 1 to account 0: " + result);
+                    return result == WithdrawalResult.SUCCESS
+                            ? scores.addScore("User1", 20).thenCompose(added -> scores.getScore("User1", 0))
+                            : scores.getScore("User1", 0);
+                });
+
+        // Waiting for the result only at the end
+        Log.println("User1's score after the transfer: " + bonus.join());
+        Log.println("Final balances: " + bank.ledger().balance(0) + " and " + bank.ledger().balance(1));
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,203 @@
+package async;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import execution.ExecutionMode;
+import ledger.AccountLedger;
+import ledger.CasLedger;
+import ledger.LedgerEngine;
+import ledger.WithdrawalResult;
+import metrics.LogHistogram;
+import threadSafeCollection.ScoreStore;
+import threadSafeCollection.ScoreStoreType;
+
+/**
+ * Compares the blocking account and score API with `AsyncAccounts` and `AsyncScores` on the
+ * same three-step flow: debit one account, credit another, then add the amount to the score
+ * of the credited account's user.
+ *
+ * Usage: `java async.AsyncFlowReport [seconds] [processingMillis] [accounts]`
+ *
+ * What this code does:
+ * - **Blocking**: 1 to 256 threads each run the flow in a loop with `LedgerEngine.withdraw()`,
+ *   which sleeps for the processing time (default 2 ms), then `deposit()` and `addScore()`.
+ *   Every flow in progress holds a thread, so throughput grows with the number of threads.
+ * - **Async**: one thread submits flows built with `thenCompose()` and keeps `in flight` of
+ *   them going; a fixed pool of 1 to 4 threads applies the batched commits. The processing time
+ *   is spent on the timer wheel, so a handful of threads keeps thousands of flows in progress.
+ * - Prints flows per second, the latency of a whole flow, the platform threads the mode needs
+ *   and the average number of operations per commit batch. Then repeats both with no
+ *   processing time, which shows what the futures and hand-offs cost per flow.
+ * - After every run it checks that no money was created or lost and that the scores grew by
+ *   exactly the amount transferred.
+ */
+public class AsyncFlowReport {
+    private static final long INITIAL_BALANCE = 100;
+    private static final int USERS = 1000;
+    private static final int[] BLOCKING_THREADS = { 1, 4, 16, 64, 256 };
+    private static final int[][] ASYNC_CONFIGS = { { 1, 64 }, { 1, 1024 }, { 1, 8192 }, { 2, 8192 }, { 4, 8192 } };
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        long processingMillis = args.length > 1 ? Long.parseLong(args[1]) : 2;
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        long runNanos = (long) (seconds * 1e9);
+
+        // Warm up both paths so the first rows do not include JIT compilation
+        blocking(4, runNanos / 4, processingMillis, accounts);
+        async(1, 1024, runNanos / 4, processingMillis, accounts);
+
+        for (long processing : new long[] { processingMillis, 0 }) {
+            System.out.printf("%nDebit, credit, score; %d ms processing, %,d accounts, %.1f s per row%n", processing,
+                    accounts, seconds);
+            System.out.printf("%-10s %9s %10s %12s %9s %9s %10s%n", "mode", "threads", "in flight", "flows/s",
+                    "p50 us", "p99 us", "avg batch");
+            for (int threads : BLOCKING_THREADS) {
+                print(blocking(threads, runNanos, processing, accounts));
+            }
+            for (int[] config : ASYNC_CONFIGS) {
+                print(async(config[0], config[1], runNanos, processing, accounts));
+            }
+        }
+    }
+
+    private static final class Run {
+        String mode;
+        int threads;
+        int inFlight;
+        long flows;
+        double seconds;
+        final LogHistogram latency = new LogHistogram();
+        LogHistogram batchSizes;
+    }
+
+    private static Run blocking(int threads, long runNanos, long processingMillis, int accounts)
+            throws InterruptedException {
+        AccountLedger ledger = new CasLedger(accounts, INITIAL_BALANCE);
+        LedgerEngine engine = new LedgerEngine(ledger, processingMillis, TimeUnit.MILLISECONDS);
+        ScoreStore scores = newScores();
+        AtomicLong transferred = new AtomicLong();
+        Run run = new Run();
+        long end = System.nanoTime() + runNanos;
+
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            workers[t] = new Thread(() -> {
+                try {
+                    long start;
+                    while ((start = System.nanoTime()) - end < 0) {
+                        int from = random.nextInt(accounts);
+                        int to = random.nextInt(accounts);
+                        long amount = 1 + random.nextInt(50);
+                        if (engine.withdraw(from, amount) == WithdrawalResult.SUCCESS) {
+                            ledger.deposit(to, amount);
+                            scores.addScore(userOf(to), amount);
+                            transferred.addAndGet(amount);
+                        }
+                        run.latency.record(System.nanoTime() - start);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        run.seconds = (System.nanoTime() - begin) / 1e9;
+        run.mode = "blocking";
+        run.threads = threads;
+        run.inFlight = threads;
+        run.flows = run.latency.count();
+        verify(ledger, scores, transferred.get());
+        return run;
+    }
+
+    private static Run async(int executorThreads, int inFlight, long runNanos, long processingMillis, int accounts)
+            throws InterruptedException {
+        AccountLedger ledger = new CasLedger(accounts, INITIAL_BALANCE);
+        ScoreStore store = newScores();
+        ExecutorService executor = ExecutionMode.FIXED_POOL.newExecutor(executorThreads);
+        AsyncAccounts bank = new AsyncAccounts(ledger, executor, executorThreads, inFlight, processingMillis,
+                TimeUnit.MILLISECONDS);
+        AsyncScores scores = new AsyncScores(store, executor, executorThreads);
+        AtomicLong transferred = new AtomicLong();
+        Semaphore window = new Semaphore(inFlight);
+        SplittableRandom random = new SplittableRandom(1);
+        Run run = new Run();
+
+        long begin = System.nanoTime();
+        long end = begin + runNanos;
+        long start;
+        while ((start = System.nanoTime()) - end < 0) {
+            window.acquire();
+            int to = random.nextInt(accounts);
+            long amount = 1 + random.nextInt(50);
+            long submitted = start;
+            bank.transfer(random.nextInt(accounts), to, amount)
+                    .thenCompose(result -> result == WithdrawalResult.SUCCESS
+                            ? scores.addScore(userOf(to), amount).thenApply(added -> result)
+                            : CompletableFuture.completedFuture(result))
+                    .whenComplete((result, failure) -> {
+                        if (result == WithdrawalResult.SUCCESS) {
+                            transferred.addAndGet(amount);
+                        }
+                        run.latency.record(System.nanoTime() - submitted);
+                        window.release();
+                    });
+        }
+        window.acquire(inFlight);  // Waits for the flows still in progress
+        run.seconds = (System.nanoTime() - begin) / 1e9;
+        executor.shutdown();
+        run.mode = "async";
+        run.threads = executorThreads + 1 + (processingMillis > 0 ? 2 : 0);  // Plus the submitter, ticker and pool thread
+        run.inFlight = inFlight;
+        run.flows = run.latency.count();
+        run.batchSizes = new LogHistogram();
+        run.batchSizes.add(bank.batchSizes());
+        run.batchSizes.add(scores.batchSizes());
+        verify(ledger, store, transferred.get());
+        return run;
+    }
+
+    private static ScoreStore newScores() {
+        ScoreStore scores = ScoreStoreType.ATOMIC.create();
+        for (int u = 0; u < USERS; u++) {
+            scores.putScore(userOf(u), 0);
+        }
+        return scores;
+    }
+
+    private static String userOf(int account) {
+        return "User" + (account % USERS);
+    }
+
+    private static void verify(AccountLedger ledger, ScoreStore scores, long transferred) {
+        long money = 0;
+        for (int a = 0; a < ledger.size(); a++) {
+            money += ledger.balance(a);
+        }
+        long[] points = new long[1];
+        scores.forEach((user, score) -> points[0] += score);
+        if (money != ledger.size() * INITIAL_BALANCE || points[0] != transferred) {
+            throw new IllegalStateException("Inconsistent result: money " + money + ", score total " + points[0]
+                    + ", transferred " + transferred);
+        }
+    }
+
+    private static void print(Run run) {
+        System.out.printf("%-10s %9d %10d %,12.0f %9.1f %9.1f %10s%n", run.mode, run.threads, run.inFlight,
+                run.flows / run.seconds, run.latency.percentile(50) / 1e3, run.latency.percentile(99) / 1e3,
+                run.batchSizes == null ? "-" : String.format("%.1f", run.batchSizes.mean()));
+    }
+}
@@ -0,0 +1,79 @@
+package async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import metrics.LogHistogram;
+import threadSafeCollection.ScoreStore;
+
+/**
+ * Non-blocking front end for a `ScoreStore`, the score counterpart of `AsyncAccounts`.
+ *
+ * Updates are applied in batches by a `CommitBatcher` chosen by the user's hash, so the
+ * updates of one user made through this object reach the store in the order they were
+ * submitted. `addScore()` completes with the result of `ScoreStore.addScore()`: false if the
+ * user is unknown (like `computeIfPresent()` in `ThreadSafeMapExample`). It does not report the
+ * new score, because reading it back after the update is not atomic with it: other writers may
+ * update the store directly, and a `PipelinedScoreStore` applies updates asynchronously.
+ * `getScore()` flushes the store first, so it sees every update submitted before it.
+ */
+public class AsyncScores {
+    private final ScoreStore store;
+    private final CommitBatcher[] batchers;
+    private final LogHistogram batchSizes = new LogHistogram();
+
+    /**
+     * @param executor runs the updates and the callbacks of the returned futures
+     * @param stripes  number of batchers, and so of executor threads that can update at once
+     */
+    public AsyncScores(ScoreStore store, Executor executor, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be at least 1");
+        }
+        this.store = store;
+        this.batchers = new CommitBatcher[stripes];
+        for (int i = 0; i < stripes; i++) {
+            batchers[i] = new CommitBatcher(executor, batchSizes);
+        }
+    }
+
+    public ScoreStore store() {
+        return store;
+    }
+
+    // Completes with false if the user is unknown
+    public CompletableFuture<Boolean> addScore(String user, long delta) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        batcherOf(user).submit(() -> {
+            try {
+                result.complete(store.addScore(user, delta));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    // Ordered after every update of the user submitted before it; waits for an asynchronous store to apply them
+    public CompletableFuture<Long> getScore(String user, long defaultValue) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        batcherOf(user).submit(() -> {
+            try {
+                store.flush();  // Does nothing for stores that update synchronously
+                result.complete(store.getScore(user, defaultValue));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private CommitBatcher batcherOf(String user) {
+        return batchers[(user.hashCode() & Integer.MAX_VALUE) % batchers.length];
+    }
+
+    // Operations applied per executor task
+    public LogHistogram batchSizes() {
+        return batchSizes;
+    }
+}
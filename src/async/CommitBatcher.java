@@ -0,0 +1,75 @@
+package async;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import metrics.LogHistogram;
+
+/**
+ * Collects operations submitted from many threads and applies them in batches on an executor.
+ *
+ * Key Concepts:
+ * - At most one drain task per batcher is queued on the executor or running at a time. The
+ *   first operation that finds no drain scheduled submits one; every operation that arrives
+ *   before it runs just joins the queue. Operations submitted together therefore cost one
+ *   executor hand-off instead of one each.
+ * - A drain applies up to `MAX_BATCH` operations, then hands the thread back to the executor
+ *   and schedules itself again if more are waiting, so one busy batcher cannot keep an
+ *   executor thread forever.
+ * - Operations run in the order they were submitted. Operations submitted while a drain is
+ *   running, for example by a future completed in that drain, join the same drain.
+ * - If the executor rejects the drain, for example after it was shut down, the submitting
+ *   thread drains instead, so every operation still runs and completes its future.
+ */
+final class CommitBatcher {
+    private static final int MAX_BATCH = 1024;
+
+    private final Executor executor;
+    private final LogHistogram batchSizes;
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    CommitBatcher(Executor executor, LogHistogram batchSizes) {
+        this.executor = executor;
+        this.batchSizes = batchSizes;
+    }
+
+    void submit(Runnable operation) {
+        pending.add(operation);
+        if (!scheduled.get() && scheduled.compareAndSet(false, true)) {
+            schedule();
+        }
+    }
+
+    // Must be called with `scheduled` set by the caller
+    private void schedule() {
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // The executor is shut down or full: drain on this thread, like CallerRunsPolicy, rather
+            // than leave `scheduled` set and the queued operations' futures never completed
+            drain();
+        }
+    }
+
+    private void drain() {
+        int count = 0;
+        try {
+            Runnable operation;
+            while (count < MAX_BATCH && (operation = pending.poll()) != null) {
+                count++;
+                operation.run();
+            }
+        } finally {
+            // Also after an operation threw, so the batcher keeps draining instead of stalling for good
+            batchSizes.record(count);
+            scheduled.set(false);
+            // An operation added after the last poll may have seen the flag still set
+            if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package cancellation;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import timer.Timeout;
+import timer.TimerWheel;
+
+/**
+ * A signal that asks running work to stop, either on request or when a deadline passes.
+ * 
+ * Key Concepts:
+ * - **Cheap checks**: `isCancelled()` is a single volatile read, so it can be called on every
+ *   iteration of a hot loop. Deadlines are enforced by a `timer.TimerWheel` whose ticker
+ *   thread cancels the token when the deadline passes; the loop never has to read the clock.
+ *   Callbacks of a token cancelled by its deadline run on that thread, so keep them short.
+ * - **Trees**: `child()` creates a token that is cancelled whenever its parent is. Cancelling
+ *   the root of a task tree therefore stops every task in it at once. Cancelling a child
+ *   does not affect its parent. A child's deadline can only be earlier than its parent's.
+ * - **Interruption**: `interruptOnCancel()` interrupts the current thread when the token is
+ *   cancelled, so blocking calls that only react to `Thread.interrupt()` (like
+ *   `Thread.sleep` in `InterruptThread` and `MyThread`) are woken up as well.
+ * - Close a token with `close()` once its work is done. This detaches it from its parent
+ *   and stops its deadline timer, so long-lived parents do not accumulate finished children.
+ */
+public final class CancellationToken implements AutoCloseable {
+
+    public enum Reason {
+        CANCELLED,
+        DEADLINE_EXCEEDED
+    }
+
+    /**
+     * Handle for a callback added with `onCancel()` or `interruptOnCancel()`; closing it
+     * removes the callback.
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    // Deadlines fire on the ticker itself: cancelling is a CAS plus callbacks, and must not wait
+    // for a common-pool thread that the cancellable work itself may be keeping busy
+    private static final TimerWheel DEADLINES = new TimerWheel("CancellationToken-deadlines", 1,
+            TimeUnit.MILLISECONDS, Runnable::run);
+
+    private final CancellationToken parent;
+    private final long deadlineNanos;  // System.nanoTime() based; Long.MAX_VALUE means no deadline
+    private final AtomicReference<Reason> reason = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<CancellationToken> children = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Runnable> callbacks = new ConcurrentLinkedQueue<>();
+    private volatile Timeout deadlineTimer;
+
+    private CancellationToken(CancellationToken parent, long deadlineNanos) {
+        this.parent = parent;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    // A root token without a deadline
+    public static CancellationToken create() {
+        return new CancellationToken(null, Long.MAX_VALUE);
+    }
+
+    // A root token that is cancelled automatically after the timeout
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        CancellationToken token = new CancellationToken(null, System.nanoTime() + unit.toNanos(timeout));
+        token.armDeadline();
+        return token;
+    }
+
+    // A token that is cancelled together with this one and has the same deadline
+    public CancellationToken child() {
+        return attach(new CancellationToken(this, deadlineNanos));
+    }
+
+    // A child token whose deadline is the earlier of this token's and now + timeout
+    public CancellationToken childWithTimeout(long timeout, TimeUnit unit) {
+        long deadline = Math.min(deadlineNanos, System.nanoTime() + unit.toNanos(timeout));
+        CancellationToken child = attach(new CancellationToken(this, deadline));
+        if (deadline != deadlineNanos) {
+            child.armDeadline();
+        }
+        return child;
+    }
+
+    private CancellationToken attach(CancellationToken child) {
+        children.add(child);
+        Reason parentReason = reason.get();
+        if (parentReason != null) {
+            child.cancel(parentReason);  // The parent was cancelled while we were attaching
+        }
+        return child;
+    }
+
+    private void armDeadline() {
+        long delay = deadlineNanos - System.nanoTime();
+        if (delay <= 0) {
+            cancel(Reason.DEADLINE_EXCEEDED);
+        } else {
+            // Fires up to one tick (1 ms) late; re-arms if the wheel capped a very long delay and fired early
+            deadlineTimer = DEADLINES.schedule(this::armDeadline, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void cancel() {
+        cancel(Reason.CANCELLED);
+    }
+
+    private void cancel(Reason why) {
+        if (!reason.compareAndSet(null, why)) {
+            return;  // Already cancelled
+        }
+        Timeout timer = deadlineTimer;
+        if (timer != null) {
+            timer.cancel();
+        }
+        Runnable callback;
+        while ((callback = callbacks.poll()) != null) {
+            callback.run();
+        }
+        CancellationToken child;
+        while ((child = children.poll()) != null) {
+            child.cancel(why);
+        }
+    }
+
+    // Single volatile read; safe to call in hot loops
+    public boolean isCancelled() {
+        return reason.get() != null;
+    }
+
+    // Why the token was cancelled, or null if it is still active
+    public Reason reason() {
+        return reason.get();
+    }
+
+    /**
+     * Like `isCancelled()`, but also reads the clock and cancels the token if its deadline has
+     * passed and the timer has not fired yet. Used by blocking helpers, not by hot loops.
+     */
+    boolean checkDeadline() {
+        if (!isCancelled() && hasDeadline() && System.nanoTime() - deadlineNanos >= 0) {
+            cancel(Reason.DEADLINE_EXCEEDED);
+        }
+        return isCancelled();
+    }
+
+    public void throwIfCancelled() {
+        Reason why = reason.get();
+        if (why != null) {
+            throw new CancelledException(why);
+        }
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != Long.MAX_VALUE;
+    }
+
+    // Time left until the deadline (Long.MAX_VALUE if there is none), 0 once cancelled
+    public long remainingNanos() {
+        if (isCancelled()) {
+            return 0;
+        }
+        return hasDeadline() ? Math.max(0, deadlineNanos - System.nanoTime()) : Long.MAX_VALUE;
+    }
+
+    // Runs the callback when the token is cancelled, or right away if it already is
+    public Registration onCancel(Runnable callback) {
+        callbacks.add(callback);
+        if (isCancelled() && callbacks.remove(callback)) {
+            callback.run();  // Cancelled while we were registering; run it ourselves
+        }
+        return () -> callbacks.remove(callback);
+    }
+
+    /**
+     * Interrupts the calling thread when the token is cancelled. Close the registration
+     * before the thread moves on to unrelated work.
+     */
+    public Registration interruptOnCancel() {
+        return onCancel(Thread.currentThread()::interrupt);
+    }
+
+    // Detaches from the parent and stops the deadline timer; does not cancel the token
+    @Override
+    public void close() {
+        Timeout timer = deadlineTimer;
+        if (timer != null) {
+            timer.cancel();
+        }
+        if (parent != null) {
+            parent.children.remove(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package cancellation;
+
+/**
+ * Thrown by `CancellationToken.throwIfCancelled()` and the `Deadlines` helpers when the
+ * work was cancelled or ran past its deadline.
+ */
+public class CancelledException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final CancellationToken.Reason reason;
+
+    public CancelledException(CancellationToken.Reason reason) {
+        super(reason == CancellationToken.Reason.DEADLINE_EXCEEDED ? "Deadline exceeded" : "Cancelled");
+        this.reason = reason;
+    }
+
+    public CancellationToken.Reason reason() {
+        return reason;
+    }
+}
@@ -0,0 +1,92 @@
+package cancellation;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import execution.CpuKernel;
+
+/**
+ * Shows how deadlines cut off stragglers and what that does to tail latency.
+ * 
+ * Usage: `java cancellation.DeadlineExample [tasks] [deadlineMillis] [stragglerPercent]`
+ * 
+ * What this code does:
+ * - Submits `tasks` CPU-bound tasks to a fixed pool. Most do 1 unit of `CpuKernel` work;
+ *   `stragglerPercent` of them do 200 units, like a request that hits a slow path.
+ * - Runs the batch twice: once without a deadline, and once where every task gets a child
+ *   token of one root token with a deadline of `deadlineMillis` from its own start.
+ *   The kernel checks the token once per unit, so a straggler stops soon after its deadline.
+ * - Prints the latency percentiles (from submission to completion or cut-off) of both runs
+ *   and how many tasks were cut off.
+ * - Finally starts another batch and cancels the root token, which cancels every task of the
+ *   tree at once.
+ */
+public class DeadlineExample {
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long deadlineMillis = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        int stragglerPercent = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        int[] units = new int[tasks];
+        for (int i = 0; i < tasks; i++) {
+            units[i] = ThreadLocalRandom.current().nextInt(100) < stragglerPercent ? 200 : 1;
+        }
+
+        runBatch("no deadline", units, CancellationToken.create(), -1);
+        runBatch(deadlineMillis + " ms deadline", units, CancellationToken.create(), deadlineMillis);
+
+        // Cancelling a whole tree: the root is cancelled shortly after the batch starts
+        CancellationToken root = CancellationToken.create();
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                return;
+            }
+            root.cancel();
+        });
+        canceller.start();
+        Arrays.fill(units, 200);
+        runBatch("root cancelled after 20 ms", units, root, -1);
+        canceller.join();
+    }
+
+    private static void runBatch(String name, int[] units, CancellationToken root, long deadlineMillis)
+            throws InterruptedException {
+        int tasks = units.length;
+        long[] latencies = new long[tasks];
+        AtomicInteger cutOff = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < tasks; i++) {
+            final int index = i;
+            final long submitted = System.nanoTime();
+            pool.execute(() -> {
+                try (CancellationToken token = deadlineMillis < 0
+                        ? root.child()
+                        : root.childWithTimeout(deadlineMillis, TimeUnit.MILLISECONDS)) {
+                    CpuKernel.run(units[index], index, token);
+                } catch (CancelledException e) {
+                    cutOff.incrementAndGet();
+                }
+                latencies[index] = System.nanoTime() - submitted;
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+
+        Arrays.sort(latencies);
+        System.out.printf("%-28s p50 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms  max %7.2f ms  cut off %d/%d%n",
+                name, percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[tasks - 1] / 1e6, cutOff.get(), tasks);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
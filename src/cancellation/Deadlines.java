@@ -0,0 +1,77 @@
+package cancellation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Blocking operations that give up when a `CancellationToken` is cancelled or its deadline passes.
+ * 
+ * Key Concepts:
+ * - Each operation waits in short slices (at most `SLICE_NANOS`) and checks the token between
+ *   slices. A deadline is also honored exactly, because no slice extends past it.
+ * - This covers cancellation by `cancel()` too, which a single long `tryLock(timeout)` or
+ *   `join(millis)` would not notice until its timeout ran out.
+ */
+public final class Deadlines {
+
+    // Longest time a blocked operation goes without checking its token
+    static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private Deadlines() {
+    }
+
+    /**
+     * Like `lock.tryLock(timeout)`, with the timeout taken from the token.
+     * 
+     * @return true if the lock was acquired; false if the token was cancelled first
+     */
+    public static boolean tryLock(Lock lock, CancellationToken token) throws InterruptedException {
+        if (lock.tryLock()) {
+            return true;
+        }
+        while (!token.checkDeadline()) {
+            if (lock.tryLock(nextSlice(token), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Like `thread.join(millis)`, with the timeout taken from the token.
+     * 
+     * @return true if the thread has terminated; false if the token was cancelled first
+     */
+    public static boolean join(Thread thread, CancellationToken token) throws InterruptedException {
+        while (thread.isAlive()) {
+            if (token.checkDeadline()) {
+                return false;
+            }
+            long slice = nextSlice(token);
+            thread.join(TimeUnit.NANOSECONDS.toMillis(slice), (int) (slice % 1_000_000));
+        }
+        return true;
+    }
+
+    /**
+     * Sleeps for the given time, but wakes up early and throws `CancelledException`
+     * if the token is cancelled in the meantime.
+     */
+    public static void sleep(long duration, TimeUnit unit, CancellationToken token) throws InterruptedException {
+        long end = System.nanoTime() + unit.toNanos(duration);
+        while (true) {
+            token.checkDeadline();
+            token.throwIfCancelled();
+            long left = end - System.nanoTime();
+            if (left <= 0) {
+                return;
+            }
+            long slice = Math.min(left, nextSlice(token));
+            TimeUnit.NANOSECONDS.sleep(slice);
+        }
+    }
+
+    private static long nextSlice(CancellationToken token) {
+        return Math.max(1, Math.min(SLICE_NANOS, token.remainingNanos()));
+    }
+}
@@ -0,0 +1,29 @@
+package counterEngine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter backed by a single `AtomicLong`.
+ * 
+ * Increments are lock-free (a hardware atomic add), so threads never block each other.
+ * All threads still write the same memory location, so under heavy contention the
+ * cache line holding the value bounces between cores.
+ */
+public class AtomicCounter implements CounterStrategy {
+    private final AtomicLong count = new AtomicLong();
+
+    @Override
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    @Override
+    public void add(long delta) {
+        count.addAndGet(delta);
+    }
+
+    @Override
+    public long value() {
+        return count.get();
+    }
+}
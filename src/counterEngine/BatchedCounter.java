@@ -0,0 +1,56 @@
+package counterEngine;
+
+/**
+ * Counter that accumulates increments in a per-thread buffer and publishes them to a
+ * shared delegate counter every `batchSize` increments.
+ * 
+ * Key Concepts:
+ * - The hot path only touches thread-local memory, so there is no contention at all
+ *   between flushes. Only one shared write happens per `batchSize` increments.
+ * - `value()` only includes flushed increments. Each worker must call `flush()` when it
+ *   finishes, otherwise up to `batchSize - 1` of its increments stay invisible.
+ */
+public class BatchedCounter implements CounterStrategy {
+    private final CounterStrategy delegate;
+    private final int batchSize;
+
+    // Pending increments of the current thread that have not been published yet
+    private final ThreadLocal<long[]> pending = ThreadLocal.withInitial(() -> new long[1]);
+
+    public BatchedCounter(CounterStrategy delegate, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void increment() {
+        add(1);
+    }
+
+    @Override
+    public void add(long delta) {
+        long[] local = pending.get();
+        local[0] += delta;
+        if (local[0] >= batchSize) {
+            delegate.add(local[0]);
+            local[0] = 0;
+        }
+    }
+
+    @Override
+    public long value() {
+        return delegate.value();
+    }
+
+    @Override
+    public void flush() {
+        long[] local = pending.get();
+        if (local[0] != 0) {
+            delegate.add(local[0]);
+            local[0] = 0;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package counterEngine;
+
+/**
+ * Common interface for every counter implementation in the repo, so the same
+ * workload can be driven against each strategy and the results compared.
+ * 
+ * Key Concepts:
+ * - `increment()` and `add()` are the write path. They may be called by any number
+ *   of threads at the same time.
+ * - `value()` is the read path. Implementations that buffer writes (see `BatchedCounter`)
+ *   only report what has already been flushed.
+ * - `flush()` publishes any increments the calling thread is still holding locally.
+ *   Workers should call it once when they are done; for unbuffered strategies it does nothing.
+ */
+public interface CounterStrategy {
+
+    // Increase the counter by 1
+    void increment();
+
+    // Increase the counter by the given amount
+    void add(long delta);
+
+    // Return the current (flushed) value of the counter
+    long value();
+
+    // Publish the calling thread's buffered increments, if any
+    default void flush() {
+    }
+}
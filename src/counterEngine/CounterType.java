@@ -0,0 +1,38 @@
+package counterEngine;
+
+import java.util.Locale;
+
+/**
+ * The counter strategies that a workload can be run against.
+ * 
+ * Use `CounterType.parse(name)` to select one from a command-line argument,
+ * e.g. `java synchronizedEx.SynchronizedExample striped`.
+ */
+public enum CounterType {
+    MONITOR,   // synchronized block on every increment
+    ATOMIC,    // single AtomicLong
+    STRIPED,   // padded striped cells, LongAdder-style
+    BATCHED;   // per-thread buffer flushed into an AtomicLong
+
+    // Number of increments a BATCHED counter keeps per thread before flushing
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    public CounterStrategy create() {
+        switch (this) {
+            case MONITOR:
+                return new MonitorCounter();
+            case ATOMIC:
+                return new AtomicCounter();
+            case STRIPED:
+                return new StripedCounter();
+            case BATCHED:
+                return new BatchedCounter(new AtomicCounter(), DEFAULT_BATCH_SIZE);
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    public static CounterType parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
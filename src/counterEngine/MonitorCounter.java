@@ -0,0 +1,33 @@
+package counterEngine;
+
+/**
+ * Counter guarded by its own monitor, exactly like `synchronizedEx.Counter`.
+ * 
+ * Every call takes `synchronized (this)`, so all threads serialize on a single lock.
+ * It is always correct, but throughput drops sharply once more than a couple of
+ * cores are incrementing at the same time. It is kept here as the baseline.
+ */
+public class MonitorCounter implements CounterStrategy {
+    private long count = 0;
+
+    @Override
+    public void increment() {
+        synchronized (this) {
+            count++;
+        }
+    }
+
+    @Override
+    public void add(long delta) {
+        synchronized (this) {
+            count += delta;
+        }
+    }
+
+    @Override
+    public long value() {
+        synchronized (this) {  // Reading under the monitor guarantees visibility of the latest write
+            return count;
+        }
+    }
+}
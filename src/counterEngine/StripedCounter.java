@@ -0,0 +1,73 @@
+package counterEngine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * `LongAdder`-style counter that spreads increments over several cache-line-padded cells.
+ * 
+ * Key Concepts:
+ * - Each thread is mapped to one cell by a per-thread probe value. Threads on different
+ *   cells never write the same cache line, so there is no false sharing between them.
+ * - The cells live in one `AtomicLongArray`, and only every `PAD`-th slot is used. With
+ *   16 longs (128 bytes) between cells, two cells never share a cache line, including
+ *   on CPUs that prefetch adjacent line pairs.
+ * - If a compare-and-set on a cell fails, another thread is using that cell, so the
+ *   thread re-hashes its probe and moves to a different cell for its next increments.
+ * - `value()` sums all cells. The sum is exact once the writers have stopped, but it is not
+ *   an atomic snapshot while they are still running.
+ */
+public class StripedCounter implements CounterStrategy {
+
+    // Distance between two used slots, in longs (16 * 8 bytes = 128 bytes)
+    private static final int PAD = 16;
+
+    // Per-thread probe used to pick a cell. Shared by all instances, like LongAdder's probe.
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> {
+        int seed = (int) (Thread.currentThread().getId() * 0x9E3779B9L);
+        return new int[] { seed == 0 ? 1 : seed };
+    });
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    // Uses a cell count of at least twice the number of available processors
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public StripedCounter(int minCells) {
+        int n = Integer.highestOneBit(Math.max(1, minCells - 1)) << 1;  // Round up to a power of two
+        this.cells = new AtomicLongArray(n * PAD);
+        this.mask = n - 1;
+    }
+
+    @Override
+    public void increment() {
+        add(1);
+    }
+
+    @Override
+    public void add(long delta) {
+        int[] probe = PROBE.get();
+        int slot = (probe[0] & mask) * PAD;
+        long current = cells.get(slot);
+        if (!cells.compareAndSet(slot, current, current + delta)) {
+            // Contended cell: move this thread to another cell, then add unconditionally
+            int h = probe[0];
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+            probe[0] = h;
+            cells.getAndAdd((h & mask) * PAD, delta);
+        }
+    }
+
+    @Override
+    public long value() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PAD) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,53 @@
+package execution;
+
+import cancellation.CancellationToken;
+
+/**
+ * Allocation-free, CPU-bound unit of work.
+ * 
+ * Key Concepts:
+ * - `run(units)` does `units * ITERATIONS_PER_UNIT` rounds of integer arithmetic on local
+ *   variables only. Nothing is allocated, so the cost is pure CPU and not GC or array copying.
+ * - The result depends on every round, and callers should consume it (e.g. by summing it
+ *   into a field), so the JIT cannot remove the loop as dead code.
+ * - One unit takes roughly the same time on every thread, which makes progress comparable
+ *   across threads and priority levels.
+ * - The overload that takes a `CancellationToken` checks it once per unit (a single volatile
+ *   read), so even very long runs stop soon after the token is cancelled.
+ */
+public final class CpuKernel {
+
+    // Number of arithmetic rounds in one unit of work
+    public static final int ITERATIONS_PER_UNIT = 100_000;
+
+    private CpuKernel() {
+    }
+
+    // Runs the given number of work units and returns a value derived from all of them
+    public static long run(long units, long seed) {
+        long x = seed | 1;  // xorshift state must be non-zero
+        for (long u = 0; u < units; u++) {
+            x = unit(x);
+        }
+        return x;
+    }
+
+    // Same as run(units, seed), but throws CancelledException once the token is cancelled
+    public static long run(long units, long seed, CancellationToken token) {
+        long x = seed | 1;
+        for (long u = 0; u < units; u++) {
+            token.throwIfCancelled();
+            x = unit(x);
+        }
+        return x;
+    }
+
+    private static long unit(long x) {
+        for (int i = 0; i < ITERATIONS_PER_UNIT; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+}
@@ -0,0 +1,41 @@
+package execution;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The ways a batch of tasks can be executed.
+ * 
+ * - `PLATFORM`: one new platform (OS) thread per task, like `new Thread(task).start()`.
+ * - `FIXED_POOL`: a fixed number of platform threads that take turns running the tasks.
+ * - `VIRTUAL`: one virtual thread per task, via `Executors.newVirtualThreadPerTaskExecutor()`.
+ *   Requires Java 21 or newer at runtime.
+ */
+public enum ExecutionMode {
+    PLATFORM,
+    FIXED_POOL,
+    VIRTUAL;
+
+    public boolean isSupported() {
+        return this != VIRTUAL || VirtualThreads.isAvailable();
+    }
+
+    // poolSize is only used by FIXED_POOL
+    public ExecutorService newExecutor(int poolSize) {
+        switch (this) {
+            case PLATFORM:
+                return new ThreadPerTaskExecutor("platform-");
+            case FIXED_POOL:
+                return Executors.newFixedThreadPool(poolSize);
+            case VIRTUAL:
+                return VirtualThreads.newVirtualThreadPerTaskExecutor();
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    public static ExecutionMode parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,138 @@
+package execution;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the same workload under each `ExecutionMode` and reports throughput and memory.
+ * 
+ * Usage: `java execution.ExecutionModeExample [mode|all] [workload] [tasks] [sleepMillis] [poolSize]`
+ * 
+ * Example: `java execution.ExecutionModeExample all sleep 100000 1000` submits 100k tasks that
+ * each sleep for one second. With `PLATFORM` this needs 100k OS threads and usually fails;
+ * with `VIRTUAL` (Java 21+) it finishes in a little over a second.
+ * 
+ * For every mode the report shows:
+ * - elapsed time and tasks per second,
+ * - the peak number of live platform threads,
+ * - heap in use right after all tasks were submitted (virtual thread stacks live on the heap),
+ * - the peak resident set size of the process (Linux only, from /proc/self/status),
+ * - anything `PinningDetector` found, e.g. tasks sleeping inside `synchronized`.
+ * 
+ * The peak RSS of a process never goes down, so with `all` every mode runs in a JVM of its own
+ * (started with the same class path and options); otherwise each mode after the first would
+ * report the peak of the modes before it.
+ */
+public class ExecutionModeExample {
+    public static void main(String[] args) throws InterruptedException {
+        String modeArg = args.length > 0 ? args[0] : "all";
+        Workload workload = args.length > 1 ? Workload.parse(args[1]) : Workload.SLEEP;
+        int tasks = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        long sleepMillis = args.length > 3 ? Long.parseLong(args[3]) : 100;
+        int poolSize = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors() * 4;
+
+        ExecutionMode[] modes = "all".equalsIgnoreCase(modeArg)
+                ? ExecutionMode.values()
+                : new ExecutionMode[] { ExecutionMode.parse(modeArg) };
+
+        for (ExecutionMode mode : modes) {
+            if (!mode.isSupported()) {
+                System.out.println(mode + ": not supported on Java " + System.getProperty("java.version") + ", skipped");
+                continue;
+            }
+            if (modes.length > 1) {
+                runInOwnJvm(mode, args);
+            } else {
+                run(mode, workload, tasks, sleepMillis, poolSize);
+            }
+        }
+    }
+
+    // Runs this example for one mode in a child JVM, so its peak RSS is its own
+    private static void runInOwnJvm(ExecutionMode mode, String[] args) throws InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ExecutionModeExample.class.getName());
+        command.add(mode.name());
+        command.addAll(Arrays.asList(args).subList(Math.min(1, args.length), args.length));
+        try {
+            int exit = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (exit != 0) {
+                System.out.println(mode + ": child JVM exited with " + exit);
+            }
+        } catch (IOException e) {
+            System.out.println(mode + ": could not start a JVM: " + e);
+        }
+    }
+
+    private static void run(ExecutionMode mode, Workload workload, int tasks, long sleepMillis, int poolSize)
+            throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        Runnable task = workload.newTask(sleepMillis);
+        try (PinningDetector detector = new PinningDetector(50)) {
+            detector.start();
+            ExecutorService executor = mode.newExecutor(poolSize);
+            long start = System.nanoTime();
+            int submitted = 0;
+            long heapAfterSubmit;
+            try {
+                for (; submitted < tasks; submitted++) {
+                    executor.execute(task);
+                }
+            } catch (OutOfMemoryError e) {
+                // Typically "unable to create native thread" in PLATFORM mode
+                System.out.println(mode + ": failed after " + submitted + " tasks: " + e);
+            } finally {
+                heapAfterSubmit = memory.getHeapMemoryUsage().getUsed();
+                executor.shutdown();
+                executor.awaitTermination(1, TimeUnit.HOURS);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            System.out.printf("%s: %d %s tasks in %d ms (%.0f tasks/s), peak platform threads %d, "
+                    + "heap after submit +%d KB, peak RSS %s%n",
+                    mode, submitted, workload, elapsedNanos / 1_000_000, submitted * 1e9 / elapsedNanos,
+                    threads.getPeakThreadCount(), (heapAfterSubmit - heapBefore) / 1024, peakRss());
+            for (Map.Entry<String, Long> finding : detector.findings().entrySet()) {
+                System.out.println("  " + finding.getKey() + " (seen " + finding.getValue() + "x)");
+            }
+        }
+    }
+
+    // VmHWM is the high-water mark of the resident set size; it never goes down during the process
+    private static String peakRss() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return "n/a";
+        }
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    return line.substring("VmHWM:".length()).trim();
+                }
+            }
+        } catch (IOException e) {
+            // Fall through
+        }
+        return "n/a";
+    }
+}
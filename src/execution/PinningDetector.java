@@ -0,0 +1,149 @@
+package execution;
+
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MonitorInfo;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Finds tasks that block while holding a lock, which is what pins virtual threads.
+ * 
+ * Key Concepts:
+ * - A virtual thread that sleeps or waits inside a `synchronized` block (as a task would
+ *   inside `synchronizedEx.Counter`) cannot unmount from its carrier thread before Java 24.
+ *   The carrier stays blocked, so one such task takes a whole carrier out of the pool.
+ * - A task that holds a `java.util.concurrent` lock across a sleep (as in `locksEx.BankAccount`)
+ *   does not pin, because parking unmounts. But every other task that needs the lock is
+ *   blocked for the whole sleep, so it is reported as well.
+ * 
+ * Two sources are combined:
+ * 1. On Java 21+, a JFR stream of `jdk.VirtualThreadPinned` events reports actual pinning.
+ *    JFR delivers events in batches, so they can arrive up to about a second late.
+ * 2. A sampler that periodically dumps all platform threads and reports any thread that is
+ *    WAITING or TIMED_WAITING while it owns a monitor or a lock. In `PLATFORM` and
+ *    `FIXED_POOL` mode these are the places that would pin or block in `VIRTUAL` mode.
+ */
+public class PinningDetector implements AutoCloseable {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final Map<String, LongAdder> findings = new ConcurrentHashMap<>();
+    private final long sampleIntervalMillis;
+    private RecordingStream pinnedEvents;
+    private Thread sampler;
+    private volatile boolean running;
+
+    public PinningDetector(long sampleIntervalMillis) {
+        this.sampleIntervalMillis = sampleIntervalMillis;
+    }
+
+    public void start() {
+        running = true;
+
+        if (VirtualThreads.isAvailable()) {
+            pinnedEvents = new RecordingStream();
+            pinnedEvents.enable(PINNED_EVENT).withStackTrace().withThreshold(Duration.ofMillis(1));
+            pinnedEvents.onEvent(PINNED_EVENT, event -> record("PINNED", topFrame(event)));
+            pinnedEvents.startAsync();
+        }
+
+        sampler = new Thread(this::sampleLoop, "PinningDetector");
+        sampler.setDaemon(true);  // Never keeps the JVM alive
+        sampler.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (sampler != null) {
+            sampler.interrupt();
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (pinnedEvents != null) {
+            pinnedEvents.close();
+        }
+    }
+
+    // Number of times each finding was seen, sorted by description
+    public Map<String, Long> findings() {
+        Map<String, Long> result = new TreeMap<>();
+        findings.forEach((key, count) -> result.put(key, count.sum()));
+        return result;
+    }
+
+    private void sampleLoop() {
+        while (running) {
+            for (ThreadInfo info : threadBean.dumpAllThreads(true, true)) {
+                if (info == null || info.getThreadId() == Thread.currentThread().getId()) {
+                    continue;
+                }
+                Thread.State state = info.getThreadState();
+                if (state != Thread.State.WAITING && state != Thread.State.TIMED_WAITING) {
+                    continue;
+                }
+                String where = topFrame(info.getStackTrace());
+                for (MonitorInfo monitor : info.getLockedMonitors()) {
+                    record("BLOCKING_IN_SYNCHRONIZED " + monitor.getClassName(), where);
+                }
+                for (LockInfo lock : info.getLockedSynchronizers()) {
+                    // Pool workers always hold their own Worker lock while running a task; that is not a finding
+                    if (!lock.getClassName().startsWith(ThreadPoolExecutor.class.getName())) {
+                        record("BLOCKING_WHILE_HOLDING_LOCK " + lock.getClassName(), where);
+                    }
+                }
+            }
+            try {
+                Thread.sleep(sampleIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void record(String kind, String where) {
+        findings.computeIfAbsent(kind + " at " + where, k -> new LongAdder()).increment();
+    }
+
+    // First application frame of a sampled stack trace
+    private static String topFrame(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (!isJdkClass(frame.getClassName())) {
+                return frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "?";
+    }
+
+    // First application frame of the event's stack trace
+    private static String topFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "?";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!isJdkClass(type)) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "?";
+    }
+
+    private static boolean isJdkClass(String className) {
+        return className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.");
+    }
+}
@@ -0,0 +1,289 @@
+package execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import cancellation.CancellationToken;
+import cancellation.CancelledException;
+
+/**
+ * Runs a group of subtasks and waits for all of them, replacing hand-written
+ * `start()`/`join()` code.
+ * 
+ * Key Concepts:
+ * - **Fork and join**: `fork()` starts a subtask on the group's threads and returns a
+ *   `Subtask` handle. `join()` waits until every forked subtask has finished, then returns
+ *   their results in fork order or throws an `ExecutionException` for the first failure.
+ *   Other failures are attached to it as suppressed exceptions.
+ * - **Policies**: with `JOIN_ALL` a failing subtask does not affect the others. With
+ *   `FAIL_FAST` the first failure cancels the group's `CancellationToken`, which interrupts
+ *   the subtasks still running and skips the ones that have not started yet.
+ * - **No leaked threads**: `close()` cancels whatever is still running and waits for it to
+ *   stop, so no subtask outlives the try-with-resources block that created the group.
+ * - **Timings**: each `Subtask` records how long it waited for a thread and how long it ran.
+ * - **Threads**: the subtasks run on an `ExecutionMode` executor, so the same code can fan
+ *   out over platform threads, a fixed pool, or thousands of virtual threads.
+ * 
+ * Subtasks can poll `token()` to stop early; blocking calls are interrupted on cancellation.
+ * The group is meant to be used by the thread that created it: call `fork()` and `join()`
+ * from that thread only.
+ */
+public class TaskGroup<T> implements AutoCloseable {
+
+    public enum Policy {
+        JOIN_ALL,   // Wait for every subtask, whatever happens
+        FAIL_FAST   // Cancel the remaining subtasks on the first failure
+    }
+
+    public enum State {
+        RUNNING,    // Forked and not finished yet (possibly still waiting for a thread)
+        SUCCEEDED,
+        FAILED,
+        CANCELLED   // Skipped or stopped because the group was cancelled
+    }
+
+    /**
+     * Handle for one forked subtask. Its result, exception and timings are valid once
+     * `state()` is no longer `RUNNING`, which is guaranteed after `join()`.
+     */
+    public static final class Subtask<T> {
+        private final String name;
+        private final long forkedAt = System.nanoTime();
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile State state = State.RUNNING;
+        private volatile T result;
+        private volatile Throwable exception;
+
+        private Subtask(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        // The result of a SUCCEEDED subtask
+        public T get() {
+            if (state != State.SUCCEEDED) {
+                throw new IllegalStateException(name + " is " + state);
+            }
+            return result;
+        }
+
+        // What a FAILED or CANCELLED subtask threw, or null
+        public Throwable exception() {
+            return exception;
+        }
+
+        // Time from fork() until a thread started running the subtask
+        public long queuedNanos() {
+            return startedAt == 0 ? 0 : startedAt - forkedAt;
+        }
+
+        // Time the subtask spent running
+        public long runNanos() {
+            return startedAt == 0 || finishedAt == 0 ? 0 : finishedAt - startedAt;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s queued=%.3fms run=%.3fms", name, state,
+                    queuedNanos() / 1e6, runNanos() / 1e6);
+        }
+    }
+
+    private final Policy policy;
+    private final ExecutorService executor;
+    private final CancellationToken token;
+    private final List<Subtask<T>> subtasks = new ArrayList<>();
+    private final Object lock = new Object();
+    private int pending;  // Guarded by lock
+    private boolean closed;
+
+    public TaskGroup(Policy policy, ExecutionMode mode) {
+        this(policy, mode, Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * @param poolSize Number of threads, only used by `FIXED_POOL`.
+     * @param parent   Cancels the whole group when cancelled; may be null.
+     */
+    public TaskGroup(Policy policy, ExecutionMode mode, int poolSize, CancellationToken parent) {
+        this.policy = policy;
+        this.executor = mode.newExecutor(poolSize);
+        this.token = parent == null ? CancellationToken.create() : parent.child();
+    }
+
+    // Cancelled when the group is cancelled, fails fast, or is closed early
+    public CancellationToken token() {
+        return token;
+    }
+
+    public Subtask<T> fork(Callable<? extends T> task) {
+        return fork("task-" + (subtasks.size() + 1), task);
+    }
+
+    // For subtasks without a result; their result is null
+    public Subtask<T> fork(String name, Runnable task) {
+        return fork(name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public Subtask<T> fork(String name, Callable<? extends T> task) {
+        if (closed) {
+            throw new IllegalStateException("TaskGroup is closed");
+        }
+        Subtask<T> subtask = new Subtask<>(name);
+        subtasks.add(subtask);
+        synchronized (lock) {
+            pending++;
+        }
+        try {
+            executor.execute(() -> run(subtask, task));
+        } catch (RejectedExecutionException e) {
+            finish(subtask, State.FAILED, null, e);
+        }
+        return subtask;
+    }
+
+    private void run(Subtask<T> subtask, Callable<? extends T> task) {
+        subtask.startedAt = System.nanoTime();
+        if (token.isCancelled()) {
+            finish(subtask, State.CANCELLED, null, null);
+            return;
+        }
+        CancellationToken.Registration registration = token.interruptOnCancel();
+        try {
+            finish(subtask, State.SUCCEEDED, task.call(), null);
+        } catch (Throwable e) {
+            // Anything thrown after the group was cancelled is a consequence of the cancellation
+            boolean cancelled = token.isCancelled();
+            finish(subtask, cancelled ? State.CANCELLED : State.FAILED, null, e);
+            if (!cancelled && policy == Policy.FAIL_FAST) {
+                token.cancel();
+            }
+        } finally {
+            registration.close();
+            Thread.interrupted();  // Do not carry a late cancellation interrupt into the next pooled task
+        }
+    }
+
+    private void finish(Subtask<T> subtask, State state, T result, Throwable exception) {
+        subtask.result = result;
+        subtask.exception = exception;
+        subtask.finishedAt = System.nanoTime();
+        subtask.state = state;
+        synchronized (lock) {
+            if (--pending == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits for all forked subtasks and returns their results in fork order.
+     * 
+     * @throws ExecutionException if any subtask failed; the first failure is the cause.
+     *         With `FAIL_FAST`, it is the failure that cancelled the others.
+     * @throws CancelledException if the group was cancelled from outside before all subtasks succeeded.
+     */
+    public List<T> join() throws InterruptedException, ExecutionException {
+        awaitAll();
+        List<T> results = new ArrayList<>(subtasks.size());
+        ExecutionException failure = null;
+        for (Subtask<T> subtask : earliestFailureFirst()) {
+            if (subtask.state == State.FAILED) {
+                if (failure == null) {
+                    failure = new ExecutionException(subtask.name + " failed", subtask.exception);
+                } else {
+                    failure.addSuppressed(subtask.exception);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (token.isCancelled()) {
+            throw new CancelledException(token.reason());  // Cancelled from outside, e.g. by the parent token
+        }
+        for (Subtask<T> subtask : subtasks) {
+            results.add(subtask.result);
+        }
+        return results;
+    }
+
+    // Waits for every subtask to finish without throwing for failures
+    public void awaitAll() throws InterruptedException {
+        synchronized (lock) {
+            while (pending > 0) {
+                lock.wait();
+            }
+        }
+    }
+
+    private List<Subtask<T>> earliestFailureFirst() {
+        List<Subtask<T>> ordered = new ArrayList<>(subtasks);
+        ordered.sort((a, b) -> Long.compare(a.finishedAt, b.finishedAt));
+        return ordered;
+    }
+
+    public List<Subtask<T>> subtasks() {
+        return List.copyOf(subtasks);
+    }
+
+    public int count(State state) {
+        int count = 0;
+        for (Subtask<T> subtask : subtasks) {
+            if (subtask.state == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Cancels any subtask that is still running, waits for all of them to stop and shuts
+     * the executor down. After `join()` this only releases the threads.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        boolean interrupted = false;
+        synchronized (lock) {
+            if (pending > 0) {
+                token.cancel();
+            }
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;  // Keep waiting; returning now would leak the subtasks
+                }
+            }
+        }
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        token.close();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
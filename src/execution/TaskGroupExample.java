@@ -0,0 +1,92 @@
+package execution;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Fans work out over a `TaskGroup` and shows both join policies.
+ * 
+ * Usage: `java execution.TaskGroupExample [mode] [tasks] [sleepMillis]`
+ * 
+ * What this code does:
+ * - **JOIN_ALL**: forks `tasks` subtasks (default 1000) that each sleep for `sleepMillis`
+ *   (default 50) and return their index, joins them and checks that the results add up.
+ * - **FAIL_FAST**: forks the same subtasks, but with a sleep of 10 seconds, plus one subtask
+ *   that fails after 100 ms. The failure cancels the sleeping subtasks, so `join()` throws
+ *   after about 100 ms instead of 10 seconds.
+ * - For both runs it prints the subtask states, the slowest subtask timings and the number of
+ *   live platform threads after the group is closed, which is back to where it started.
+ * 
+ * `mode` is an `ExecutionMode` (default `platform`; `virtual` needs Java 21+).
+ */
+public class TaskGroupExample {
+    public static void main(String[] args) throws InterruptedException {
+        ExecutionMode mode = args.length > 0 ? ExecutionMode.parse(args[0]) : ExecutionMode.PLATFORM;
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long sleepMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        if (!mode.isSupported()) {
+            System.out.println(mode + ": not supported on Java " + System.getProperty("java.version"));
+            return;
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+
+        long start = System.nanoTime();
+        try (TaskGroup<Integer> group = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, mode)) {
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                group.fork(() -> {
+                    Thread.sleep(sleepMillis);
+                    return index;
+                });
+            }
+            List<Integer> results = group.join();
+            long sum = 0;
+            for (int result : results) {
+                sum += result;
+            }
+            System.out.printf("JOIN_ALL: %d subtasks in %d ms, sum %d (expected %d)%n", results.size(),
+                    (System.nanoTime() - start) / 1_000_000, sum, (long) tasks * (tasks - 1) / 2);
+            printSlowest(group);
+        } catch (ExecutionException e) {
+            System.out.println("JOIN_ALL failed: " + e.getCause());
+        }
+        System.out.println("Platform threads: " + threadsBefore + " before, " + threads.getThreadCount() + " after");
+
+        start = System.nanoTime();
+        try (TaskGroup<Integer> group = new TaskGroup<>(TaskGroup.Policy.FAIL_FAST, mode)) {
+            // Forked first so that it also runs early on a small FIXED_POOL
+            group.fork("failing", () -> {
+                Thread.sleep(100);
+                throw new IllegalStateException("simulated failure");
+            });
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                group.fork(() -> {
+                    Thread.sleep(10_000);
+                    return index;
+                });
+            }
+            try {
+                group.join();
+            } catch (ExecutionException e) {
+                System.out.printf("FAIL_FAST: join() threw after %d ms: %s%n",
+                        (System.nanoTime() - start) / 1_000_000, e.getMessage() + ": " + e.getCause().getMessage());
+            }
+            System.out.printf("  succeeded %d, failed %d, cancelled %d%n", group.count(TaskGroup.State.SUCCEEDED),
+                    group.count(TaskGroup.State.FAILED), group.count(TaskGroup.State.CANCELLED));
+        }
+        System.out.println("Platform threads: " + threadsBefore + " before, " + threads.getThreadCount() + " after");
+    }
+
+    private static void printSlowest(TaskGroup<?> group) {
+        List<? extends TaskGroup.Subtask<?>> subtasks = new ArrayList<>(group.subtasks());
+        subtasks.sort((a, b) -> Long.compare(b.queuedNanos() + b.runNanos(), a.queuedNanos() + a.runNanos()));
+        for (int i = 0; i < Math.min(3, subtasks.size()); i++) {
+            System.out.println("  slowest: " + subtasks.get(i));
+        }
+    }
+}
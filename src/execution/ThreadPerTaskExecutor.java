@@ -0,0 +1,85 @@
+package execution;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor that starts a new platform thread for every task, which is what the demos
+ * do by hand with `new Thread(task).start()`.
+ * 
+ * `shutdownNow()` interrupts every running task thread, and `awaitTermination()` waits
+ * until they have all finished.
+ */
+public class ThreadPerTaskExecutor extends AbstractExecutorService {
+    private final String namePrefix;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown;
+
+    public ThreadPerTaskExecutor(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                command.run();
+            } finally {
+                running.remove(Thread.currentThread());
+                synchronized (running) {
+                    running.notifyAll();  // Wake up awaitTermination()
+                }
+            }
+        }, namePrefix + sequence.incrementAndGet());
+        running.add(thread);
+        thread.start();
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        for (Thread thread : running) {
+            thread.interrupt();
+        }
+        return List.of();  // Tasks are started immediately, so nothing is ever queued
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && running.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (running) {
+            while (!isTerminated()) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                running.wait(Math.min(remainingMillis, 100));
+            }
+        }
+        return true;
+    }
+}
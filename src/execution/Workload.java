@@ -0,0 +1,95 @@
+package execution;
+
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+import locksEx.BankAccount;
+import synchronizedEx.Counter;
+
+/**
+ * Task bodies taken from the demos, so they can be run under any `ExecutionMode`.
+ * 
+ * - `SLEEP`: sleeps, like `MyThread` and `InterruptThread`.
+ * - `CPU`: ten units of `CpuKernel` work, the same kernel `PriorityThread` runs.
+ * - `COUNTER`: 1000 increments of a shared `synchronizedEx.Counter`, like `ThreadCreate`.
+ * - `SYNCHRONIZED_SLEEP`: sleeps while holding the shared `Counter` monitor. This pins a
+ *   virtual thread to its carrier.
+ * - `LOCKED_SLEEP`: sleeps while holding a `ReentrantLock`, the pattern `BankAccount.withdraw`
+ *   uses. Tasks are spread over 64 locks so they do not all serialize on one.
+ * - `WITHDRAW`: calls `BankAccount.withdraw(50)` on a fresh account, like `ThreadEx`.
+ *   It prints and sleeps for 3 seconds, so only use it with a small number of tasks.
+ */
+public enum Workload {
+    SLEEP,
+    CPU,
+    COUNTER,
+    SYNCHRONIZED_SLEEP,
+    LOCKED_SLEEP,
+    WITHDRAW;
+
+    private static final int LOCK_STRIPES = 64;
+
+    // CPU results are stored here so the JIT cannot remove the loop that computes them
+    static volatile long sink;
+
+    /**
+     * Creates the task for this workload. All tasks created by one call share the same
+     * counter or locks, so create it once and submit it as many times as needed.
+     */
+    public Runnable newTask(long sleepMillis) {
+        switch (this) {
+            case SLEEP:
+                return () -> sleep(sleepMillis);
+            case CPU:
+                return () -> sink = CpuKernel.run(10, Thread.currentThread().getId());
+            case COUNTER: {
+                Counter counter = new Counter();
+                return () -> {
+                    for (int i = 0; i < 1000; i++) {
+                        counter.increment();
+                    }
+                };
+            }
+            case SYNCHRONIZED_SLEEP: {
+                Counter counter = new Counter();
+                return () -> {
+                    synchronized (counter) {
+                        counter.increment();
+                        sleep(sleepMillis);
+                    }
+                };
+            }
+            case LOCKED_SLEEP: {
+                ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+                for (int i = 0; i < LOCK_STRIPES; i++) {
+                    locks[i] = new ReentrantLock(true);
+                }
+                return () -> {
+                    ReentrantLock lock = locks[(int) (Thread.currentThread().getId() % LOCK_STRIPES)];
+                    lock.lock();
+                    try {
+                        sleep(sleepMillis);
+                    } finally {
+                        lock.unlock();
+                    }
+                };
+            }
+            case WITHDRAW:
+                return () -> new BankAccount().withdraw(50);
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static Workload parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
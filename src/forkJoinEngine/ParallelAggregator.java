@@ -0,0 +1,56 @@
+package forkJoinEngine;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * Front ends for partitioned counting and aggregation on a given `ForkJoinPool`.
+ * 
+ * - `aggregate()` runs a `RangeAggregationTask` directly.
+ * - `aggregateStream()` expresses the same work as a parallel `LongStream`. Streams normally
+ *   run on the common pool; starting the terminal operation from inside `pool` makes them
+ *   use that pool instead, so the number of cores can be controlled in both cases.
+ * - `countIncrements()` is the counter workload of `ThreadCreate`: `total` increments of 1,
+ *   partitioned so that each leaf counts locally and the partial counts are added at join time.
+ */
+public final class ParallelAggregator {
+
+    // Leaves smaller than this spend more time on task overhead than on work
+    public static final long MIN_THRESHOLD = 10_000;
+
+    private ParallelAggregator() {
+    }
+
+    // Splits the range into about 8 leaves per worker, but never into leaves below MIN_THRESHOLD
+    public static long threshold(ForkJoinPool pool, long size) {
+        return Math.max(MIN_THRESHOLD, size / (pool.getParallelism() * 8L));
+    }
+
+    public static long aggregate(ForkJoinPool pool, long from, long to,
+            LongUnaryOperator mapper, long identity, LongBinaryOperator combiner) {
+        return pool.invoke(new RangeAggregationTask(from, to, threshold(pool, to - from), mapper, identity, combiner));
+    }
+
+    public static long aggregateStream(ForkJoinPool pool, long from, long to,
+            LongUnaryOperator mapper, long identity, LongBinaryOperator combiner) {
+        try {
+            return pool.submit(() -> LongStream.range(from, to).parallel().map(mapper).reduce(identity, combiner)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Aggregation failed", e.getCause());
+        }
+    }
+
+    public static long countIncrements(ForkJoinPool pool, long total) {
+        return aggregate(pool, 0, total, i -> 1, 0, Long::sum);
+    }
+
+    public static long countIncrementsStream(ForkJoinPool pool, long total) {
+        return aggregateStream(pool, 0, total, i -> 1, 0, Long::sum);
+    }
+}
@@ -0,0 +1,55 @@
+package forkJoinEngine;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Fork/join task that aggregates `mapper(i)` for every `i` in `[from, to)`.
+ * 
+ * Key Concepts:
+ * - **Split**: while the range is larger than `threshold`, the task splits it in half,
+ *   forks the left half (so an idle worker can steal it) and computes the right half itself.
+ * - **Leaf**: a range of at most `threshold` elements is folded into a local `long`. Nothing
+ *   is shared between leaves, so there is no contention and no synchronization at all.
+ * - **Join**: each task combines its two halves' results with `combiner` when the forked half
+ *   has been joined. The combiner must be associative and `identity` must be its neutral
+ *   element, so the result does not depend on how the range was split.
+ */
+public class RangeAggregationTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+
+    private final long from;
+    private final long to;
+    private final long threshold;
+    private final LongUnaryOperator mapper;
+    private final long identity;
+    private final LongBinaryOperator combiner;
+
+    public RangeAggregationTask(long from, long to, long threshold,
+            LongUnaryOperator mapper, long identity, LongBinaryOperator combiner) {
+        this.from = from;
+        this.to = to;
+        this.threshold = Math.max(1, threshold);
+        this.mapper = mapper;
+        this.identity = identity;
+        this.combiner = combiner;
+    }
+
+    @Override
+    protected Long compute() {
+        if (to - from <= threshold) {
+            long local = identity;  // Thread-local accumulator for this leaf
+            for (long i = from; i < to; i++) {
+                local = combiner.applyAsLong(local, mapper.applyAsLong(i));
+            }
+            return local;
+        }
+        long mid = from + (to - from) / 2;
+        RangeAggregationTask left = new RangeAggregationTask(from, mid, threshold, mapper, identity, combiner);
+        RangeAggregationTask right = new RangeAggregationTask(mid, to, threshold, mapper, identity, combiner);
+        left.fork();                          // Available for stealing
+        long rightResult = right.compute();   // Keep working on the other half ourselves
+        return combiner.applyAsLong(left.join(), rightResult);
+    }
+}
@@ -0,0 +1,86 @@
+package forkJoinEngine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+import synchronizedEx.Counter;
+import synchronizedEx.ThreadCreate;
+
+/**
+ * Measures the speedup of the fork/join engine from 1 to N cores and checks its result
+ * against the synchronized `Counter`.
+ * 
+ * Usage: `java forkJoinEngine.SpeedupReport [increments] [verifyIncrements]`
+ * 
+ * What this code does:
+ * 1. Runs `verifyIncrements` increments (at most `Integer.MAX_VALUE`, since `Counter` holds an
+ *    `int`) through `synchronizedEx.Counter` with one `ThreadCreate` per core, and checks that
+ *    the fork/join and parallel stream front ends produce exactly the same count.
+ * 2. For parallelism 1, 2, 4, ... up to the number of available processors, counts `increments`
+ *    with both front ends and prints the time and the speedup relative to parallelism 1.
+ *    It also runs an aggregation that is not a plain count (sum of `i % 7`) to show that the
+ *    engine is not limited to counting.
+ */
+public class SpeedupReport {
+    public static void main(String[] args) throws InterruptedException {
+        long increments = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000_000L;
+        int verifyIncrements = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        // 1. Correctness against the synchronized counter
+        Counter counter = new Counter();
+        ThreadCreate[] workers = new ThreadCreate[cores];
+        long syncStart = System.nanoTime();
+        for (int i = 0; i < cores; i++) {
+            // Spread the remainder over the first threads so the total is exact
+            int share = verifyIncrements / cores + (i < verifyIncrements % cores ? 1 : 0);
+            workers[i] = new ThreadCreate(counter, share);
+            workers[i].start();
+        }
+        for (ThreadCreate worker : workers) {
+            worker.join();
+        }
+        long syncNanos = System.nanoTime() - syncStart;
+        ForkJoinPool fullPool = new ForkJoinPool(cores);
+        long forkJoinCount = ParallelAggregator.countIncrements(fullPool, verifyIncrements);
+        long streamCount = ParallelAggregator.countIncrementsStream(fullPool, verifyIncrements);
+        fullPool.shutdown();
+        System.out.printf("synchronized Counter: %d in %d ms; fork/join: %d; parallel stream: %d; match: %b%n",
+                counter.getCount(), syncNanos / 1_000_000, forkJoinCount, streamCount,
+                counter.getCount() == forkJoinCount && forkJoinCount == streamCount);
+
+        // 2. Speedup curve
+        System.out.printf("%-11s %14s %8s %14s %8s %14s%n",
+                "parallelism", "fork/join ms", "speedup", "stream ms", "speedup", "sum(i%7) ms");
+        double forkJoinBase = 0;
+        double streamBase = 0;
+        for (int parallelism = 1; ; parallelism = Math.min(cores, parallelism * 2)) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            double forkJoinMs = time(() -> ParallelAggregator.countIncrements(pool, increments), increments);
+            double streamMs = time(() -> ParallelAggregator.countIncrementsStream(pool, increments), increments);
+            double modMs = time(() -> ParallelAggregator.aggregate(pool, 0, increments, i -> i % 7, 0, Long::sum), -1);
+            pool.shutdown();
+            if (parallelism == 1) {
+                forkJoinBase = forkJoinMs;
+                streamBase = streamMs;
+            }
+            System.out.printf("%-11d %14.1f %7.2fx %14.1f %7.2fx %14.1f%n",
+                    parallelism, forkJoinMs, forkJoinBase / forkJoinMs, streamMs, streamBase / streamMs, modMs);
+            if (parallelism == cores) {
+                break;
+            }
+        }
+    }
+
+    // Runs the work once to warm up and once measured; checks the result if expected >= 0
+    private static double time(LongSupplier work, long expected) {
+        work.getAsLong();
+        long start = System.nanoTime();
+        long result = work.getAsLong();
+        double ms = (System.nanoTime() - start) / 1e6;
+        if (expected >= 0 && result != expected) {
+            throw new IllegalStateException("Expected " + expected + " but counted " + result);
+        }
+        return ms;
+    }
+}
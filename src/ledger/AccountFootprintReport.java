@@ -0,0 +1,133 @@
+package ledger;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import locksEx.BankAccount;
+
+/**
+ * Compares the memory and GC cost of one `locksEx.BankAccount` object per account with
+ * `OffHeapLedger`.
+ * 
+ * Usage: `java ledger.AccountFootprintReport [accounts] [churnSeconds]`
+ * 
+ * What this code does:
+ * - Creates `accounts` accounts (default 5 million) in each model and reports the heap they
+ *   retain after a full GC, per account as well, and the direct (off-heap) memory in use.
+ * - Times three explicit full GCs while the accounts are alive. A full GC has to visit every
+ *   live object, so its pause grows with the number of account objects, but not with the
+ *   number of off-heap balances.
+ * - For `churnSeconds` (default 2) reads random balances while allocating short-lived garbage,
+ *   like request handling would, and reports the young collections and their average pause.
+ * 
+ * Run with a heap large enough for the object model, e.g. `-Xmx2g` for 10 million accounts.
+ */
+public class AccountFootprintReport {
+
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        double churnSeconds = args.length > 1 ? Double.parseDouble(args[1]) : 2.0;
+
+        System.out.printf("%,d accounts, max heap %,d MB%n", accounts, Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-10s %10s %9s %10s %13s %13s %10s %14s%n", "model", "heap MB", "B/acct", "direct MB",
+                "full GC ms", "full GC max", "young GCs", "young avg ms");
+
+        // Off-heap first, so its baseline is not disturbed by what the object model leaves behind
+        runOffHeap(accounts, churnSeconds);
+        runObjects(accounts, churnSeconds);
+    }
+
+    private static void runObjects(int accounts, double churnSeconds) {
+        long heapBefore = usedHeapAfterGc();
+        long directBefore = directBytes();
+        BankAccount[] objects = new BankAccount[accounts];
+        for (int i = 0; i < accounts; i++) {
+            objects[i] = new BankAccount();
+        }
+        report("objects", accounts, heapBefore, directBefore, churnSeconds,
+                random -> objects[random.nextInt(accounts)].getBalance());
+    }
+
+    private static void runOffHeap(int accounts, double churnSeconds) {
+        long heapBefore = usedHeapAfterGc();
+        long directBefore = directBytes();
+        OffHeapLedger ledger = new OffHeapLedger(accounts, 100);
+        report("off-heap", accounts, heapBefore, directBefore, churnSeconds,
+                random -> ledger.balance(random.nextInt(accounts)));
+    }
+
+    private interface Reader {
+        long read(ThreadLocalRandom random);
+    }
+
+    private static void report(String model, int accounts, long heapBefore, long directBefore, double churnSeconds,
+            Reader reader) {
+        long heap = usedHeapAfterGc() - heapBefore;
+        long direct = directBytes() - directBefore;
+
+        long fullTotal = 0;
+        long fullMax = 0;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            System.gc();
+            long pause = System.nanoTime() - start;
+            fullTotal += pause;
+            fullMax = Math.max(fullMax, pause);
+        }
+
+        long[] gcBefore = youngCollections();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long end = System.nanoTime() + (long) (churnSeconds * 1e9);
+        long sink = 0;
+        byte[][] recent = new byte[64][];  // Keeps the garbage from being optimized away
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 1000; i++) {
+                sink += reader.read(random);
+                recent[i & 63] = new byte[256];  // Short-lived garbage, as request handling would produce
+            }
+        }
+        sink += recent[0].length;
+        long[] gcAfter = youngCollections();
+        long youngCount = gcAfter[0] - gcBefore[0];
+        long youngMillis = gcAfter[1] - gcBefore[1];
+
+        System.out.printf("%-10s %,10d %9.1f %,10d %13.1f %13.1f %10d %14.2f%s%n", model, heap >> 20,
+                heap / (double) accounts, direct >> 20, fullTotal / 3e6, fullMax / 1e6, youngCount,
+                youngCount == 0 ? 0.0 : youngMillis / (double) youngCount, sink == 42 ? " " : "");
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long directBytes() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    // Count and total milliseconds of the young-generation collector(s)
+    private static long[] youngCollections() {
+        long count = 0;
+        long millis = 0;
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean collector : collectors) {
+            String name = collector.getName();
+            // Serial: "Copy", Parallel: "PS Scavenge", G1: "G1 Young Generation", ZGC/Shenandoah: no split
+            if (name.equals("Copy") || name.contains("Scavenge") || name.contains("Young") || name.contains("New")) {
+                count += collector.getCollectionCount();
+                millis += collector.getCollectionTime();
+            }
+        }
+        return new long[] { count, millis };
+    }
+}
@@ -0,0 +1,26 @@
+package ledger;
+
+/**
+ * A fixed-size set of account balances that many threads can update concurrently.
+ * 
+ * Key Concepts:
+ * - Accounts are identified by an index from 0 to `size() - 1`.
+ * - `withdraw()` must never leave a balance below zero, no matter how many threads
+ *   withdraw from the same account at the same time (no overdraft).
+ * - Implementations only do the balance mutation. Validation and any slow processing
+ *   belong in `LedgerEngine`, outside of the commit step.
+ */
+public interface AccountLedger {
+
+    // Number of accounts in the ledger
+    int size();
+
+    // Current balance of the account
+    long balance(int account);
+
+    // Adds a positive amount to the account
+    void deposit(int account, long amount);
+
+    // Deducts the amount if the balance covers it, otherwise leaves the balance unchanged
+    WithdrawalResult withdraw(int account, long amount);
+}
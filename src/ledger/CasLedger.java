@@ -0,0 +1,55 @@
+package ledger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free ledger that commits withdrawals with a compare-and-set retry loop.
+ * 
+ * Key Concepts:
+ * - All balances live in one `AtomicLongArray`, so there is no lock object per account.
+ * - A withdrawal reads the balance, checks it covers the amount and then tries to swap in
+ *   the new balance with `compareAndSet`. If another thread changed the balance in between,
+ *   the CAS fails and the loop re-reads and re-checks, so overdraft is impossible.
+ * - Threads working on different accounts never wait for each other, so throughput grows
+ *   with the number of cores as long as the accounts are spread out.
+ */
+public class CasLedger implements AccountLedger {
+    private final AtomicLongArray balances;
+
+    public CasLedger(int accounts, long initialBalance) {
+        balances = new AtomicLongArray(accounts);
+        for (int i = 0; i < accounts; i++) {
+            balances.set(i, initialBalance);
+        }
+    }
+
+    @Override
+    public int size() {
+        return balances.length();
+    }
+
+    @Override
+    public long balance(int account) {
+        return balances.get(account);
+    }
+
+    @Override
+    public void deposit(int account, long amount) {
+        balances.addAndGet(account, amount);
+    }
+
+    @Override
+    public WithdrawalResult withdraw(int account, long amount) {
+        while (true) {
+            long current = balances.get(account);
+            if (current < amount) {
+                return WithdrawalResult.INSUFFICIENT_BALANCE;
+            }
+            // Only succeeds if nobody changed the balance since we read it
+            if (balances.compareAndSet(account, current, current - amount)) {
+                return WithdrawalResult.SUCCESS;
+            }
+            Thread.onSpinWait();  // Lost the race; back off briefly and retry
+        }
+    }
+}
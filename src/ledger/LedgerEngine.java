@@ -0,0 +1,52 @@
+package ledger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs withdrawals against an `AccountLedger` in three separate steps.
+ * 
+ * Steps:
+ * 1. **Validation**: the account id and amount are checked. Invalid requests are rejected
+ *    before any shared state is touched.
+ * 2. **Processing**: the slow part of a withdrawal (in `locksEx.BankAccount` this is the
+ *    3 second `Thread.sleep`). It runs without holding any lock, so other withdrawals on
+ *    the same account are not blocked while it runs.
+ * 3. **Commit**: the balance is changed atomically by the ledger. If the balance no longer
+ *    covers the amount at this point, the withdrawal fails with `INSUFFICIENT_BALANCE`.
+ * 
+ * Because the balance check is repeated inside the atomic commit, two withdrawals that
+ * were both processed successfully can never overdraw the account together.
+ */
+public class LedgerEngine {
+    private final AccountLedger ledger;
+    private final long processingNanos;
+
+    public LedgerEngine(AccountLedger ledger) {
+        this(ledger, 0, TimeUnit.NANOSECONDS);
+    }
+
+    // processingTime simulates the work done before the balance is committed
+    public LedgerEngine(AccountLedger ledger, long processingTime, TimeUnit unit) {
+        this.ledger = ledger;
+        this.processingNanos = unit.toNanos(processingTime);
+    }
+
+    public AccountLedger ledger() {
+        return ledger;
+    }
+
+    public WithdrawalResult withdraw(int account, long amount) throws InterruptedException {
+        // Step 1: validation, no shared state involved
+        if (account < 0 || account >= ledger.size() || amount <= 0) {
+            return WithdrawalResult.INVALID_REQUEST;
+        }
+
+        // Step 2: processing, outside of any lock
+        if (processingNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(processingNanos);
+        }
+
+        // Step 3: atomic commit, re-checks the balance
+        return ledger.withdraw(account, amount);
+    }
+}
@@ -0,0 +1,90 @@
+package ledger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives many concurrent withdrawals against a large set of accounts and checks that
+ * no account is ever overdrawn.
+ * 
+ * Usage: `java ledger.LedgerExample [cas|stamped|snapshot|offheap] [threads] [accounts] [withdrawalsPerThread]`
+ * 
+ * What this code does:
+ * - Creates a ledger where every account starts with a balance of 100, like `locksEx.BankAccount`.
+ * - Starts the given number of threads. Each one withdraws random amounts from random accounts.
+ * - At the end it checks that every balance is still >= 0 and that the money withdrawn plus
+ *   the money left equals the money we started with. It also prints the throughput.
+ */
+public class LedgerExample {
+    private static final long INITIAL_BALANCE = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        String kind = args.length > 0 ? args[0] : "cas";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int withdrawals = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+        AccountLedger ledger;
+        if ("stamped".equalsIgnoreCase(kind)) {
+            ledger = new StampedLedger(accounts, INITIAL_BALANCE);
+        } else if ("snapshot".equalsIgnoreCase(kind)) {
+            ledger = new SnapshotLedger(accounts, INITIAL_BALANCE);
+        } else if ("offheap".equalsIgnoreCase(kind)) {
+            ledger = new OffHeapLedger(accounts, INITIAL_BALANCE);
+        } else {
+            ledger = new CasLedger(accounts, INITIAL_BALANCE);
+        }
+        LedgerEngine engine = new LedgerEngine(ledger);
+
+        AtomicLong withdrawn = new AtomicLong();
+        AtomicLong succeeded = new AtomicLong();
+        Runnable task = () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long localWithdrawn = 0;
+            long localSucceeded = 0;
+            try {
+                for (int i = 0; i < withdrawals; i++) {
+                    int amount = 1 + random.nextInt(50);
+                    if (engine.withdraw(random.nextInt(accounts), amount) == WithdrawalResult.SUCCESS) {
+                        localWithdrawn += amount;
+                        localSucceeded++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            withdrawn.addAndGet(localWithdrawn);
+            succeeded.addAndGet(localSucceeded);
+        };
+
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(task, "Withdrawer-" + i);
+        }
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // Verify that no account went negative and that no money was created or lost
+        long remaining = 0;
+        int overdrawn = 0;
+        for (int i = 0; i < accounts; i++) {
+            long balance = ledger.balance(i);
+            if (balance < 0) {
+                overdrawn++;
+            }
+            remaining += balance;
+        }
+        long total = (long) threads * withdrawals;
+        System.out.println(ledger.getClass().getSimpleName() + ": " + total + " withdrawals ("
+                + succeeded.get() + " succeeded) in " + elapsedNanos / 1_000_000 + " ms, "
+                + (total * 1_000_000_000L / Math.max(1, elapsedNanos)) + " ops/s");
+        System.out.println("Overdrawn accounts: " + overdrawn + ", money conserved: "
+                + (remaining + withdrawn.get() == INITIAL_BALANCE * accounts));
+    }
+}
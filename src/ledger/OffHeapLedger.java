@@ -0,0 +1,135 @@
+package ledger;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ledger for tens of millions of accounts that keeps every balance outside the Java heap.
+ * 
+ * Key Concepts:
+ * - Balances are 8-byte slots in direct `ByteBuffer`s, indexed by account id. A direct buffer
+ *   is a single small object on the heap, so the garbage collector never visits the balances,
+ *   however many there are. One `locksEx.BankAccount` per account costs the account object,
+ *   a `ReentrantLock` and its sync object on the heap instead.
+ * - A single buffer is limited to 2 GB, so the balances are split into chunks of
+ *   `CHUNK_ACCOUNTS` accounts.
+ * - Slots are read and updated with a `VarHandle` view of the buffers, which provides the
+ *   same volatile reads and compare-and-set as `CasLedger`'s `AtomicLongArray`.
+ * - `withdraw()` is the lock-free CAS loop of `CasLedger`. `tryWithdraw()` follows
+ *   `BankAccount.tryWithdraw()` instead: it takes the account's lock with `tryLock()`, returns
+ *   `REJECTED` if it is busy, and holds it during the processing delay. The locks are striped:
+ *   `stripes` locks are shared by all accounts, so a busy stripe also rejects other accounts
+ *   that map to it. Use many more stripes than concurrent withdrawers.
+ */
+public class OffHeapLedger implements AccountLedger {
+
+    static final int CHUNK_BITS = 24;
+    static final int CHUNK_ACCOUNTS = 1 << CHUNK_BITS;  // 128 MB of balances per buffer
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] chunks;
+    private final int size;
+    private final ReentrantLock[] stripes;
+    private final int stripeMask;
+    private final long processingNanos;
+
+    public OffHeapLedger(int accounts, long initialBalance) {
+        this(accounts, initialBalance, 4096, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param minStripes     Number of locks for `tryWithdraw()`, rounded up to a power of two.
+     * @param processingTime Time `tryWithdraw()` spends processing while it holds the lock.
+     */
+    public OffHeapLedger(int accounts, long initialBalance, int minStripes, long processingTime, TimeUnit unit) {
+        size = accounts;
+        chunks = new ByteBuffer[(accounts + CHUNK_ACCOUNTS - 1) >>> CHUNK_BITS];
+        for (int c = 0; c < chunks.length; c++) {
+            int chunkAccounts = Math.min(CHUNK_ACCOUNTS, accounts - (c << CHUNK_BITS));
+            chunks[c] = ByteBuffer.allocateDirect(chunkAccounts * Long.BYTES).order(ByteOrder.nativeOrder());
+            for (int i = 0; i < chunkAccounts; i++) {
+                chunks[c].putLong(i * Long.BYTES, initialBalance);
+            }
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(1, minStripes - 1)) << 1;  // Power of two
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        stripeMask = stripeCount - 1;
+        processingNanos = unit.toNanos(processingTime);
+    }
+
+    private ByteBuffer chunk(int account) {
+        return chunks[account >>> CHUNK_BITS];
+    }
+
+    private static int offset(int account) {
+        return (account & (CHUNK_ACCOUNTS - 1)) * Long.BYTES;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long balance(int account) {
+        return (long) LONGS.getVolatile(chunk(account), offset(account));
+    }
+
+    @Override
+    public void deposit(int account, long amount) {
+        LONGS.getAndAdd(chunk(account), offset(account), amount);
+    }
+
+    @Override
+    public WithdrawalResult withdraw(int account, long amount) {
+        ByteBuffer chunk = chunk(account);
+        int offset = offset(account);
+        while (true) {
+            long current = (long) LONGS.getVolatile(chunk, offset);
+            if (current < amount) {
+                return WithdrawalResult.INSUFFICIENT_BALANCE;
+            }
+            // Only succeeds if nobody changed the balance since we read it
+            if (LONGS.compareAndSet(chunk, offset, current, current - amount)) {
+                return WithdrawalResult.SUCCESS;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Withdraws with the semantics of `BankAccount.tryWithdraw()`: `REJECTED` if the account's
+     * lock is busy, otherwise check, process and deduct while holding it.
+     */
+    public WithdrawalResult tryWithdraw(int account, long amount) throws InterruptedException {
+        ReentrantLock lock = stripes[account & stripeMask];
+        if (!lock.tryLock()) {
+            return WithdrawalResult.REJECTED;
+        }
+        try {
+            if (balance(account) < amount) {
+                return WithdrawalResult.INSUFFICIENT_BALANCE;
+            }
+            if (processingNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(processingNanos);
+            }
+            // Deposits do not take the lock, so deduct with the CAS loop rather than a plain write
+            return withdraw(account, amount);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bytes of direct memory holding the balances
+    public long offHeapBytes() {
+        return (long) size * Long.BYTES;
+    }
+}
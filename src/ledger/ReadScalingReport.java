@@ -0,0 +1,138 @@
+package ledger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+import threadSafeCollection.SnapshotScoreStore;
+
+/**
+ * Shows how lock-free snapshot reads scale with reader threads under a read-mostly mix.
+ * 
+ * Usage: `java ledger.ReadScalingReport [secondsPerRun] [maxReaders] [accounts] [writePercent]`
+ * 
+ * What this code does:
+ * - Creates a `SnapshotLedger` and a `SnapshotScoreStore` with one user per account.
+ * - For 1, 2, 4, ... up to `maxReaders` reader threads (default: the number of cores), runs the
+ *   readers together with one writer for `secondsPerRun` seconds. The writer sleeps between
+ *   writes so that writes are about `writePercent` (default 5) of all operations.
+ * - Readers mostly read single balances and scores. Every 64th read takes a full snapshot and
+ *   checks its total: the writer only transfers money and moves score points between users, so
+ *   every consistent snapshot must add up to the starting total.
+ * - Prints total and per-reader read throughput, the torn-read retry rate, and the number of
+ *   snapshots that did not add up, which must be 0.
+ * 
+ * Read throughput should grow about linearly with readers until they run out of cores.
+ */
+public class ReadScalingReport {
+    private static final long INITIAL_BALANCE = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        int maxReaders = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int accounts = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        double writePercent = args.length > 3 ? Double.parseDouble(args[3]) : 5.0;
+
+        System.out.printf("%-8s %14s %14s %10s %10s %10s%n",
+                "readers", "reads/s", "reads/s/thr", "writes/s", "retry %", "torn");
+        for (int readers = 1; ; readers = Math.min(maxReaders, readers * 2)) {
+            run(readers, accounts, writePercent, (long) (seconds * 1_000_000_000L));
+            if (readers == maxReaders) {
+                break;
+            }
+        }
+    }
+
+    private static void run(int readers, int accounts, double writePercent, long durationNanos)
+            throws InterruptedException {
+        SnapshotLedger ledger = new SnapshotLedger(accounts, INITIAL_BALANCE);
+        SnapshotScoreStore scores = new SnapshotScoreStore();
+        String[] users = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            users[i] = "User" + (i + 1);
+            scores.putScore(users[i], INITIAL_BALANCE);
+        }
+        long expectedTotal = INITIAL_BALANCE * accounts;
+        ledger.resetStats();
+        scores.resetStats();
+
+        CountDownLatch start = new CountDownLatch(1);
+        long[] reads = new long[readers];
+        long[] torn = new long[readers];
+        Thread[] workers = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            int index = r;
+            workers[r] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long end = System.nanoTime() + durationNanos;
+                long count = 0;
+                long bad = 0;
+                long sink = 0;
+                while (System.nanoTime() < end) {
+                    for (int i = 0; i < 64; i++) {
+                        int account = random.nextInt(accounts);
+                        sink += ledger.balance(account) + scores.getScore(users[account], 0);
+                    }
+                    if (ledger.total() != expectedTotal) {
+                        bad++;
+                    }
+                    if (scores.total() != expectedTotal) {
+                        bad++;
+                    }
+                    count += 130;
+                }
+                reads[index] = count + (sink == 42 ? 1 : 0);  // Keeps the reads from being optimized away
+                torn[index] = bad;
+            }, "Reader-" + r);
+            workers[r].start();
+        }
+
+        // Each transfer is two writes (ledger and scores); the writer yields until writes are writePercent of all operations
+        long[] writes = new long[1];
+        Thread writer = new Thread(() -> {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long end = System.nanoTime() + durationNanos;
+            long count = 0;
+            while (System.nanoTime() < end) {
+                int from = random.nextInt(accounts);
+                int to = random.nextInt(accounts);
+                ledger.transfer(from, to, 1);
+                scores.moveScore(users[from], users[to], 1);
+                count++;
+
+                long readsSoFar = ledger.reads() + scores.reads();
+                while (count * 200 > (readsSoFar + count * 2) * writePercent && System.nanoTime() < end) {
+                    Thread.yield();
+                    readsSoFar = ledger.reads() + scores.reads();
+                }
+            }
+            writes[0] = count;
+        }, "Writer");
+        writer.start();
+
+        start.countDown();
+        writer.join();
+        long totalReads = 0;
+        long totalTorn = 0;
+        for (int r = 0; r < readers; r++) {
+            workers[r].join();
+            totalReads += reads[r];
+            totalTorn += torn[r];
+        }
+        double elapsed = durationNanos / 1e9;
+        long seqReads = ledger.reads() + scores.reads();
+        long retries = ledger.readRetries() + scores.readRetries();
+        System.out.printf("%-8d %,14.0f %,14.0f %,10.0f %9.3f%% %10d%n",
+                readers, totalReads / elapsed, totalReads / elapsed / readers, writes[0] / elapsed,
+                seqReads == 0 ? 0.0 : 100.0 * retries / seqReads, totalTorn);
+    }
+}
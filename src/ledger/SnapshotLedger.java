@@ -0,0 +1,126 @@
+package ledger;
+
+import java.util.Arrays;
+
+import locksEx.SeqLock;
+
+/**
+ * Ledger for read-mostly traffic: writers take one lock, readers take none.
+ * 
+ * Key Concepts:
+ * - All balances are protected by a single `locksEx.SeqLock`. Deposits, withdrawals and
+ *   transfers take its write lock, so they run one at a time.
+ * - `balance()` reads a single account and `snapshot()` copies every account without
+ *   locking. A snapshot is consistent: it shows the ledger between two writes, so the
+ *   total of a snapshot never counts a transfer's debit without its credit.
+ * - If a write overlaps a read, the read is repeated. `readRetries()` tells how often that
+ *   happened; with 95% reads it should stay a small fraction of `reads()`.
+ * 
+ * Use `CasLedger` or `StampedLedger` instead when writes are frequent: there, writes to
+ * different accounts do not wait for each other.
+ */
+public class SnapshotLedger implements AccountLedger {
+    private final long[] balances;
+    private final SeqLock seqLock = new SeqLock();
+
+    public SnapshotLedger(int accounts, long initialBalance) {
+        balances = new long[accounts];
+        Arrays.fill(balances, initialBalance);
+    }
+
+    @Override
+    public int size() {
+        return balances.length;
+    }
+
+    @Override
+    public long balance(int account) {
+        while (true) {
+            long stamp = seqLock.beginRead();
+            long value = balances[account];
+            if (seqLock.endRead(stamp)) {
+                return value;
+            }
+        }
+    }
+
+    // Copies all balances as of one point in time into the array, which must have size() slots
+    public long[] snapshot(long[] into) {
+        while (true) {
+            long stamp = seqLock.beginRead();
+            System.arraycopy(balances, 0, into, 0, balances.length);
+            if (seqLock.endRead(stamp)) {
+                return into;
+            }
+        }
+    }
+
+    // Sum of all balances as of one point in time
+    public long total() {
+        while (true) {
+            long stamp = seqLock.beginRead();
+            long sum = 0;
+            for (long balance : balances) {
+                sum += balance;
+            }
+            if (seqLock.endRead(stamp)) {
+                return sum;
+            }
+        }
+    }
+
+    @Override
+    public void deposit(int account, long amount) {
+        seqLock.lockWrite();
+        try {
+            balances[account] += amount;
+        } finally {
+            seqLock.unlockWrite();
+        }
+    }
+
+    @Override
+    public WithdrawalResult withdraw(int account, long amount) {
+        // Reject without locking when a consistent read already shows too little money
+        if (balance(account) < amount) {
+            return WithdrawalResult.INSUFFICIENT_BALANCE;
+        }
+        seqLock.lockWrite();
+        try {
+            if (balances[account] < amount) {
+                return WithdrawalResult.INSUFFICIENT_BALANCE;
+            }
+            balances[account] -= amount;
+            return WithdrawalResult.SUCCESS;
+        } finally {
+            seqLock.unlockWrite();
+        }
+    }
+
+    // Moves the amount between two accounts in one write, so no reader sees only half of it
+    public WithdrawalResult transfer(int from, int to, long amount) {
+        seqLock.lockWrite();
+        try {
+            if (balances[from] < amount) {
+                return WithdrawalResult.INSUFFICIENT_BALANCE;
+            }
+            balances[from] -= amount;
+            balances[to] += amount;
+            return WithdrawalResult.SUCCESS;
+        } finally {
+            seqLock.unlockWrite();
+        }
+    }
+
+    public long reads() {
+        return seqLock.reads();
+    }
+
+    public long readRetries() {
+        return seqLock.retries();
+    }
+
+    public void resetStats() {
+        seqLock.resetStats();
+    }
+}
@@ -0,0 +1,100 @@
+package ledger;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Ledger that checks balances with a `StampedLock` optimistic read and only takes the
+ * write lock to commit.
+ * 
+ * Key Concepts:
+ * - Accounts are grouped into stripes, and each stripe has one `StampedLock`. This
+ *   avoids allocating a lock per account while keeping contention low.
+ * - A withdrawal first reads the balance optimistically, which does not block anyone.
+ *   If the balance is too low, it is rejected without ever taking a lock.
+ * - Otherwise the optimistic stamp is converted to a write lock. If the conversion
+ *   fails (someone wrote in the meantime), the thread takes the write lock normally and
+ *   re-checks the balance before deducting, so overdraft is impossible.
+ */
+public class StampedLedger implements AccountLedger {
+    private final long[] balances;
+    private final StampedLock[] locks;
+    private final int stripeMask;
+
+    public StampedLedger(int accounts, long initialBalance) {
+        this(accounts, initialBalance, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public StampedLedger(int accounts, long initialBalance, int minStripes) {
+        balances = new long[accounts];
+        Arrays.fill(balances, initialBalance);
+        int stripes = Integer.highestOneBit(Math.max(1, minStripes - 1)) << 1;  // Power of two
+        locks = new StampedLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new StampedLock();
+        }
+        stripeMask = stripes - 1;
+    }
+
+    private StampedLock lockFor(int account) {
+        return locks[account & stripeMask];
+    }
+
+    @Override
+    public int size() {
+        return balances.length;
+    }
+
+    @Override
+    public long balance(int account) {
+        StampedLock lock = lockFor(account);
+        long stamp = lock.tryOptimisticRead();
+        long value = balances[account];
+        if (!lock.validate(stamp)) {
+            // A writer got in between; read again under the read lock
+            stamp = lock.readLock();
+            try {
+                value = balances[account];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void deposit(int account, long amount) {
+        StampedLock lock = lockFor(account);
+        long stamp = lock.writeLock();
+        try {
+            balances[account] += amount;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public WithdrawalResult withdraw(int account, long amount) {
+        StampedLock lock = lockFor(account);
+        long stamp = lock.tryOptimisticRead();
+        long current = balances[account];
+        if (lock.validate(stamp) && current < amount) {
+            return WithdrawalResult.INSUFFICIENT_BALANCE;  // Rejected without locking
+        }
+
+        long writeStamp = lock.tryConvertToWriteLock(stamp);
+        if (writeStamp == 0L) {
+            writeStamp = lock.writeLock();
+        }
+        try {
+            // Always re-check under the write lock; the optimistic value may be stale
+            if (balances[account] < amount) {
+                return WithdrawalResult.INSUFFICIENT_BALANCE;
+            }
+            balances[account] -= amount;
+            return WithdrawalResult.SUCCESS;
+        } finally {
+            lock.unlockWrite(writeStamp);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ledger;
+
+/**
+ * Outcome of a withdrawal against an `AccountLedger`.
+ */
+public enum WithdrawalResult {
+    SUCCESS,               // The amount was deducted
+    INSUFFICIENT_BALANCE,  // The balance was lower than the amount; nothing changed
+    INVALID_REQUEST,       // Unknown account or non-positive amount; nothing changed
+    REJECTED               // Turned away by admission control before reaching the ledger; nothing changed
+}
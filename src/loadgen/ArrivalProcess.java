@@ -0,0 +1,33 @@
+package loadgen;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * How the intended start times of an open-loop run are spaced.
+ * 
+ * - `CONSTANT`: exactly `1 / rate` apart, like a metronome.
+ * - `POISSON`: exponentially distributed gaps with mean `1 / rate`, the arrival pattern of many
+ *   independent users. Requests sometimes arrive in clumps, so queues build up at lower rates
+ *   than with `CONSTANT`.
+ */
+public enum ArrivalProcess {
+    CONSTANT,
+    POISSON;
+
+    // Time from one intended start to the next, for the given mean interval
+    public double nextGapNanos(double meanGapNanos, SplittableRandom random) {
+        switch (this) {
+            case CONSTANT:
+                return meanGapNanos;
+            case POISSON:
+                return -Math.log(1.0 - random.nextDouble()) * meanGapNanos;  // 1 - x avoids log(0)
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    public static ArrivalProcess parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,103 @@
+package loadgen;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives one of the demo operations at a fixed rate, or sweeps the rate to find where it saturates.
+ * 
+ * Usage: `java loadgen.LoadReport <target> [rate|sweep] [seconds] [constant|poisson] [workers] [sloMillis]`
+ * 
+ * Examples:
+ * - `java loadgen.LoadReport withdraw:20 sweep`
+ * - `java loadgen.LoadReport increment:striped 200000 5 poisson`
+ * - `java loadgen.LoadReport updatescore:boxed sweep 2 poisson 8 5`
+ * 
+ * What this code does:
+ * - `target` is one of the `LoadTarget`s (`withdraw`, `increment`, `updatescore`, with an optional
+ *   `:variant`). It is driven by an `OpenLoopGenerator` with `workers` threads (default: twice the
+ *   number of cores, at least 4) and `POISSON` arrivals unless `constant` is given.
+ * - With a rate, runs `seconds` (default 2) at that many operations per second and prints the
+ *   latency percentiles, measured from the intended start, next to the service time that a
+ *   closed-loop benchmark would have reported.
+ * - With `sweep`, starts at 1,000 per second and doubles the rate until the target saturates:
+ *   it completes less than 95% of the offered rate, leaves operations unstarted, or its p99
+ *   latency exceeds `sloMillis` (default 10). Then it tries three rates between the last good
+ *   one and the first bad one. The knee is the highest rate that still met all three conditions.
+ * 
+ * Every run starts with a short warm-up at the first rate, so the JIT has compiled the target.
+ * The generator itself manages a few million operations per second; a target that is faster
+ * than that (like `increment`) shows the generator's limit as its knee.
+ */
+public class LoadReport {
+    private static final double START_RATE = 1000;
+    private static final double MAX_RATE = 50_000_000;
+    private static final double MIN_COMPLETION = 0.95;
+    private static final int REFINE_STEPS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: java loadgen.LoadReport <target> [rate|sweep] [seconds] [constant|poisson] [workers] [sloMillis]");
+            System.exit(2);
+        }
+        String target = args[0];
+        String rate = args.length > 1 ? args[1] : "sweep";
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        ArrivalProcess arrivals = args.length > 3 ? ArrivalProcess.parse(args[3]) : ArrivalProcess.POISSON;
+        int workers = args.length > 4 ? Integer.parseInt(args[4]) : Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+        double sloMillis = args.length > 5 ? Double.parseDouble(args[5]) : 10;
+
+        OpenLoopGenerator generator = new OpenLoopGenerator(LoadTarget.parseAndCreate(target), arrivals, workers);
+        long millis = (long) (seconds * 1000);
+        System.out.printf("%s, %s arrivals, %d workers, %.1f s per rate, p99 objective %.1f ms%n",
+                target, arrivals, workers, seconds, sloMillis);
+
+        generator.run(START_RATE, Math.min(millis, 1000), TimeUnit.MILLISECONDS, 0);  // Warm-up
+        printHeader();
+        if (!"sweep".equalsIgnoreCase(rate)) {
+            print(generator.run(Double.parseDouble(rate), millis, TimeUnit.MILLISECONDS, 1), sloMillis);
+            return;
+        }
+
+        double good = 0;
+        double bad = 0;
+        long seed = 1;
+        for (double r = START_RATE; r <= MAX_RATE; r *= 2) {
+            if (print(generator.run(r, millis, TimeUnit.MILLISECONDS, seed++), sloMillis)) {
+                good = r;
+            } else {
+                bad = r;
+                break;
+            }
+        }
+        if (bad == 0) {
+            System.out.printf("Did not saturate up to %,.0f/s%n", good);
+            return;
+        }
+        // Narrow the knee down between the last rate that kept up and the first one that did not
+        double step = (bad - good) / (REFINE_STEPS + 1);
+        for (int i = 1; i <= REFINE_STEPS; i++) {
+            double r = good + step;
+            if (!print(generator.run(r, millis, TimeUnit.MILLISECONDS, seed++), sloMillis)) {
+                break;
+            }
+            good = r;
+        }
+        System.out.printf("Knee: about %,.0f operations per second%n", good);
+    }
+
+    private static void printHeader() {
+        System.out.printf("%12s %12s %9s %9s %9s %9s %11s %10s %s%n", "target/s", "achieved/s", "p50 us",
+                "p99 us", "p99.9 us", "max us", "svc p99 us", "unfinished", "");
+    }
+
+    // Prints one row and returns whether the target kept up at this rate
+    private static boolean print(OpenLoopGenerator.Result result, double sloMillis) {
+        boolean keptUp = result.achievedRate() >= MIN_COMPLETION * result.targetRate() && result.unfinished() == 0
+                && result.latency().percentile(99) <= sloMillis * 1e6;
+        System.out.printf("%,12.0f %,12.0f %9.1f %9.1f %9.1f %9.1f %11.1f %10d %s%n", result.targetRate(),
+                result.achievedRate(), result.latency().percentile(50) / 1e3, result.latency().percentile(99) / 1e3,
+                result.latency().percentile(99.9) / 1e3, result.latency().max() / 1e3,
+                result.serviceTime().percentile(99) / 1e3, result.unfinished(), keptUp ? "ok" : "saturated");
+        return keptUp;
+    }
+}
@@ -0,0 +1,105 @@
+package loadgen;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import counterEngine.CounterStrategy;
+import counterEngine.CounterType;
+import synchronizedEx.Counter;
+import threadSafeCollection.ScoreStore;
+import threadSafeCollection.ScoreStoreType;
+
+/**
+ * The operations the load generator can drive, taken from the demos.
+ * 
+ * Targets are written `name[:variant]` on the command line:
+ * - `withdraw[:micros]`: the critical section of `locksEx.BankAccount.withdraw`. It takes one
+ *   fair `ReentrantLock`, checks the balance, does `micros` (default 20) of busy work in place
+ *   of the 3 second sleep, and deducts 1. The account is refilled when it runs dry. Every call
+ *   serializes on the one lock, so the target saturates at about `1 / micros` calls per second.
+ * - `increment[:counterType]`: `increment()` on a shared `synchronizedEx.Counter`, or on one of
+ *   the `counterEngine.CounterType` strategies (`monitor`, `atomic`, `striped`, `batched`).
+ * - `updatescore[:storeType]`: `addScore` of a random user out of 1000, like `updateScore` in
+ *   `ThreadSafeMapExample`, on a `ScoreStoreType` store (`atomic` by default).
+ */
+public enum LoadTarget {
+    WITHDRAW,
+    INCREMENT,
+    UPDATESCORE;
+
+    private static final long DEFAULT_WITHDRAW_MICROS = 20;
+    private static final int SCORE_USERS = 1000;
+    private static final long INITIAL_BALANCE = 1_000_000;
+
+    // One call of the target; the random generator belongs to the calling worker
+    public interface Operation {
+        void call(SplittableRandom random);
+    }
+
+    /**
+     * Creates the shared state of the target and returns the operation that uses it.
+     * 
+     * @param variant the part after the colon, or null
+     */
+    public Operation create(String variant) {
+        switch (this) {
+            case WITHDRAW:
+                return new Account(variant == null ? DEFAULT_WITHDRAW_MICROS : Long.parseLong(variant))::withdraw;
+            case INCREMENT: {
+                CounterStrategy counter = variant == null ? new Counter() : CounterType.parse(variant).create();
+                return random -> counter.increment();
+            }
+            case UPDATESCORE: {
+                ScoreStore store = (variant == null ? ScoreStoreType.ATOMIC : ScoreStoreType.parse(variant)).create();
+                String[] users = new String[SCORE_USERS];
+                for (int i = 0; i < SCORE_USERS; i++) {
+                    users[i] = "User" + (i + 1);
+                    store.putScore(users[i], 0);
+                }
+                return random -> store.addScore(users[random.nextInt(SCORE_USERS)], 1 + random.nextInt(10));
+            }
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    // Parses `name[:variant]` and creates the operation
+    public static Operation parseAndCreate(String spec) {
+        int colon = spec.indexOf(':');
+        String name = colon < 0 ? spec : spec.substring(0, colon);
+        return parse(name).create(colon < 0 ? null : spec.substring(colon + 1));
+    }
+
+    public static LoadTarget parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace("_", ""));
+    }
+
+    // The BankAccount.withdraw critical section, with a busy wait instead of the 3 second sleep
+    private static final class Account {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final long serviceNanos;
+        private long balance = INITIAL_BALANCE;
+
+        Account(long serviceMicros) {
+            this.serviceNanos = TimeUnit.MICROSECONDS.toNanos(serviceMicros);
+        }
+
+        void withdraw(SplittableRandom random) {
+            lock.lock();
+            try {
+                if (balance < 1) {
+                    balance = INITIAL_BALANCE;  // Refill, so a long run never turns into "not enough balance"
+                }
+                long until = System.nanoTime() + serviceNanos;
+                while (System.nanoTime() - until < 0) {
+                    Thread.onSpinWait();  // Processing time, on the CPU rather than asleep
+                }
+                balance -= 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
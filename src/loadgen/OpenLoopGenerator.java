@@ -0,0 +1,177 @@
+package loadgen;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import metrics.LogHistogram;
+
+/**
+ * Issues operations at a target arrival rate, whether or not earlier ones have finished, and
+ * measures their latency without coordinated omission.
+ * 
+ * Key Concepts:
+ * - **Open loop**: the start times come from a schedule (`ArrivalProcess` at `rate` per second)
+ *   that is fixed in advance. A closed-loop benchmark only sends the next request when the
+ *   previous one has returned, so when the system stalls, it also stops sending, and the
+ *   requests that should have been sent during the stall are never measured. That is
+ *   coordinated omission; it hides exactly the latencies that users would have seen.
+ * - **Latency from the intended start**: each operation's latency is measured from the time
+ *   the schedule says it should have started, not from when a worker actually got to it. If
+ *   the target falls behind, the time an operation spent waiting for its turn is counted, as a
+ *   user would count it. `serviceTime()` measures from the actual start, which is the
+ *   uncorrected number, for comparison.
+ * - **Shared schedule**: workers claim the next intended start time from one schedule, wait
+ *   until it comes (parking, then yielding for the last `SPIN_NANOS`), and run the operation.
+ *   `workers` bounds how many operations can be in progress at once, like the connections of a
+ *   load-testing client.
+ * - When the target cannot keep up, the backlog is worked off for at most the length of the
+ *   run itself. Operations still not started by then are counted as `unfinished` and recorded
+ *   with the time they had waited so far, so a hopeless overload is not reported as fast.
+ */
+public class OpenLoopGenerator {
+
+    // Below this much waiting time, workers yield instead of parking, which is not precise enough
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final LoadTarget.Operation operation;
+    private final ArrivalProcess arrivals;
+    private final int workers;
+
+    public OpenLoopGenerator(LoadTarget.Operation operation, ArrivalProcess arrivals, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1");
+        }
+        this.operation = operation;
+        this.arrivals = arrivals;
+        this.workers = workers;
+    }
+
+    // The outcome of one run at one rate
+    public static final class Result {
+        private final double targetRate;
+        private final long completed;
+        private final long unfinished;
+        private final long elapsedNanos;
+        private final LogHistogram latency;
+        private final LogHistogram serviceTime;
+
+        Result(double targetRate, long completed, long unfinished, long elapsedNanos, LogHistogram latency,
+                LogHistogram serviceTime) {
+            this.targetRate = targetRate;
+            this.completed = completed;
+            this.unfinished = unfinished;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+            this.serviceTime = serviceTime;
+        }
+
+        public double targetRate() {
+            return targetRate;
+        }
+
+        // Operations completed per second, from the first intended start to the last completion
+        public double achievedRate() {
+            return completed / (elapsedNanos / 1e9);
+        }
+
+        public long completed() {
+            return completed;
+        }
+
+        // Operations whose start time had come but that were never started
+        public long unfinished() {
+            return unfinished;
+        }
+
+        // Intended start to completion, in nanoseconds (corrected for coordinated omission)
+        public LogHistogram latency() {
+            return latency;
+        }
+
+        // Actual start to completion, in nanoseconds (what a closed-loop benchmark would report)
+        public LogHistogram serviceTime() {
+            return serviceTime;
+        }
+    }
+
+    // The intended start times; shared by all workers, so the arrival pattern does not depend on them
+    private final class Schedule {
+        private final double meanGapNanos;
+        private final SplittableRandom random;
+        private double next;
+
+        Schedule(double rate, long start, long seed) {
+            this.meanGapNanos = 1e9 / rate;
+            this.random = new SplittableRandom(seed);
+            this.next = start;
+        }
+
+        synchronized long claim() {
+            long intended = (long) next;
+            next += arrivals.nextGapNanos(meanGapNanos, random);
+            return intended;
+        }
+    }
+
+    /**
+     * Runs the operation at `rate` per second for the given time and waits until the backlog is
+     * worked off (or abandoned, see the class comment).
+     */
+    public Result run(double rate, long duration, TimeUnit unit, long seed) throws InterruptedException {
+        long durationNanos = unit.toNanos(duration);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);  // Lets the workers start first
+        long end = start + durationNanos;
+        long giveUp = end + durationNanos;
+        Schedule schedule = new Schedule(rate, start, seed);
+        LogHistogram latency = new LogHistogram();
+        LogHistogram serviceTime = new LogHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder unfinished = new LongAdder();
+        AtomicLong lastCompletion = new AtomicLong(start);
+
+        Thread[] threads = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            SplittableRandom random = new SplittableRandom(seed * 31 + w);
+            threads[w] = new Thread(() -> {
+                long intended;
+                while ((intended = schedule.claim()) - end < 0) {
+                    long now = waitUntil(intended);
+                    if (now - giveUp > 0) {
+                        latency.record(now - intended);  // Never started; it has waited at least this long
+                        unfinished.increment();
+                        continue;
+                    }
+                    operation.call(random);
+                    long done = System.nanoTime();
+                    latency.record(done - intended);
+                    serviceTime.record(done - now);
+                    completed.increment();
+                    lastCompletion.accumulateAndGet(done, Math::max);
+                }
+            }, "LoadWorker-" + w);
+            threads[w].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(rate, completed.sum(), unfinished.sum(), Math.max(1, lastCompletion.get() - start),
+                latency, serviceTime);
+    }
+
+    // Waits until the intended start time (returns at once if it has passed) and returns the time
+    private static long waitUntil(long intended) {
+        long now;
+        while ((now = System.nanoTime()) - intended < 0) {
+            long remaining = intended - now;
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            } else {
+                Thread.yield();
+            }
+        }
+        return now;
+    }
+}
@@ -0,0 +1,331 @@
+package locksEx;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+
+import metrics.LogHistogram;
+
+/**
+ * A reentrant, non-fair `Lock` that spins briefly before it parks, and records how long
+ * threads wait for it and hold it.
+ * 
+ * Key Concepts:
+ * - **Spin, then park**: parking and unparking a thread costs several microseconds. If the
+ *   lock is usually held for less than that, it is cheaper to retry in a loop with
+ *   `Thread.onSpinWait()` until it is free. If it is held for long (like the 3 second sleep in
+ *   `BankAccount.withdraw`), spinning only burns CPU, so the thread parks right away.
+ * - **Adaptive**: the lock keeps a moving average of recent hold times and derives the spin
+ *   budget from it. Short holds give up to `MAX_SPINS` spins; holds longer than `PARK_COST_NANOS`
+ *   give no spinning at all, and neither does a single-CPU machine.
+ * - **Reentrant**: the owner can lock again without blocking, like `ReentrantLock`. It must call
+ *   `unlock()` once per `lock()`. This is what `ReentrantLockExample.outerMethod()` and
+ *   `innerMethod()` need.
+ * - **Metrics**: acquisition latency (from the `lock()` call until the lock is held) and hold time
+ *   (from the outermost acquire to the matching release) are recorded in histograms, and
+ *   `waiters()` reports how many threads are currently spinning or queued. A wait on one of
+ *   the lock's conditions ends the hold, and reacquiring the lock after it starts a new one.
+ * 
+ * Queuing and parking are done by an `AbstractQueuedSynchronizer`, the same building block
+ * `ReentrantLock` uses.
+ */
+public class AdaptiveSpinLock implements Lock {
+
+    // Upper bound of the spin phase
+    static final int MAX_SPINS = 2048;
+
+    // Rough cost of one onSpinWait() iteration plus the failed acquire attempt
+    static final long SPIN_NANOS = 20;
+
+    // On a single CPU the owner cannot run while we spin
+    private static final boolean MULTIPROCESSOR = Runtime.getRuntime().availableProcessors() > 1;
+
+    // Hold times above this are long enough that parking is cheaper than spinning
+    static final long PARK_COST_NANOS = 10_000;
+
+    private static final class Sync extends AbstractQueuedSynchronizer {
+        private static final long serialVersionUID = 1L;
+
+        boolean isHeldByCurrentThread() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (c == 0) {
+                if (compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(current);
+                    return true;
+                }
+            } else if (current == getExclusiveOwnerThread()) {
+                setState(c + acquires);  // Reentrant acquire; only the owner writes the state here
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            if (getExclusiveOwnerThread() != Thread.currentThread()) {
+                throw new IllegalMonitorStateException();
+            }
+            int c = getState() - releases;
+            boolean free = c == 0;
+            if (free) {
+                setExclusiveOwnerThread(null);
+            }
+            setState(c);
+            return free;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return isHeldByCurrentThread();
+        }
+
+        boolean isLocked() {
+            return getState() != 0;
+        }
+
+        int holdCount() {
+            return isHeldByCurrentThread() ? getState() : 0;
+        }
+
+        Condition newCondition() {
+            return new ConditionObject();
+        }
+    }
+
+    private final Sync sync = new Sync();
+    private final AtomicInteger spinning = new AtomicInteger();
+    private final LogHistogram acquireNanos = new LogHistogram();
+    private final LogHistogram holdNanos = new LogHistogram();
+    private volatile long averageHoldNanos;  // Exponential moving average, weight 1/8
+    private long acquiredAt;                 // Only read and written by the owner
+
+    @Override
+    public void lock() {
+        long start = System.nanoTime();
+        if (!sync.tryAcquire(1) && !spin(spinBudget())) {
+            sync.acquire(1);
+        }
+        acquired(start);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        long start = System.nanoTime();
+        if (!sync.tryAcquire(1) && !spin(spinBudget())) {
+            sync.acquireInterruptibly(1);
+        }
+        acquired(start);
+    }
+
+    @Override
+    public boolean tryLock() {
+        long start = System.nanoTime();
+        if (sync.tryAcquire(1)) {
+            acquired(start);
+            return true;
+        }
+        return false;
+    }
+
+    // Spins for no longer than the timeout allows, then parks for only the time that is left
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long start = System.nanoTime();
+        long timeout = unit.toNanos(time);
+        if (sync.tryAcquire(1)
+                || spin((int) Math.min(spinBudget(), Math.max(0, timeout) / SPIN_NANOS))
+                || sync.tryAcquireNanos(1, timeout - (System.nanoTime() - start))) {
+            acquired(start);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void unlock() {
+        if (sync.holdCount() == 1) {
+            // Outermost release: record the hold time before another thread can take the lock
+            recordHold();
+        }
+        sync.release(1);
+    }
+
+    private void recordHold() {
+        long held = System.nanoTime() - acquiredAt;
+        holdNanos.record(held);
+        long average = averageHoldNanos;
+        averageHoldNanos = average + ((held - average) >> 3);
+    }
+
+    // The condition ends the hold when a wait releases the lock and starts a new one when it is reacquired
+    @Override
+    public Condition newCondition() {
+        return new HoldTrackingCondition(sync.newCondition());
+    }
+
+    /**
+     * An AQS condition releases and reacquires the lock by itself, bypassing `unlock()` and
+     * `acquired()`. Without this wrapper the time spent waiting would count as hold time.
+     */
+    private final class HoldTrackingCondition implements Condition {
+        private final Condition condition;
+
+        HoldTrackingCondition(Condition condition) {
+            this.condition = condition;
+        }
+
+        // False if the caller does not hold the lock; the wait then throws IllegalMonitorStateException
+        private boolean beforeWait() {
+            if (!sync.isHeldByCurrentThread()) {
+                return false;
+            }
+            recordHold();  // The wait releases every hold at once
+            return true;
+        }
+
+        // The wait has reacquired the lock, also when it threw InterruptedException
+        private void afterWait(boolean held) {
+            if (held) {
+                acquiredAt = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            boolean held = beforeWait();
+            try {
+                condition.await();
+            } finally {
+                afterWait(held);
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            boolean held = beforeWait();
+            try {
+                condition.awaitUninterruptibly();
+            } finally {
+                afterWait(held);
+            }
+        }
+
+        @Override
+        public long awaitNanos(long nanosTimeout) throws InterruptedException {
+            boolean held = beforeWait();
+            try {
+                return condition.awaitNanos(nanosTimeout);
+            } finally {
+                afterWait(held);
+            }
+        }
+
+        @Override
+        public boolean await(long time, TimeUnit unit) throws InterruptedException {
+            boolean held = beforeWait();
+            try {
+                return condition.await(time, unit);
+            } finally {
+                afterWait(held);
+            }
+        }
+
+        @Override
+        public boolean awaitUntil(Date deadline) throws InterruptedException {
+            boolean held = beforeWait();
+            try {
+                return condition.awaitUntil(deadline);
+            } finally {
+                afterWait(held);
+            }
+        }
+
+        @Override
+        public void signal() {
+            condition.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+
+    // Spins up to budget times; returns true if the lock was acquired while spinning
+    private boolean spin(int budget) {
+        if (budget == 0) {
+            return false;
+        }
+        spinning.incrementAndGet();
+        try {
+            for (int i = 0; i < budget; i++) {
+                Thread.onSpinWait();
+                // Check cheaply before trying; also stop spinning if others are already parked
+                if (!sync.isLocked() && sync.tryAcquire(1)) {
+                    return true;
+                }
+                if (sync.hasQueuedThreads()) {
+                    return false;
+                }
+            }
+            return false;
+        } finally {
+            spinning.decrementAndGet();
+        }
+    }
+
+    // About twice the expected remaining hold time, or nothing if holds are long
+    int spinBudget() {
+        long average = averageHoldNanos;
+        if (!MULTIPROCESSOR || average > PARK_COST_NANOS) {
+            return 0;
+        }
+        return (int) Math.min(MAX_SPINS, Math.max(16, 2 * average / SPIN_NANOS));
+    }
+
+    private void acquired(long start) {
+        if (sync.holdCount() == 1) {
+            long now = System.nanoTime();
+            acquiredAt = now;
+            acquireNanos.record(now - start);
+        }
+    }
+
+    public boolean isLocked() {
+        return sync.isLocked();
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return sync.isHeldByCurrentThread();
+    }
+
+    public int getHoldCount() {
+        return sync.holdCount();
+    }
+
+    // Threads currently spinning or parked waiting for the lock
+    public int waiters() {
+        return spinning.get() + sync.getQueueLength();
+    }
+
+    public LogHistogram acquireLatency() {
+        return acquireNanos;
+    }
+
+    public LogHistogram holdTime() {
+        return holdNanos;
+    }
+
+    public long averageHoldNanos() {
+        return averageHoldNanos;
+    }
+}
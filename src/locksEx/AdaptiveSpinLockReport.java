@@ -0,0 +1,96 @@
+package locksEx;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares `AdaptiveSpinLock` with fair and non-fair `ReentrantLock` under contention.
+ * 
+ * Usage: `java locksEx.AdaptiveSpinLockReport [secondsPerRun] [threads] [holdNanos]`
+ * 
+ * What this code does:
+ * - For each lock, starts `threads` threads (default: twice the number of cores) that lock,
+ *   busy-work for about `holdNanos` inside the critical section (default: 200), unlock, and
+ *   repeat for `secondsPerRun` seconds.
+ * - Prints the acquisitions per second of each lock. For the adaptive lock it also prints the
+ *   acquisition latency and hold time percentiles, the learned average hold time and the spin
+ *   budget it derived from it, and the highest number of waiters seen.
+ * 
+ * Rerun with a large `holdNanos` (e.g. 50000) to see the adaptive lock stop spinning and park
+ * like a `ReentrantLock` when the critical section is long.
+ */
+public class AdaptiveSpinLockReport {
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        long holdNanos = args.length > 2 ? Long.parseLong(args[2]) : 200;
+        long durationNanos = (long) (seconds * 1_000_000_000L);
+
+        System.out.printf("%d threads, hold ~%d ns, %.1f s per run%n", threads, holdNanos, seconds);
+        System.out.printf("%-12s %14s%n", "lock", "acquires/s");
+        run("fair", new ReentrantLock(true), threads, holdNanos, durationNanos);
+        run("non-fair", new ReentrantLock(false), threads, holdNanos, durationNanos);
+
+        AdaptiveSpinLock adaptive = new AdaptiveSpinLock();
+        int maxWaiters = run("adaptive", adaptive, threads, holdNanos, durationNanos);
+        System.out.println();
+        System.out.println("Adaptive lock:");
+        System.out.println("  acquire latency " + adaptive.acquireLatency().summary("us", 1_000.0));
+        System.out.println("  hold time       " + adaptive.holdTime().summary("us", 1_000.0));
+        System.out.printf("  average hold %d ns, spin budget %d, max waiters %d%n",
+                adaptive.averageHoldNanos(), adaptive.spinBudget(), maxWaiters);
+    }
+
+    // Returns the highest waiter count sampled, or 0 for locks that do not report it
+    private static int run(String name, Lock lock, int threads, long holdNanos, long durationNanos)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        long[] acquires = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long end = System.nanoTime() + durationNanos;
+                long count = 0;
+                while (System.nanoTime() < end) {
+                    lock.lock();
+                    try {
+                        long until = System.nanoTime() + holdNanos;
+                        while (System.nanoTime() < until) {
+                            Thread.onSpinWait();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    count++;
+                }
+                acquires[index] = count;
+            }, name + "-" + t);
+            workers[t].start();
+        }
+
+        start.countDown();
+        int maxWaiters = 0;
+        if (lock instanceof AdaptiveSpinLock) {
+            AdaptiveSpinLock adaptive = (AdaptiveSpinLock) lock;
+            while (workers[0].isAlive()) {
+                maxWaiters = Math.max(maxWaiters, adaptive.waiters());
+                Thread.sleep(10);
+            }
+        }
+        long total = 0;
+        for (int t = 0; t < threads; t++) {
+            workers[t].join();
+            total += acquires[t];
+        }
+        System.out.printf("%-12s %,14.0f%n", name, total / (durationNanos / 1e9));
+        return maxWaiters;
+    }
+}
@@ -2,62 +2,127 @@
 // The BankAccount class represents a bank account with synchronized withdrawal capabilities.
 package locksEx;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import cancellation.CancellationToken;
+import cancellation.CancelledException;
+import cancellation.Deadlines;
+import ledger.WithdrawalResult;
+import logging.Log;
+
 /**
  * The BankAccount class simulates a bank account with a balance 
  * and provides a method to withdraw money while ensuring thread safety 
  * using a ReentrantLock. 
+ * 
+ * See also:
+ * - `getBalance()`: the balance is `volatile`, so it is read without taking the lock.
+ * - `logging.Log`: progress messages are logged asynchronously, not under the `System.out` lock.
+ * - `async.AsyncAccounts`: a withdrawal that does not block the caller and completes a
+ *   `CompletableFuture` with its outcome.
  */
 public class BankAccount {
-    private int balance = 100; // Initial balance of the bank account.
+    private volatile int balance = 100; // Initial balance of the bank account.
 
     // A ReentrantLock with fairness policy to ensure that the longest waiting thread gets access first.
     private final Lock lock = new ReentrantLock(true);
 
+    // Lock-free read of the current balance; never waits for a withdrawal in progress
+    public int getBalance() {
+        return balance;
+    }
+
     /**
      * Attempts to withdraw a specified amount from the account.
      * @param amount The amount of money to withdraw.
      */
     public void withdraw(int amount) {
+        tryWithdraw(amount);
+    }
+
+    /**
+     * Attempts the withdrawal once, like `withdraw(int)`, and reports what happened.
+     * @param amount The amount of money to withdraw.
+     * @return `SUCCESS`, `INSUFFICIENT_BALANCE`, or `REJECTED` if another withdrawal held the
+     *         lock. A rejected withdrawal changed nothing and can be retried, for example by an
+     *         `admission.AdmissionController`.
+     */
+    public WithdrawalResult tryWithdraw(int amount) {
         // Logging the thread's attempt to withdraw money.
-        System.out.println(Thread.currentThread().getName() + " attempting to withdraw money: " + amount);
+        Log.println(Thread.currentThread().getName() + " attempting to withdraw money: " + amount);
         
         try {
-            // Try to acquire the lock without blocking. If the lock is not available, return false.
+            // Try to acquire the lock without blocking. If the lock is not available, return REJECTED.
             if (lock.tryLock()) {
-                // Check if sufficient balance is available for withdrawal.
-                if (balance >= amount) {
-                    try {
+                try {
+                    // Check if sufficient balance is available for withdrawal.
+                    if (balance >= amount) {
                         // Simulating a delay in processing the withdrawal.
-                        System.out.println(Thread.currentThread().getName() + " processing the withdraw: ");
+                        Log.println(Thread.currentThread().getName() + " processing the withdraw: ");
                         Thread.sleep(3000); // Simulate time taken for processing.
                         
                         // Deducting the amount from the balance.
                         balance -= amount;
                         // Logging the completion of the withdrawal and the remaining balance.
-                        System.out.println(Thread.currentThread().getName() + " withdraw completed. Remaining balance: " + balance);
-                    } catch (Exception e) {
-                        // Handle any exception that occurs during the withdrawal process.
-                        System.err.println("Exception occurred: " + e.getMessage());
-                        Thread.currentThread().interrupt(); // Restore interrupted status.
-                    } finally {
-                        // Ensure the lock is released after processing the withdrawal.
-                        lock.unlock();
+                        Log.println(Thread.currentThread().getName() + " withdraw completed. Remaining balance: " + balance);
+                        return WithdrawalResult.SUCCESS;
                     }
-                } else {
                     // Log if there is not enough balance for the withdrawal.
-                    System.out.println(Thread.currentThread().getName() + " Not enough balance.");
+                    Log.println(Thread.currentThread().getName() + " Not enough balance.");
+                    return WithdrawalResult.INSUFFICIENT_BALANCE;
+                } finally {
+                    // Ensure the lock is released on every path, including "not enough balance".
+                    lock.unlock();
+                }
+            }
+            // If the lock could not be acquired, log the message and indicate retry later.
+            Log.println(Thread.currentThread().getName() + " could not acquire the lock. Will try again later.");
+            return WithdrawalResult.REJECTED;
+        } catch (InterruptedException e) {
+            // The processing delay was interrupted; the balance was not changed.
+            System.err.println("Exception occurred: " + e.getMessage());
+            Thread.currentThread().interrupt(); // Restore interrupted status.
+            return WithdrawalResult.REJECTED;
+        }
+    }
+
+    /**
+     * Withdraws like `withdraw(int)`, but waits for the lock and does the processing only
+     * until the token is cancelled or its deadline passes, instead of giving up at once.
+     * @param amount The amount of money to withdraw.
+     * @param token Cancels the withdrawal; the balance is only changed if it completes.
+     * @return true if the amount was withdrawn.
+     */
+    public boolean withdraw(int amount, CancellationToken token) {
+        Log.println(Thread.currentThread().getName() + " attempting to withdraw money: " + amount);
+        try {
+            // Wait for the lock, but no longer than the token allows.
+            if (!Deadlines.tryLock(lock, token)) {
+                Log.println(Thread.currentThread().getName() + " gave up waiting for the lock: " + token.reason());
+                return false;
+            }
+            try {
+                if (balance < amount) {
+                    Log.println(Thread.currentThread().getName() + " Not enough balance.");
+                    return false;
                 }
-            } else {
-                // If the lock could not be acquired, log the message and indicate retry later.
-                System.out.println(Thread.currentThread().getName() + " could not acquire the lock. Will try again later.");
+                Log.println(Thread.currentThread().getName() + " processing the withdraw: ");
+                Deadlines.sleep(3000, TimeUnit.MILLISECONDS, token); // Cancellable processing time.
+                balance -= amount;
+                Log.println(Thread.currentThread().getName() + " withdraw completed. Remaining balance: " + balance);
+                return true;
+            } finally {
+                lock.unlock();
             }
-        } catch (Exception e) {
-            // Log any exceptions that occur in the withdrawal process.
-            e.printStackTrace();
+        } catch (CancelledException e) {
+            // Cancelled during processing: nothing was deducted.
+            Log.println(Thread.currentThread().getName() + " withdraw cancelled: " + e.reason());
+            return false;
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Restore interrupted status.
+            return false;
         }
     }
 }
\ No newline at end of file
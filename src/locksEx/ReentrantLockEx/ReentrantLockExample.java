@@ -3,6 +3,8 @@ package locksEx.ReentrantLockEx;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import locksEx.AdaptiveSpinLock;
+
 /**
  * This class demonstrates the use of `ReentrantLock` in Java.
  * 
@@ -34,11 +36,22 @@ import java.util.concurrent.locks.ReentrantLock;
  * - `ReentrantLock` is useful when you need advanced locking features (like tryLock, fairness, etc.).
  * - It provides more flexibility compared to the `synchronized` keyword, but requires careful handling of 
  *   acquiring and releasing locks to avoid deadlocks.
+ * 
+ * Running with the argument `adaptive` runs the same scenario on `locksEx.AdaptiveSpinLock`,
+ * which must support the same reentrant acquire and release.
  */
 public class ReentrantLockExample {
     
-    // Create an instance of ReentrantLock
-    private final Lock lock = new ReentrantLock();
+    // The lock used by both methods; a ReentrantLock unless another implementation is passed in
+    private final Lock lock;
+
+    public ReentrantLockExample() {
+        this(new ReentrantLock());
+    }
+
+    public ReentrantLockExample(Lock lock) {
+        this.lock = lock;
+    }
 
     /**
      * outerMethod:
@@ -81,9 +94,18 @@ public class ReentrantLockExample {
      * - This triggers the lock mechanism and shows how a re-entrant lock works.
      */
     public static void main(String[] args) {
-        ReentrantLockExample example = new ReentrantLockExample();
+        boolean adaptive = args.length > 0 && args[0].equalsIgnoreCase("adaptive");
+        ReentrantLockExample example = adaptive
+                ? new ReentrantLockExample(new AdaptiveSpinLock())
+                : new ReentrantLockExample();
         
         // Call outerMethod, which will in turn call innerMethod
         example.outerMethod();
+
+        if (example.lock instanceof AdaptiveSpinLock) {
+            AdaptiveSpinLock spinLock = (AdaptiveSpinLock) example.lock;
+            System.out.println("Released: " + !spinLock.isLocked()
+                    + ", hold " + spinLock.holdTime().summary("us", 1_000.0));
+        }
     }
 }
@@ -0,0 +1,77 @@
+package locksEx;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A sequence lock: writers lock each other out, readers never lock at all.
+ * 
+ * Key Concepts:
+ * - A writer takes the lock, changes the data and releases it. Every write moves the
+ *   lock's version forward.
+ * - A reader calls `beginRead()`, copies the fields it needs, then calls `endRead(stamp)`.
+ *   If a writer was active in between, `endRead()` returns false and the reader must throw
+ *   away what it copied and try again. A read that passes `endRead()` saw one consistent
+ *   version of the data.
+ * - Readers do not write to any shared lock state, so they do not slow each other down and
+ *   read throughput grows with the number of reader threads. Their only cost is a retry when
+ *   a write overlaps, which is rare when writes are rare.
+ * - Data read between `beginRead()` and `endRead()` may be torn or half-updated. Only use it
+ *   after `endRead()` returns true, and never follow references from it that could fail
+ *   (e.g. an index into an array that a writer may have replaced) without a bounds check.
+ * 
+ * The version and memory fences come from a `StampedLock` optimistic read. This class adds
+ * the retry loop and counts reads and retries in `LongAdder`s. Those are the only shared
+ * writes a reader makes. A `LongAdder` spreads contending threads over a small, bounded set
+ * of padded cells, so counting costs readers little and does not grow with the number of
+ * threads that ever read, even with a new thread per task.
+ */
+public class SeqLock {
+    private final StampedLock lock = new StampedLock();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private long writeStamp;  // Only touched by the thread holding the write lock
+
+    // Returns a stamp for endRead(), waiting (without locking) while a write is in progress
+    public long beginRead() {
+        reads.increment();
+        long stamp;
+        while ((stamp = lock.tryOptimisticRead()) == 0L) {
+            retries.increment();
+            Thread.onSpinWait();
+        }
+        return stamp;
+    }
+
+    // True if no write happened since beginRead(); otherwise the read must be repeated
+    public boolean endRead(long stamp) {
+        if (lock.validate(stamp)) {
+            return true;
+        }
+        retries.increment();
+        return false;
+    }
+
+    public void lockWrite() {
+        writeStamp = lock.writeLock();
+    }
+
+    public void unlockWrite() {
+        lock.unlockWrite(writeStamp);
+    }
+
+    // Number of beginRead() calls since the last resetStats()
+    public long reads() {
+        return reads.sum();
+    }
+
+    // Number of times a reader had to wait for or repeat a read because of a write
+    public long retries() {
+        return retries.sum();
+    }
+
+    public void resetStats() {
+        reads.reset();
+        retries.reset();
+    }
+}
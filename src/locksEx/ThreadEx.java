@@ -1,12 +1,22 @@
 package locksEx;
 
+import java.util.concurrent.ExecutionException;
+
+import execution.ExecutionMode;
+import execution.TaskGroup;
+import logging.Log;
+
 /**
  * The ThreadEx class serves as the entry point for the application. 
  * It creates an instance of the BankAccount class and starts two threads 
  * that attempt to withdraw money concurrently from the same account.
+ * 
+ * Pass an execution mode (`platform`, `fixed_pool` or `virtual`) as the first argument
+ * to run the same two tasks as an `execution.TaskGroup` on that kind of thread instead.
+ * Either way, main waits for both withdrawals and prints the final balance.
  */
 public class ThreadEx {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         // Creating an instance of BankAccount with an initial balance of 100.
         BankAccount bankAccount = new BankAccount();
 
@@ -14,6 +24,19 @@ public class ThreadEx {
         // Both threads will execute this task, attempting to withdraw 50 units of money.
         Runnable task = () -> bankAccount.withdraw(50);
 
+        if (args.length > 0) {
+            ExecutionMode mode = ExecutionMode.parse(args[0]);
+            try (TaskGroup<Void> group = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, mode, 2, null)) {
+                group.fork("Customer1", task);
+                group.fork("Customer2", task);
+                group.join();
+            } catch (ExecutionException e) {
+                Log.println("Withdrawal failed: " + e.getCause());
+            }
+            Log.println("Final balance: " + bankAccount.getBalance());
+            return;
+        }
+
         // Creating two threads, each representing a different customer trying to withdraw money.
         Thread t1 = new Thread(task, "Thread1");
         Thread t2 = new Thread(task, "Thread2");
@@ -21,5 +44,10 @@ public class ThreadEx {
         // Starting both threads. They will execute the withdraw method concurrently.
         t1.start();
         t2.start();
+
+        // Waiting for both customers so the final balance includes both withdrawals.
+        t1.join();
+        t2.join();
+        Log.println("Final balance: " + bankAccount.getBalance());
     }
 }
\ No newline at end of file
@@ -0,0 +1,285 @@
+package logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logger that never makes the calling thread wait for a lock or for I/O.
+ * 
+ * Key Concepts:
+ * - `System.out.println` locks the `PrintStream` and writes while holding the lock, so every
+ *   thread that logs is serialized behind whichever thread is writing.
+ * - Here, producers only claim a slot in a preallocated ring buffer with one compare-and-set
+ *   and store their message in it. Many threads can publish at the same time.
+ * - A single daemon consumer thread takes all messages that are ready, encodes them into one
+ *   direct buffer and writes the whole batch with one channel write.
+ * - Messages from one thread are written in the order that thread logged them.
+ * 
+ * What happens when the ring buffer is full is configurable (`Overflow`):
+ * - `DROP`: the message is discarded and counted in `dropped()`.
+ * - `BLOCK`: the producer waits until the consumer has made room.
+ * - `SAMPLE`: once the buffer is more than 3/4 full, only one in `sampleRate` messages is
+ *   accepted (the rest are counted in `sampledOut()`); when it is completely full, messages are dropped.
+ * 
+ * The ring buffer is the bounded multi-producer queue described by Dmitry Vyukov: each slot
+ * has a sequence number that tells producers whether the slot is free and the consumer
+ * whether it has been filled.
+ */
+public class AsyncLogger implements AutoCloseable {
+
+    public enum Overflow {
+        DROP,
+        BLOCK,
+        SAMPLE;
+
+        public static Overflow parse(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final byte NEWLINE = '\n';
+
+    private final WritableByteChannel out;
+    private final Overflow overflow;
+    private final int sampleRate;
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<String> messages;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();   // Next slot producers will claim
+    private final AtomicLong head = new AtomicLong();   // Next slot the consumer will read
+    private volatile long written;                      // All slots before this one are written out
+    private volatile boolean closed;
+    private final Thread consumer;
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile IOException writeFailure;
+
+    public AsyncLogger(WritableByteChannel out, int minCapacity, Overflow overflow, int sampleRate) {
+        this.out = out;
+        this.overflow = overflow;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.capacity = Integer.highestOneBit(Math.max(2, minCapacity - 1)) << 1;  // Power of two
+        this.mask = capacity - 1;
+        this.messages = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);  // Slot i is free for the producer that claims position i
+        }
+        this.consumer = new Thread(this::consumeLoop, "AsyncLogger");
+        this.consumer.setDaemon(true);  // Logging must never keep the JVM alive
+        this.consumer.start();
+    }
+
+    /**
+     * Publishes a message; a newline is added when it is written.
+     * 
+     * @return false if the message was dropped or sampled out, or the logger is closed
+     */
+    public boolean log(String message) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+        if (overflow == Overflow.SAMPLE && size() > capacity - (capacity >> 2)
+                && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        int idleRounds = 0;
+        while (true) {
+            long pos = tail.get();
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                // The slot is free; try to claim it
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    messages.set(index, message);
+                    sequences.set(index, pos + 1);  // Tells the consumer the slot is filled
+                    published.increment();
+                    if (closed) {
+                        // close() began after the check above, so the consumer may already have stopped
+                        drainAfterClose();
+                    }
+                    return true;
+                }
+            } else if (diff < 0) {
+                // The buffer is full
+                if (overflow != Overflow.BLOCK || closed) {
+                    dropped.increment();
+                    return false;
+                }
+                idleRounds = backOff(idleRounds);
+            }
+            // diff > 0: another producer claimed this position first; retry with the new tail
+        }
+    }
+
+    // Approximate number of messages waiting to be written
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    // Blocks until every message published before this call has been written out
+    public void flush() {
+        long target = tail.get();
+        int idleRounds = 0;
+        while (written < target && consumer.isAlive()) {
+            idleRounds = backOff(idleRounds);
+        }
+    }
+
+    private void consumeLoop() {
+        int idleRounds = 0;
+        while (true) {
+            if (writeBatch()) {
+                idleRounds = 0;
+            } else if (closed && head.get() == tail.get()) {
+                return;
+            } else {
+                idleRounds = backOff(idleRounds);
+            }
+        }
+    }
+
+    // Writes the filled slots from `head` on as one batch; false if the next slot is not filled yet
+    private boolean writeBatch() {
+        long pos = head.get();
+        long start = pos;
+        batch.clear();
+        // Take every filled slot, as long as the batch buffer has room
+        while (true) {
+            int index = (int) (pos & mask);
+            if (sequences.get(index) != pos + 1) {
+                break;  // Not published yet
+            }
+            String message = messages.get(index);
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length + 1 > batch.remaining()) {
+                if (pos == start) {
+                    bytes = truncate(bytes);  // A single message larger than the batch buffer
+                } else {
+                    break;                    // Write what we have; this message goes in the next batch
+                }
+            }
+            batch.put(bytes).put(NEWLINE);
+            messages.set(index, null);
+            sequences.set(index, pos + capacity);  // Slot is free again for the next round
+            pos++;
+        }
+
+        if (pos == start) {
+            return false;
+        }
+        head.set(pos);
+        write();
+        written = pos;
+        return true;
+    }
+
+    private void write() {
+        batch.flip();
+        int bytes = batch.remaining();
+        try {
+            while (batch.hasRemaining()) {
+                out.write(batch);
+            }
+        } catch (IOException e) {
+            writeFailure = e;  // Keep consuming so producers in BLOCK mode are not stuck forever
+        }
+        batches.incrementAndGet();
+        bytesWritten.addAndGet(bytes);
+    }
+
+    private static byte[] truncate(byte[] bytes) {
+        byte[] shortened = new byte[BATCH_BYTES - 1];
+        System.arraycopy(bytes, 0, shortened, 0, shortened.length);
+        return shortened;
+    }
+
+    // Spin briefly, then yield, then park for growing intervals (capped at 1 ms)
+    private static int backOff(int idleRounds) {
+        if (idleRounds < 100) {
+            Thread.onSpinWait();
+        } else if (idleRounds < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(TimeUnit.MILLISECONDS.toNanos(1), 1000L << Math.min(10, idleRounds - 200)));
+        }
+        return idleRounds + 1;
+    }
+
+    // Stops accepting messages, writes everything already published and stops the consumer
+    @Override
+    public void close() {
+        closed = true;
+        drainAfterClose();
+    }
+
+    /**
+     * Waits for the consumer to stop, then writes every claimed message it did not get to.
+     * Called by `close()` and by producers that published while `close()` was running, so a
+     * message counted in `published()` is always written. Synchronized, so only one thread
+     * uses the batch buffer.
+     */
+    private synchronized void drainAfterClose() {
+        boolean interrupted = false;
+        while (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        int idleRounds = 0;
+        while (head.get() < tail.get()) {
+            if (!writeBatch()) {
+                idleRounds = backOff(idleRounds);  // Its producer is still storing the message
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long published() {
+        return published.sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long sampledOut() {
+        return sampledOut.sum();
+    }
+
+    public long batches() {
+        return batches.get();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.get();
+    }
+
+    // The last write error, or null if every write succeeded
+    public IOException writeFailure() {
+        return writeFailure;
+    }
+}
@@ -0,0 +1,39 @@
+package logging;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * Shared `AsyncLogger` writing to standard output, for use in hot paths instead of
+ * `System.out.println`.
+ * 
+ * Configuration (system properties):
+ * - `logging.overflow`: `block` (default), `drop` or `sample`.
+ * - `logging.capacity`: ring buffer size in messages (default 65536).
+ * - `logging.sampleRate`: in `sample` mode, keep one in this many messages (default 100).
+ * 
+ * A shutdown hook writes out everything still buffered when the JVM exits.
+ */
+public final class Log {
+    private static final AsyncLogger STDOUT = new AsyncLogger(
+            Channels.newChannel(new FileOutputStream(FileDescriptor.out)),
+            Integer.getInteger("logging.capacity", 1 << 16),
+            AsyncLogger.Overflow.parse(System.getProperty("logging.overflow", "block")),
+            Integer.getInteger("logging.sampleRate", 100));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(STDOUT::close, "AsyncLogger-shutdown"));
+    }
+
+    private Log() {
+    }
+
+    public static boolean println(String message) {
+        return STDOUT.log(message);
+    }
+
+    public static AsyncLogger stdout() {
+        return STDOUT;
+    }
+}
@@ -0,0 +1,70 @@
+package logging;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Compares how fast many threads can log through a `PrintStream` and through `AsyncLogger`.
+ * 
+ * Usage: `java logging.LoggingThroughputReport [threads] [messagesPerThread] [target]`
+ * 
+ * Everything is written to `target` (default `/dev/null`), so the numbers show the cost of
+ * the logging path itself, not of the terminal. For each `AsyncLogger.Overflow` policy the
+ * report also shows how many messages were dropped or sampled out.
+ */
+public class LoggingThroughputReport {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        String target = args.length > 2 ? args[2] : "/dev/null";
+
+        try (PrintStream printStream = new PrintStream(new BufferedOutputStream(new FileOutputStream(target)), true)) {
+            long nanos = run(threads, messages, printStream::println);
+            print("PrintStream", threads, messages, nanos, "");
+        }
+
+        for (AsyncLogger.Overflow overflow : AsyncLogger.Overflow.values()) {
+            try (FileChannel channel = FileChannel.open(Paths.get(target), StandardOpenOption.WRITE)) {
+                AsyncLogger logger = new AsyncLogger(channel, 1 << 16, overflow, 100);
+                long nanos = run(threads, messages, logger::log);
+                logger.close();
+                print("AsyncLogger " + overflow, threads, messages, nanos,
+                        String.format(", dropped %d, sampled out %d, %d batches (avg %.0f bytes)",
+                                logger.dropped(), logger.sampledOut(), logger.batches(),
+                                (double) logger.bytesWritten() / Math.max(1, logger.batches())));
+            }
+        }
+    }
+
+    // Time until every producer thread has returned from its last log call
+    private static long run(int threads, int messages, Consumer<String> sink) throws InterruptedException {
+        Thread[] producers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            String prefix = "Producer-" + t + " message ";
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < messages; i++) {
+                    sink.accept(prefix + i);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        for (Thread producer : producers) {
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void print(String name, int threads, int messages, long nanos, String extra) {
+        long total = (long) threads * messages;
+        System.out.printf("%-20s %12.0f messages/s%s%n", name, total * 1e9 / nanos, extra);
+    }
+}
@@ -0,0 +1,86 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Runs any existing `main()` under a `ThreadProfiler` and prints where its threads spent
+ * their time.
+ * 
+ * Usage: `java metrics.Profile [-interval=ms] [-out=file.csv|file.json] <mainClass> [args...]`
+ * 
+ * Example: `java metrics.Profile -out=profile.json synchronizedEx.SynchronizedExample monitor 8 5000000`
+ * 
+ * What this code does:
+ * - Starts the profiler (default interval 10 ms) and calls `mainClass.main(args)` on this thread.
+ * - Many demos return from `main()` while their threads are still running, so it then waits
+ *   for every other non-daemon thread to end, as the JVM itself would.
+ * - Stops the profiler, prints the per-thread summary and the contended locks, and writes
+ *   the CSV or JSON export if `-out` was given.
+ */
+public class Profile {
+    public static void main(String[] args) throws Exception {
+        long intervalMillis = 10;
+        Path out = null;
+        int first = 0;
+        for (; first < args.length && args[first].startsWith("-"); first++) {
+            String option = args[first];
+            if (option.startsWith("-interval=")) {
+                intervalMillis = Long.parseLong(option.substring("-interval=".length()));
+            } else if (option.startsWith("-out=")) {
+                out = Paths.get(option.substring("-out=".length()));
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (first == args.length) {
+            System.err.println("Usage: java metrics.Profile [-interval=ms] [-out=file.csv|file.json] <mainClass> [args...]");
+            System.exit(2);
+        }
+        Method main = Class.forName(args[first]).getMethod("main", String[].class);
+        String[] mainArgs = Arrays.copyOfRange(args, first + 1, args.length);
+
+        ThreadProfiler profiler = new ThreadProfiler(intervalMillis);
+        profiler.start();
+        try {
+            main.invoke(null, (Object) mainArgs);
+            awaitNonDaemonThreads();
+        } catch (InvocationTargetException e) {
+            System.err.println("main() threw: " + e.getCause());
+        } finally {
+            profiler.close();
+        }
+
+        PrintWriter console = new PrintWriter(System.out);
+        profiler.printSummary(console);
+        if (out != null) {
+            try {
+                profiler.write(out);
+                System.out.println("Profile written to " + out.toAbsolutePath());
+            } catch (IOException e) {
+                System.err.println("Could not write " + out + ": " + e);
+            }
+        }
+    }
+
+    private static void awaitNonDaemonThreads() throws InterruptedException {
+        Thread self = Thread.currentThread();
+        boolean found = true;
+        while (found) {
+            found = false;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                // DestroyJavaVM only exists once the launcher's main thread has returned
+                if (thread != self && !thread.isDaemon() && thread.isAlive()
+                        && !thread.getName().equals("DestroyJavaVM")) {
+                    thread.join();
+                    found = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process sampling profiler that shows where every thread spends its time.
+ * 
+ * Key Concepts:
+ * - Every `intervalMillis` a daemon thread dumps all live threads and counts one sample per
+ *   thread for its state: RUNNABLE, BLOCKED, WAITING or TIMED_WAITING. Samples times the
+ *   interval estimates how long a thread spent in each state.
+ * - At the same time it reads each thread's CPU time and allocated bytes from
+ *   `com.sun.management.ThreadMXBean`. Threads that have ended keep the values of their
+ *   last sample, so up to one interval of their work is missing.
+ * - **Contention**: a BLOCKED thread is waiting to enter a `synchronized` block, for example
+ *   the `synchronizedEx.Counter` monitor. A WAITING thread that parked on a
+ *   `java.util.concurrent` lock, for example the `BankAccount` `ReentrantLock`, reports that
+ *   lock's synchronizer. Those samples are attributed to the lock (class and identity hash)
+ *   and to the first application frame, i.e. the line of code that tried to take it.
+ * - Only platform threads are sampled; the JDK does not list virtual threads in thread dumps.
+ * 
+ * Use `Profile` to run any existing `main()` under the profiler, or create one, `start()` it
+ * and `close()` it around the code to measure. `writeCsv()` and `writeJson()` export the result.
+ */
+public class ThreadProfiler implements AutoCloseable {
+
+    // Per-thread totals; only written by the sampler thread
+    public static final class ThreadStats {
+        private final long id;
+        private final String name;
+        private final Map<Thread.State, Long> samples = new EnumMap<>(Thread.State.class);
+        private final Map<String, Long> blockedOn = new TreeMap<>();
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        private ThreadStats(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long samples(Thread.State state) {
+            return samples.getOrDefault(state, 0L);
+        }
+
+        public long totalSamples() {
+            long total = 0;
+            for (long count : samples.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long cpuNanos() {
+            return cpuNanos;
+        }
+
+        public long allocatedBytes() {
+            return allocatedBytes;
+        }
+
+        // Contended lock and code location -> samples spent waiting for it
+        public Map<String, Long> blockedOn() {
+            return blockedOn;
+        }
+    }
+
+    private static final int STACK_DEPTH = 16;
+
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long intervalMillis;
+    private final Map<Long, ThreadStats> threads = new ConcurrentHashMap<>();
+    private final Map<String, Long> contention = new ConcurrentHashMap<>();  // Lock -> samples, all threads
+    private Thread sampler;
+    private volatile boolean running;
+    private long startedAt;
+    private long stoppedAt;
+    private long sampleCount;
+
+    public ThreadProfiler(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void start() {
+        if (threadBean.isThreadCpuTimeSupported()) {
+            threadBean.setThreadCpuTimeEnabled(true);
+        }
+        if (threadBean.isThreadAllocatedMemorySupported()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        running = true;
+        startedAt = System.nanoTime();
+        sampler = new Thread(() -> {
+            while (running) {
+                sample();
+                try {
+                    Thread.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "ThreadProfiler-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    private void sample() {
+        long self = Thread.currentThread().getId();
+        ThreadInfo[] infos = threadBean.dumpAllThreads(false, false, STACK_DEPTH);
+        long[] ids = new long[infos.length];
+        for (int i = 0; i < infos.length; i++) {
+            ids[i] = infos[i].getThreadId();
+        }
+        long[] cpu = threadBean.isThreadCpuTimeEnabled() ? threadBean.getThreadCpuTime(ids) : null;
+        long[] allocated = threadBean.isThreadAllocatedMemoryEnabled() ? threadBean.getThreadAllocatedBytes(ids) : null;
+
+        for (int i = 0; i < infos.length; i++) {
+            ThreadInfo info = infos[i];
+            if (info.getThreadId() == self) {
+                continue;
+            }
+            ThreadStats stats = threads.computeIfAbsent(info.getThreadId(),
+                    id -> new ThreadStats(id, info.getThreadName()));
+            Thread.State state = info.getThreadState();
+            stats.samples.merge(state, 1L, Long::sum);
+            if (cpu != null && cpu[i] >= 0) {
+                stats.cpuNanos = cpu[i];
+            }
+            if (allocated != null && allocated[i] >= 0) {
+                stats.allocatedBytes = allocated[i];
+            }
+            String lock = contendedLock(info);
+            if (lock != null) {
+                stats.blockedOn.merge(lock, 1L, Long::sum);
+                contention.merge(lock, 1L, Long::sum);
+            }
+        }
+        sampleCount++;
+    }
+
+    // "Lock@hash at frame" for a thread waiting to acquire a lock, otherwise null
+    private static String contendedLock(ThreadInfo info) {
+        LockInfo lock = info.getLockInfo();
+        if (lock == null) {
+            return null;
+        }
+        Thread.State state = info.getThreadState();
+        boolean parkedOnLock = (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING)
+                && lock.getClassName().startsWith("java.util.concurrent.locks.");
+        if (state != Thread.State.BLOCKED && !parkedOnLock) {
+            return null;  // Object.wait(), sleep, join, queue takes: waiting, but not for a lock
+        }
+        String name = lock.getClassName() + "@" + Integer.toHexString(lock.getIdentityHashCode());
+        String frame = applicationFrame(info.getStackTrace());
+        return frame == null ? name : name + " at " + frame;
+    }
+
+    private static String applicationFrame(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith("java.") && !className.startsWith("jdk.") && !className.startsWith("sun.")) {
+                return className + "." + frame.getMethodName() + ":" + frame.getLineNumber();
+            }
+        }
+        return null;
+    }
+
+    // Stops sampling after one final sample
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        sampler.interrupt();
+        try {
+            sampler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sample();
+        stoppedAt = System.nanoTime();
+    }
+
+    public long intervalMillis() {
+        return intervalMillis;
+    }
+
+    public long sampleCount() {
+        return sampleCount;
+    }
+
+    public long elapsedNanos() {
+        return (stoppedAt == 0 ? System.nanoTime() : stoppedAt) - startedAt;
+    }
+
+    // Threads sorted by CPU time, highest first
+    public List<ThreadStats> threads() {
+        List<ThreadStats> sorted = new ArrayList<>(threads.values());
+        sorted.sort(Comparator.comparingLong(ThreadStats::cpuNanos).reversed());
+        return sorted;
+    }
+
+    // Contended locks sorted by waiting samples, highest first
+    public List<Map.Entry<String, Long>> contention() {
+        List<Map.Entry<String, Long>> sorted = new ArrayList<>(contention.entrySet());
+        sorted.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return sorted;
+    }
+
+    public void printSummary(PrintWriter out) {
+        out.printf("Profile: %d samples every %d ms over %.1f s%n",
+                sampleCount, intervalMillis, elapsedNanos() / 1e9);
+        out.printf("%-28s %10s %10s %10s %10s %10s %12s%n",
+                "thread", "cpu ms", "runnable", "blocked", "waiting", "timed", "allocated");
+        for (ThreadStats stats : threads()) {
+            out.printf("%-28s %10.1f %9.0f%% %9.0f%% %9.0f%% %9.0f%% %12s%n", truncate(stats.name, 28),
+                    stats.cpuNanos / 1e6, percent(stats, Thread.State.RUNNABLE), percent(stats, Thread.State.BLOCKED),
+                    percent(stats, Thread.State.WAITING), percent(stats, Thread.State.TIMED_WAITING),
+                    bytes(stats.allocatedBytes));
+        }
+        if (!contention.isEmpty()) {
+            out.println("Waiting for locks (estimated ms, all threads):");
+            for (Map.Entry<String, Long> entry : contention()) {
+                out.printf("  %8d ms  %s%n", entry.getValue() * intervalMillis, entry.getKey());
+            }
+        }
+        out.flush();
+    }
+
+    // One row per thread; blocked_on lists "lock=ms" pairs separated by '|'
+    public void writeCsv(Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("thread,id,samples,runnable,blocked,waiting,timed_waiting,cpu_ms,allocated_bytes,blocked_on");
+            for (ThreadStats stats : threads()) {
+                StringBuilder blockedOn = new StringBuilder();
+                for (Map.Entry<String, Long> entry : stats.blockedOn.entrySet()) {
+                    if (blockedOn.length() > 0) {
+                        blockedOn.append('|');
+                    }
+                    blockedOn.append(entry.getKey()).append('=').append(entry.getValue() * intervalMillis);
+                }
+                out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%.3f,%d,%s%n", csv(stats.name), stats.id,
+                        stats.totalSamples(), stats.samples(Thread.State.RUNNABLE), stats.samples(Thread.State.BLOCKED),
+                        stats.samples(Thread.State.WAITING), stats.samples(Thread.State.TIMED_WAITING),
+                        stats.cpuNanos / 1e6, stats.allocatedBytes, csv(blockedOn.toString()));
+            }
+        }
+    }
+
+    public void writeJson(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file)) {
+            StringBuilder json = new StringBuilder();
+            json.append("{\n  \"intervalMillis\": ").append(intervalMillis)
+                    .append(",\n  \"samples\": ").append(sampleCount)
+                    .append(",\n  \"elapsedMillis\": ").append(elapsedNanos() / 1_000_000)
+                    .append(",\n  \"threads\": [");
+            String separator = "\n";
+            for (ThreadStats stats : threads()) {
+                json.append(separator).append("    {\"name\": ").append(jsonString(stats.name))
+                        .append(", \"id\": ").append(stats.id)
+                        .append(", \"cpuMillis\": ").append(String.format(Locale.ROOT, "%.3f", stats.cpuNanos / 1e6))
+                        .append(", \"allocatedBytes\": ").append(stats.allocatedBytes)
+                        .append(", \"states\": {");
+                String stateSeparator = "";
+                for (Map.Entry<Thread.State, Long> entry : stats.samples.entrySet()) {
+                    json.append(stateSeparator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+                    stateSeparator = ", ";
+                }
+                json.append("}, \"blockedOnMillis\": ");
+                appendLockMap(json, stats.blockedOn.entrySet());
+                json.append('}');
+                separator = ",\n";
+            }
+            json.append("\n  ],\n  \"contentionMillis\": ");
+            appendLockMap(json, contention());
+            json.append("\n}\n");
+            out.write(json.toString());
+        }
+    }
+
+    // Picks CSV or JSON from the file extension
+    public void write(Path file) throws IOException {
+        if (file.toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+            writeJson(file);
+        } else {
+            writeCsv(file);
+        }
+    }
+
+    private void appendLockMap(StringBuilder json, Iterable<Map.Entry<String, Long>> entries) {
+        json.append('{');
+        String separator = "";
+        for (Map.Entry<String, Long> entry : entries) {
+            json.append(separator).append(jsonString(entry.getKey())).append(": ").append(entry.getValue() * intervalMillis);
+            separator = ", ";
+        }
+        json.append('}');
+    }
+
+    private static double percent(ThreadStats stats, Thread.State state) {
+        long total = stats.totalSamples();
+        return total == 0 ? 0 : 100.0 * stats.samples(state) / total;
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes >= 1 << 20) {
+            return String.format("%.1f MiB", bytes / (double) (1 << 20));
+        }
+        return String.format("%.1f KiB", bytes / 1024.0);
+    }
+
+    private static String truncate(String text, int length) {
+        return text.length() <= length ? text : text.substring(0, length - 1) + "~";
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder escaped = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.append('"').toString();
+    }
+}
@@ -0,0 +1,84 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import threadSafeCollection.AtomicScoreStore;
+
+/**
+ * Measures append throughput and recovery time of `PersistentScoreStore`.
+ * 
+ * Usage: `java persistence.PersistenceExample [directory] [threads] [updatesPerThread] [users]`
+ * 
+ * What this code does:
+ * 1. Opens (or recovers) the store in `directory` and prints how long recovery took.
+ * 2. Runs `threads` threads that add random deltas to random users, and prints the update
+ *    throughput and how many records the flusher appended, forced and compacted. An update
+ *    rejected because the flusher is too far behind is retried.
+ * 3. Closes the store, reopens it from disk and checks that the recovered scores are
+ *    exactly the scores that were in memory before the restart.
+ */
+public class PersistenceExample {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "score-data");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int updates = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+
+        PersistentScoreStore store = open(directory);
+        System.out.printf("Recovered %d log records in %.1f ms%n",
+                store.recoveredRecords(), store.recoveryNanos() / 1e6);
+        for (int i = 0; i < users; i++) {
+            if (store.getScore("User" + i, Long.MIN_VALUE) == Long.MIN_VALUE) {
+                store.putScore("User" + i, 0);
+            }
+        }
+
+        Runnable task = () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < updates; i++) {
+                String user = "User" + random.nextInt(users);
+                int delta = random.nextInt(1, 100);
+                while (true) {
+                    try {
+                        store.addScore(user, delta);
+                        break;
+                    } catch (RejectedExecutionException e) {
+                        Thread.yield();  // The flusher is behind; nothing was changed, so try again
+                    }
+                }
+            }
+        };
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(task, "Updater-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        Map<String, Long> before = store.snapshot();
+        store.close();
+
+        long total = (long) threads * updates;
+        System.out.printf("%d updates in %d ms (%.0f updates/s); %d records appended, %d forces, %d compactions, "
+                + "%d rejected while the flusher was behind%n", total, elapsed / 1_000_000, total * 1e9 / elapsed,
+                store.appendedRecords(), store.forces(), store.compactions(), store.rejectedChanges());
+
+        PersistentScoreStore reopened = open(directory);
+        System.out.printf("Reopened: replayed %d log records in %.1f ms, scores match: %b%n",
+                reopened.recoveredRecords(), reopened.recoveryNanos() / 1e6, before.equals(reopened.snapshot()));
+        reopened.close();
+    }
+
+    private static PersistentScoreStore open(Path directory) throws IOException {
+        return PersistentScoreStore.open(directory, new AtomicScoreStore(), 5, TimeUnit.MILLISECONDS, 64L << 20);
+    }
+}
@@ -0,0 +1,310 @@
+package persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjLongConsumer;
+
+import threadSafeCollection.ScoreStore;
+
+/**
+ * A `ScoreStore` whose changes survive a restart, using write-behind persistence.
+ * 
+ * How it works:
+ * - Updates go to the in-memory delegate store, and the change is put on a lock-free queue
+ *   under the same striped lock, so the changes of one user are queued (and logged) in the
+ *   order memory applied them. The updater then returns; it never waits for the disk.
+ * - The queue holds at most `maxQueued` changes. When the disk falls that far behind, further
+ *   updates are rejected with `RejectedExecutionException` before they change anything, and
+ *   counted in `rejectedChanges()`, instead of letting the heap grow without limit.
+ * - A background flusher thread drains the queue and appends the changes to a memory-mapped
+ *   `ScoreLog`. It forces the log to disk at most once per flush interval, so many changes
+ *   share one `force()` (group commit).
+ * - When the log grows past the compaction threshold, the flusher writes a `ScoreSnapshot`
+ *   of everything it has logged so far and starts a new, empty log.
+ * - `open()` rebuilds the scores by loading the snapshot and replaying the log written after it.
+ * 
+ * Durability: changes that are still queued, or appended but not yet forced, are lost if the
+ * process crashes. `close()` drains the queue and forces the log. The flusher keeps its own
+ * copy of the logged scores for snapshots, so the process holds the scores twice.
+ */
+public class PersistentScoreStore implements ScoreStore, AutoCloseable {
+    private static final String LOG_FILE = "scores.log";
+    private static final String SNAPSHOT_FILE = "scores.snapshot";
+
+    // Upper bound on records appended between two checks of the flush interval
+    private static final int MAX_DRAIN = 8192;
+
+    // Default bound on changes waiting for the flusher
+    public static final int DEFAULT_MAX_QUEUED = 1 << 18;
+
+    private static final int LOCK_STRIPES = 64;  // Power of two
+
+    // One queued change; `user` is encoded by the flusher, not by the updater
+    private static final class Change {
+        final byte type;
+        final String user;
+        final long value;
+
+        Change(byte type, String user, long value) {
+            this.type = type;
+            this.user = user;
+            this.value = value;
+        }
+    }
+
+    private final ScoreStore delegate;
+    private final Path snapshotPath;
+    private final ScoreLog log;
+    private final long flushIntervalNanos;
+    private final long compactThresholdBytes;
+    private final Map<String, Long> logged;  // Scores as of the last appended record, owned by the flusher
+    private final ConcurrentLinkedQueue<Change> queue = new ConcurrentLinkedQueue<>();
+    private final int maxQueued;
+    private final AtomicInteger queued = new AtomicInteger();  // Reserved or waiting places in the queue
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final LongAdder rejectedChanges = new LongAdder();
+    private final Thread flusher;
+    private volatile boolean running = true;
+    private volatile IOException flushFailure;
+
+    private final long recoveryNanos;
+    private final long recoveredRecords;
+    private final AtomicLong appendedRecords = new AtomicLong();
+    private final AtomicLong forces = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+
+    private PersistentScoreStore(ScoreStore delegate, Path snapshotPath, ScoreLog log, Map<String, Long> logged,
+            long flushIntervalNanos, long compactThresholdBytes, int maxQueued, long recoveryNanos,
+            long recoveredRecords) {
+        this.delegate = delegate;
+        this.snapshotPath = snapshotPath;
+        this.log = log;
+        this.logged = logged;
+        this.flushIntervalNanos = flushIntervalNanos;
+        this.compactThresholdBytes = compactThresholdBytes;
+        this.maxQueued = maxQueued;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.recoveryNanos = recoveryNanos;
+        this.recoveredRecords = recoveredRecords;
+        this.flusher = new Thread(this::flushLoop, "ScoreFlusher");
+        this.flusher.setDaemon(true);
+    }
+
+    // Like the full `open()`, with at most `DEFAULT_MAX_QUEUED` changes waiting for the flusher
+    public static PersistentScoreStore open(Path directory, ScoreStore delegate, long flushInterval, TimeUnit unit,
+            long compactThresholdBytes) throws IOException {
+        return open(directory, delegate, flushInterval, unit, compactThresholdBytes, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Recovers the scores stored in `directory` into `delegate` and starts the flusher.
+     * 
+     * @param delegate an empty in-memory store that serves reads and writes
+     * @param flushInterval the longest time between two forces of the log
+     * @param compactThresholdBytes log size that triggers a snapshot
+     * @param maxQueued changes allowed to wait for the flusher; further updates are rejected
+     */
+    public static PersistentScoreStore open(Path directory, ScoreStore delegate, long flushInterval, TimeUnit unit,
+            long compactThresholdBytes, int maxQueued) throws IOException {
+        if (maxQueued < 1) {
+            throw new IllegalArgumentException("maxQueued must be at least 1");
+        }
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+
+        Map<String, Long> recovered = new HashMap<>();
+        Path snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        long coveredGeneration = ScoreSnapshot.read(snapshotPath, recovered);
+        long[] replayed = new long[1];
+        ScoreLog log = ScoreLog.open(directory.resolve(LOG_FILE), coveredGeneration, (type, user, value) -> {
+            if (type == ScoreLog.SET) {
+                recovered.put(user, value);
+            } else {
+                recovered.merge(user, value, Long::sum);
+            }
+            replayed[0]++;
+        });
+        recovered.forEach(delegate::putScore);
+        long recoveryNanos = System.nanoTime() - start;
+
+        PersistentScoreStore store = new PersistentScoreStore(delegate, snapshotPath, log, recovered,
+                unit.toNanos(flushInterval), compactThresholdBytes, maxQueued, recoveryNanos, replayed[0]);
+        store.flusher.start();
+        return store;
+    }
+
+    @Override
+    public void putScore(String user, long score) {
+        reserve();
+        boolean logged = false;
+        try {
+            synchronized (lockOf(user)) {
+                delegate.putScore(user, score);
+                logged = queue.offer(new Change(ScoreLog.SET, user, score));
+            }
+        } finally {
+            if (!logged) {
+                queued.decrementAndGet();  // The delegate threw, e.g. a full IndexedScoreStore
+            }
+        }
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        reserve();
+        boolean logged = false;
+        try {
+            synchronized (lockOf(user)) {
+                if (!delegate.addScore(user, delta)) {
+                    return false;  // Unknown user: nothing to log
+                }
+                logged = queue.offer(new Change(ScoreLog.ADD, user, delta));
+            }
+            return true;
+        } finally {
+            if (!logged) {
+                queued.decrementAndGet();  // Release the place, also when the delegate threw
+            }
+        }
+    }
+
+    // Takes a place in the queue before anything is changed, so a rejected update changes nothing
+    private void reserve() {
+        if (flushFailure != null) {
+            throw new UncheckedIOException("Score log is no longer writable", flushFailure);
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejectedChanges.increment();
+            throw new RejectedExecutionException("Score log is " + maxQueued + " changes behind");
+        }
+    }
+
+    private Object lockOf(String user) {
+        int hash = user.hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        return delegate.getScore(user, defaultValue);
+    }
+
+    @Override
+    public boolean containsUser(String user) {
+        return delegate.containsUser(user);
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        return delegate.snapshot();
+    }
+
+    private void flushLoop() {
+        long lastForce = System.nanoTime();
+        long unforced = 0;
+        try {
+            while (running || !queue.isEmpty()) {
+                Change change;
+                int drained = 0;
+                while (drained < MAX_DRAIN && (change = queue.poll()) != null) {
+                    log.append(change.type, change.user.getBytes(StandardCharsets.UTF_8), change.value);
+                    if (change.type == ScoreLog.SET) {
+                        logged.put(change.user, change.value);
+                    } else {
+                        logged.merge(change.user, change.value, Long::sum);
+                    }
+                    drained++;
+                }
+                queued.addAndGet(-drained);
+                appendedRecords.addAndGet(drained);
+                unforced += drained;
+
+                long now = System.nanoTime();
+                if (unforced > 0 && now - lastForce >= flushIntervalNanos) {
+                    log.force();  // Group commit: one force for everything appended since the last one
+                    forces.incrementAndGet();
+                    unforced = 0;
+                    lastForce = now;
+                }
+                if (log.size() >= compactThresholdBytes) {
+                    compact();
+                }
+                if (drained == 0) {
+                    LockSupport.parkNanos(Math.min(flushIntervalNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+                }
+            }
+            log.force();
+            forces.incrementAndGet();
+        } catch (IOException e) {
+            flushFailure = e;
+        }
+    }
+
+    // Snapshot everything logged so far, then start a new log generation
+    private void compact() throws IOException {
+        log.force();
+        ScoreSnapshot.write(snapshotPath, log.generation(), logged);
+        log.reset();
+        compactions.incrementAndGet();
+    }
+
+    // Stops accepting background work, drains the queue and forces the log
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+    }
+
+    public long recoveryNanos() {
+        return recoveryNanos;
+    }
+
+    public long recoveredRecords() {
+        return recoveredRecords;
+    }
+
+    public long appendedRecords() {
+        return appendedRecords.get();
+    }
+
+    public long forces() {
+        return forces.get();
+    }
+
+    public long compactions() {
+        return compactions.get();
+    }
+
+    // Updates rejected because `maxQueued` changes were already waiting for the flusher
+    public long rejectedChanges() {
+        return rejectedChanges.sum();
+    }
+}
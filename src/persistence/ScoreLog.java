@@ -0,0 +1,178 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only log of score changes, written through a `MappedByteBuffer`.
+ * 
+ * File layout:
+ * - Header (16 bytes): magic number (int), unused (int), generation (long).
+ * - Records, back to back: length (int) | type (byte) | value (long) | user (UTF-8 bytes).
+ *   `length` is the number of user bytes plus one, so it is never 0.
+ * - The rest of the mapped region is zero. Recovery stops at the first record whose length is 0.
+ * 
+ * A record is written body first and its length last. Until the length is written the
+ * record still looks like the zero tail, so a crash in the middle of an append leaves a
+ * log that simply ends before that record.
+ * 
+ * Not thread-safe: only the background flusher of `PersistentScoreStore` writes to it.
+ */
+class ScoreLog implements AutoCloseable {
+    static final byte SET = 1;  // value is the new absolute score
+    static final byte ADD = 2;  // value is a delta to add
+
+    private static final int MAGIC = 0x53434C47;  // "SCLG"
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_OVERHEAD = 4 + 1 + 8;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+
+    // Receives the records found during recovery
+    interface RecordVisitor {
+        void visit(byte type, String user, long value);
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long generation;
+
+    private ScoreLog(Path path, FileChannel channel, MappedByteBuffer buffer, long generation) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.generation = generation;
+    }
+
+    /**
+     * Opens the log at `path`, creating an empty one of generation `coveredGeneration + 1`
+     * if it does not exist. Appends continue after the last valid record.
+     * 
+     * Records are passed to the visitor only if the log is newer than `coveredGeneration`.
+     * An older log is already contained in the snapshot, and is reset to a new empty generation.
+     */
+    static ScoreLog open(Path path, long coveredGeneration, RecordVisitor visitor) throws IOException {
+        long newGeneration = coveredGeneration + 1;
+        if (!Files.exists(path)) {
+            createEmpty(path, newGeneration);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), INITIAL_CAPACITY);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a score log: " + path);
+        }
+        long generation = buffer.getLong(8);
+        boolean replay = generation > coveredGeneration;
+
+        // Scan (and if the log is not stale, replay) records until the zero tail
+        int pos = HEADER_SIZE;
+        byte[] scratch = new byte[64];
+        while (pos + RECORD_OVERHEAD <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length <= 0 || pos + RECORD_OVERHEAD + length - 1 > buffer.capacity()) {
+                break;
+            }
+            byte type = buffer.get(pos + 4);
+            long value = buffer.getLong(pos + 5);
+            int userLength = length - 1;
+            if (scratch.length < userLength) {
+                scratch = new byte[userLength];
+            }
+            buffer.get(pos + RECORD_OVERHEAD, scratch, 0, userLength);
+            if (replay) {
+                visitor.visit(type, new String(scratch, 0, userLength, StandardCharsets.UTF_8), value);
+            }
+            pos += RECORD_OVERHEAD + userLength;
+        }
+        buffer.position(pos);
+        ScoreLog log = new ScoreLog(path, channel, buffer, generation);
+        if (!replay) {
+            log.reset(newGeneration);
+        }
+        return log;
+    }
+
+    private static void createEmpty(Path path, long generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(0).putLong(generation).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.write(header);
+            channel.force(true);
+        }
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    // Bytes used by the header and all records so far
+    long size() {
+        return buffer.position();
+    }
+
+    void append(byte type, byte[] user, long value) throws IOException {
+        int recordSize = RECORD_OVERHEAD + user.length;
+        if (buffer.remaining() < recordSize) {
+            grow(recordSize);
+        }
+        int pos = buffer.position();
+        buffer.put(pos + 4, type);
+        buffer.putLong(pos + 5, value);
+        buffer.put(pos + RECORD_OVERHEAD, user);
+        buffer.putInt(pos, user.length + 1);  // Written last: publishes the record
+        buffer.position(pos + recordSize);
+    }
+
+    // Forces all appended records to the storage device (the group commit)
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Replaces the log with an empty one of the next generation. The caller must have made
+     * every record of the current generation durable elsewhere (in a snapshot) first.
+     */
+    void reset() throws IOException {
+        reset(generation + 1);
+    }
+
+    private void reset(long newGeneration) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        createEmpty(tmp, newGeneration);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel.close();  // The old mapping stays valid until it is garbage collected; it is no longer used
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+        buffer.position(HEADER_SIZE);
+        generation = newGeneration;
+    }
+
+    // Remaps the file with at least `needed` more free bytes; the new region is zero-filled
+    private void grow(int needed) throws IOException {
+        buffer.force();
+        int pos = buffer.position();
+        long newSize = Math.max((long) buffer.capacity() * 2, (long) pos + needed);
+        if (newSize > Integer.MAX_VALUE) {
+            throw new IOException("Score log exceeds 2 GB; compact more often");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+        buffer.position(pos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,75 @@
+package persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Binary snapshot of all scores, used to compact the `ScoreLog`.
+ * 
+ * File layout: magic (int) | covered log generation (long) | entry count (int), followed by
+ * `entry count` entries of user (`writeUTF`) | score (long).
+ * 
+ * The covered generation says which log the snapshot already contains: on recovery a log
+ * with that generation (or older) is skipped, because replaying it would apply its deltas twice.
+ */
+final class ScoreSnapshot {
+    private static final int MAGIC = 0x53434E50;  // "SCNP"
+
+    private ScoreSnapshot() {
+    }
+
+    // Writes to a temporary file, forces it to disk and then atomically replaces the old snapshot
+    static void write(Path path, long coveredGeneration, Map<String, Long> scores) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeLong(coveredGeneration);
+            out.writeInt(scores.size());
+            for (Map.Entry<String, Long> entry : scores.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot into `scores` and returns the covered log generation,
+     * or -1 if there is no snapshot yet.
+     */
+    static long read(Path path, Map<String, Long> scores) throws IOException {
+        if (!Files.exists(path)) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a score snapshot: " + path);
+            }
+            long coveredGeneration = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                scores.put(in.readUTF(), in.readLong());
+            }
+            return coveredGeneration;
+        } catch (EOFException e) {
+            throw new IOException("Truncated score snapshot: " + path, e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package priority;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import execution.CpuKernel;
+
+/**
+ * Measures whether `Thread.setPriority()` changes how the scheduler treats threads.
+ * 
+ * Usage: `java priority.PriorityFairnessReport [threadsPerLevel] [chunks] [unitsPerChunk]`
+ * 
+ * What this code does:
+ * - Starts `threadsPerLevel` threads for each of MAX_PRIORITY, NORM_PRIORITY and MIN_PRIORITY,
+ *   the three levels used by `PriorityThread`. By default there is one thread per level per
+ *   core, so the threads have to compete for CPU time.
+ * - All threads wait on a latch and start together. Each runs `chunks` chunks of `CpuKernel`
+ *   work and publishes its progress after every chunk. The work allocates nothing.
+ * - A sampler records the progress of every thread at fixed intervals, so we can see how
+ *   far each priority level got over time, not just who finished first.
+ * 
+ * Report per priority level:
+ * - CPU time per thread (from `ThreadMXBean.getCurrentThreadCpuTime()`, read by the thread itself),
+ * - average finishing position (1 = first thread to finish) and wall-clock completion time,
+ * - average progress at 25%, 50% and 75% of the run.
+ * 
+ * If priorities have no effect (the default on Linux), all three levels show about the
+ * same numbers.
+ */
+public class PriorityFairnessReport {
+    private static final int[] LEVELS = { Thread.MAX_PRIORITY, Thread.NORM_PRIORITY, Thread.MIN_PRIORITY };
+    private static final long SAMPLE_INTERVAL_MILLIS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        int perLevel = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int chunks = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int unitsPerChunk = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean.isThreadCpuTimeSupported()) {
+            threadBean.setThreadCpuTimeEnabled(true);
+        }
+
+        int total = perLevel * LEVELS.length;
+        AtomicIntegerArray progress = new AtomicIntegerArray(total);  // Chunks done per thread
+        long[] cpuNanos = new long[total];
+        long[] finishNanos = new long[total];
+        int[] finishOrder = new int[total];
+        AtomicInteger finished = new AtomicInteger();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        long[] sinks = new long[total];
+
+        Thread[] threads = new Thread[total];
+        for (int t = 0; t < total; t++) {
+            final int index = t;
+            int priority = LEVELS[t / perLevel];
+            threads[t] = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long sink = 0;
+                for (int c = 0; c < chunks; c++) {
+                    sink += CpuKernel.run(unitsPerChunk, sink + c);
+                    progress.lazySet(index, c + 1);
+                }
+                sinks[index] = sink;
+                cpuNanos[index] = threadBean.getCurrentThreadCpuTime();
+                finishNanos[index] = System.nanoTime();
+                finishOrder[index] = finished.incrementAndGet();
+            }, "Priority" + priority + "-" + (t % perLevel));
+            threads[t].setPriority(priority);
+            threads[t].start();
+        }
+
+        // Progress samples: one row per sampling interval, one column per thread
+        int maxSamples = 100_000;
+        int[][] samples = new int[maxSamples][];
+        int sampleCount = 0;
+
+        long start = System.nanoTime();
+        startSignal.countDown();
+        while (finished.get() < total && sampleCount < maxSamples) {
+            int[] row = new int[total];
+            for (int t = 0; t < total; t++) {
+                row[t] = progress.get(t);
+            }
+            samples[sampleCount++] = row;
+            Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        long checksum = 0;
+        for (long sink : sinks) {
+            checksum += sink;
+        }
+        System.out.printf("%d threads (%d per level) on %d cores, %d chunks x %d units each, wall time %d ms (checksum %x)%n",
+                total, perLevel, Runtime.getRuntime().availableProcessors(), chunks, unitsPerChunk,
+                wallNanos / 1_000_000, checksum);
+        System.out.printf("%-9s %12s %14s %14s %8s %8s %8s%n",
+                "priority", "cpu ms/thr", "avg finish pos", "avg finish ms", "p@25%", "p@50%", "p@75%");
+        for (int level = 0; level < LEVELS.length; level++) {
+            double cpuMs = 0;
+            double position = 0;
+            double finishMs = 0;
+            for (int t = level * perLevel; t < (level + 1) * perLevel; t++) {
+                cpuMs += cpuNanos[t] / 1e6;
+                position += finishOrder[t];
+                finishMs += (finishNanos[t] - start) / 1e6;
+            }
+            System.out.printf("%-9d %12.1f %14.1f %14.1f %7.0f%% %7.0f%% %7.0f%%%n",
+                    LEVELS[level], cpuMs / perLevel, position / perLevel, finishMs / perLevel,
+                    progressAt(samples, sampleCount, 0.25, level, perLevel, chunks),
+                    progressAt(samples, sampleCount, 0.50, level, perLevel, chunks),
+                    progressAt(samples, sampleCount, 0.75, level, perLevel, chunks));
+        }
+    }
+
+    // Average progress (in percent of all chunks) of one priority level at a fraction of the run
+    private static double progressAt(int[][] samples, int sampleCount, double fraction, int level, int perLevel, int chunks) {
+        if (sampleCount == 0) {
+            return 100;
+        }
+        int[] row = samples[Math.min(sampleCount - 1, (int) (sampleCount * fraction))];
+        double sum = 0;
+        for (int t = level * perLevel; t < (level + 1) * perLevel; t++) {
+            sum += row[t];
+        }
+        return 100.0 * sum / perLevel / chunks;
+    }
+}
@@ -0,0 +1,369 @@
+package priority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import metrics.LogHistogram;
+
+/**
+ * Executor that runs tasks by priority on a fixed pool of worker threads, instead of relying
+ * on `Thread.setPriority()`, which Linux ignores by default (see `PriorityFairnessReport`).
+ * 
+ * Key Concepts:
+ * - **Per-priority queues**: there is one FIFO queue per priority level, from
+ *   `Thread.MIN_PRIORITY` (1) to `Thread.MAX_PRIORITY` (10). A free worker takes the head of
+ *   the queue with the highest effective priority (see aging), so picking a task looks at 10
+ *   queue heads no matter how many tasks are waiting.
+ * - **Aging**: a level's effective priority grows with the time it has been waiting since a
+ *   task of that level last started: `priority + waited / agingNanos`. The level with the
+ *   highest effective priority is served next; ties go to the higher priority. Serving a level
+ *   resets its wait, so when the upper levels keep every worker busy, a level `k` steps below
+ *   the busiest one still gets a task started about every `k * agingNanos`. Low-priority work
+ *   gets a small but guaranteed share instead of starving, and the upper levels keep the rest.
+ * - **Checkpoints**: the scheduler cannot interrupt a running task, but a long task can call
+ *   `checkpoint()` between steps. If a free worker would now pick a task of a higher priority
+ *   than the running one, the worker runs that task right there, then returns to the long
+ *   task. Each nested task has a higher priority than the one it interrupts, so nesting is at
+ *   most 9 levels deep. Outside a scheduler task, `checkpoint()` does nothing.
+ * - Per priority level, the scheduler records the time tasks waited in the queue, how many
+ *   completed and how much worker time they used.
+ * 
+ * `execute()` and the inherited `submit()` methods use `NORM_PRIORITY`; the overloads with a
+ * priority argument choose the level.
+ */
+public class PriorityScheduler extends AbstractExecutorService {
+
+    private static final int LEVELS = Thread.MAX_PRIORITY + 1;  // Indexed by priority; 0 is unused
+
+    // The task a worker is running, so checkpoint() knows whom it might interrupt
+    private static final ThreadLocal<Running> RUNNING = new ThreadLocal<>();
+
+    private final long agingNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Condition terminated = lock.newCondition();
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final ArrayDeque<Entry>[] queues = new ArrayDeque[LEVELS];
+    private final long[] lastStarted = new long[LEVELS];  // When a task of each level last started
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile int queued;  // Tasks waiting in all queues; read without the lock by checkpoint()
+    private int liveWorkers;
+    private boolean shutdown;
+
+    private final LogHistogram[] waitTimes = new LogHistogram[LEVELS];
+    private final AtomicLongArray completed = new AtomicLongArray(LEVELS);
+    private final AtomicLongArray runNanos = new AtomicLongArray(LEVELS);
+    private final LongAdder preemptions = new LongAdder();
+    private final LongAdder agedDispatches = new LongAdder();
+
+    /**
+     * @param workers    number of worker threads
+     * @param agingTime  waiting time that one priority level is worth
+     */
+    public PriorityScheduler(int workers, long agingTime, TimeUnit unit) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1");
+        }
+        // Capped so that priority * agingNanos cannot overflow; a year is as good as no aging at all
+        this.agingNanos = Math.max(1, Math.min(unit.toNanos(agingTime), TimeUnit.DAYS.toNanos(365)));
+        long now = System.nanoTime();
+        for (int p = Thread.MIN_PRIORITY; p < LEVELS; p++) {
+            lastStarted[p] = now;
+            queues[p] = new ArrayDeque<>();
+            waitTimes[p] = new LogHistogram();
+        }
+        this.liveWorkers = workers;
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::workLoop, "PriorityScheduler-" + i);
+            worker.setDaemon(true);
+            this.workers.add(worker);
+        }
+        this.workers.forEach(Thread::start);
+    }
+
+    private static final class Entry {
+        final Runnable task;
+        final int priority;
+        final long enqueuedNanos = System.nanoTime();
+
+        Entry(Runnable task, int priority) {
+            this.task = task;
+            this.priority = priority;
+        }
+    }
+
+    private static final class Running {
+        final PriorityScheduler scheduler;
+        Entry entry;       // The task at the innermost checkpoint
+        long nestedNanos;  // Time the current task spent running other tasks at its checkpoints
+
+        Running(PriorityScheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        execute(command, Thread.NORM_PRIORITY);
+    }
+
+    public void execute(Runnable command, int priority) {
+        enqueue(command, priority);
+    }
+
+    public Future<?> submit(Runnable task, int priority) {
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        enqueue(future, priority);
+        return future;
+    }
+
+    public <T> Future<T> submit(Callable<T> task, int priority) {
+        FutureTask<T> future = new FutureTask<>(task);
+        enqueue(future, priority);
+        return future;
+    }
+
+    private void enqueue(Runnable task, int priority) {
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("priority must be between 1 and 10: " + priority);
+        }
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Scheduler is shut down");
+            }
+            queues[priority].addLast(new Entry(task, priority));
+            queued++;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lets more important waiting tasks run before the calling task continues. Call it between the
+     * steps of a long task; it is a single volatile read when nothing is waiting.
+     */
+    public static void checkpoint() {
+        Running running = RUNNING.get();
+        if (running == null || running.scheduler.queued == 0) {
+            return;
+        }
+        running.scheduler.runMoreImportant(running);
+    }
+
+    private void runMoreImportant(Running running) {
+        while (true) {
+            Entry next;
+            lock.lock();
+            try {
+                next = pick();
+                if (next == null || next.priority <= running.entry.priority) {
+                    return;  // The next task a free worker would take is not more important than this one
+                }
+                remove(next);
+            } finally {
+                lock.unlock();
+            }
+            preemptions.increment();
+            Entry interrupted = running.entry;
+            run(next, running);
+            running.entry = interrupted;
+        }
+    }
+
+    private void workLoop() {
+        Running running = new Running(this);
+        RUNNING.set(running);
+        try {
+            while (true) {
+                Entry next;
+                lock.lock();
+                try {
+                    while ((next = pick()) == null) {
+                        if (shutdown) {
+                            return;
+                        }
+                        available.await();
+                    }
+                    remove(next);
+                } finally {
+                    lock.unlock();
+                }
+                run(next, running);
+            }
+        } catch (InterruptedException e) {
+            // shutdownNow(): stop without running the remaining tasks
+        } finally {
+            RUNNING.remove();
+            lock.lock();
+            try {
+                if (--liveWorkers == 0) {
+                    terminated.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void run(Entry entry, Running running) {
+        long start = System.nanoTime();
+        waitTimes[entry.priority].record(start - entry.enqueuedNanos);
+        running.entry = entry;
+        long outerNested = running.nestedNanos;
+        running.nestedNanos = 0;
+        try {
+            entry.task.run();
+        } catch (RuntimeException | Error e) {
+            // A failing task must not take the worker down; tasks from submit() keep their exception in the Future
+            Thread current = Thread.currentThread();
+            current.getUncaughtExceptionHandler().uncaughtException(current, e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            runNanos.addAndGet(entry.priority, elapsed - running.nestedNanos);  // Without tasks run at its checkpoints
+            completed.incrementAndGet(entry.priority);
+            running.nestedNanos = outerNested + elapsed;
+        }
+    }
+
+    // The head of the level with the highest effective priority, or null if all queues are empty. Needs the lock.
+    private Entry pick() {
+        long now = System.nanoTime();
+        Entry best = null;
+        long bestClaim = 0;
+        for (int p = Thread.MAX_PRIORITY; p >= Thread.MIN_PRIORITY; p--) {
+            Entry head = queues[p].peekFirst();
+            if (head == null) {
+                continue;
+            }
+            // The level has been waiting since its head arrived or its last task started, whichever is later
+            long since = head.enqueuedNanos - lastStarted[p] > 0 ? head.enqueuedNanos : lastStarted[p];
+            long claim = p * agingNanos + (now - since);  // (priority + waited / agingNanos) * agingNanos
+            if (best == null || claim > bestClaim) {
+                best = head;
+                bestClaim = claim;
+            }
+        }
+        return best;
+    }
+
+    private void remove(Entry entry) {
+        queues[entry.priority].pollFirst();
+        queued--;
+        lastStarted[entry.priority] = System.nanoTime();
+        for (int p = entry.priority + 1; p <= Thread.MAX_PRIORITY; p++) {
+            if (!queues[p].isEmpty()) {
+                agedDispatches.increment();  // Aging let it pass a task with a higher priority
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            available.signalAll();  // Idle workers exit once the queues are empty
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>();
+        lock.lock();
+        try {
+            shutdown = true;
+            for (int p = Thread.MAX_PRIORITY; p >= Thread.MIN_PRIORITY; p--) {
+                Entry entry;
+                while ((entry = queues[p].pollFirst()) != null) {
+                    pending.add(entry.task);
+                }
+            }
+            queued = 0;
+        } finally {
+            lock.unlock();
+        }
+        workers.forEach(Thread::interrupt);
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        lock.lock();
+        try {
+            return shutdown && liveWorkers == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!(shutdown && liveWorkers == 0)) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = terminated.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Time tasks of this priority waited between submission and start
+    public LogHistogram waitTime(int priority) {
+        return waitTimes[priority];
+    }
+
+    public long completed(int priority) {
+        return completed.get(priority);
+    }
+
+    // Worker time spent running tasks of this priority, not counting other tasks run at their checkpoints
+    public long runNanos(int priority) {
+        return runNanos.get(priority);
+    }
+
+    // Tasks that were run at another task's checkpoint
+    public long preemptions() {
+        return preemptions.sum();
+    }
+
+    // Tasks that were started ahead of a task with a higher base priority because they had aged
+    public long agedDispatches() {
+        return agedDispatches.sum();
+    }
+
+    public int queued() {
+        return queued;
+    }
+}
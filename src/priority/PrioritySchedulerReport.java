@@ -0,0 +1,184 @@
+package priority;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import execution.CpuKernel;
+
+/**
+ * Shows what `PriorityScheduler` does for the three priority levels of `PriorityThread`, which
+ * `Thread.setPriority()` does not (see `PriorityFairnessReport`).
+ * 
+ * Usage: `java priority.PrioritySchedulerReport [workers] [seconds] [loadPercent] [agingMillis]`
+ * 
+ * What this code does:
+ * - **The `PriorityThread` scenario**: the "High", "Low" and "Normal" tasks, each five rounds of
+ *   `CpuKernel` work, first as three threads with `setPriority()` and then as three tasks on a
+ *   one-worker scheduler. Prints the order in which they finish and when.
+ * - **Sustained overload**: a submitter offers tasks of the three levels in equal numbers, at
+ *   `loadPercent` (default 150) of what `workers` (default: the number of cores) can run, for
+ *   `seconds` (default 3). The two upper levels alone fill the pool. Each task is five rounds
+ *   of work with a `checkpoint()` after each round. Runs once without aging and once with
+ *   `agingMillis` (default 20) per level.
+ * - Reports per priority level: tasks submitted and completed, share of worker time, and
+ *   queue wait percentiles of the tasks that started. Without aging, `MIN_PRIORITY` tasks
+ *   starve for as long as the overload lasts; with aging they get a small, steady share and
+ *   `MAX_PRIORITY` keeps most of the pool.
+ */
+public class PrioritySchedulerReport {
+    private static final int[] LEVELS = { Thread.MAX_PRIORITY, Thread.NORM_PRIORITY, Thread.MIN_PRIORITY };
+    private static final int ROUNDS = 5;
+    private static final int UNITS_PER_ROUND = 1;
+
+    // Keeps kernel results alive so the JIT cannot drop the work
+    static volatile long sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 3;
+        int loadPercent = args.length > 2 ? Integer.parseInt(args[2]) : 150;
+        long agingMillis = args.length > 3 ? Long.parseLong(args[3]) : 20;
+
+        long taskNanos = calibrate();
+        System.out.printf("One task (%d rounds) takes %.2f ms%n%n", ROUNDS, taskNanos / 1e6);
+
+        threadScenario();
+        schedulerScenario(agingMillis, false);  // Loads and compiles the scheduler's code first
+        schedulerScenario(agingMillis, true);
+
+        System.out.printf("%nOverload: %d workers, %d%% load, %.1f s%n", workers, loadPercent, seconds);
+        overload("no aging", workers, seconds, loadPercent, taskNanos, TimeUnit.DAYS.toMillis(365));
+        overload("aging " + agingMillis + " ms", workers, seconds, loadPercent, taskNanos, agingMillis);
+    }
+
+    private static long task(long seed) {
+        long x = seed;
+        for (int round = 0; round < ROUNDS; round++) {
+            x += CpuKernel.run(UNITS_PER_ROUND, x + round);
+            PriorityScheduler.checkpoint();  // Lets more urgent tasks run between rounds
+        }
+        return x;
+    }
+
+    private static long calibrate() {
+        for (int i = 0; i < 20; i++) {
+            sink += task(i);  // Warm up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            sink += task(i);
+        }
+        return (System.nanoTime() - start) / 20;
+    }
+
+    // The original PriorityThread: three threads, priorities only as a hint to the OS
+    private static void threadScenario() throws InterruptedException {
+        String[] names = { "High Priority", "Low Priority", "Normal Priority" };
+        int[] priorities = { Thread.MAX_PRIORITY, Thread.MIN_PRIORITY, Thread.NORM_PRIORITY };
+        long[] finish = new long[3];
+        AtomicInteger order = new AtomicInteger();
+        String[] finishOrder = new String[3];
+        Thread[] threads = new Thread[3];
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                sink += task(index);
+                finish[index] = System.nanoTime();
+                finishOrder[order.getAndIncrement()] = names[index];
+            }, names[i]);
+            threads[i].setPriority(priorities[i]);
+            threads[i].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        printScenario("Threads with setPriority()", names, finish, begin, finishOrder);
+    }
+
+    // The same three tasks on a one-worker scheduler, submitted in the same order
+    private static void schedulerScenario(long agingMillis, boolean print) throws InterruptedException {
+        String[] names = { "High Priority", "Low Priority", "Normal Priority" };
+        int[] priorities = { Thread.MAX_PRIORITY, Thread.MIN_PRIORITY, Thread.NORM_PRIORITY };
+        long[] finish = new long[3];
+        String[] finishOrder = new String[3];
+        AtomicInteger order = new AtomicInteger();
+        PriorityScheduler scheduler = new PriorityScheduler(1, agingMillis, TimeUnit.MILLISECONDS);
+        Runnable[] tasks = new Runnable[3];
+        for (int i = 0; i < 3; i++) {
+            int index = i;
+            tasks[i] = () -> {
+                sink += task(index);
+                finish[index] = System.nanoTime();
+                finishOrder[order.getAndIncrement()] = names[index];
+            };
+        }
+        long begin = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            scheduler.execute(tasks[i], priorities[i]);
+        }
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        if (print) {
+            printScenario("PriorityScheduler, 1 worker", names, finish, begin, finishOrder);
+        }
+    }
+
+    private static void printScenario(String title, String[] names, long[] finish, long begin, String[] finishOrder) {
+        System.out.printf("%-28s finish order: %s%n", title, String.join(", ", finishOrder));
+        for (int i = 0; i < names.length; i++) {
+            System.out.printf("  %-16s finished after %7.2f ms%n", names[i], (finish[i] - begin) / 1e6);
+        }
+    }
+
+    private static void overload(String name, int workers, double seconds, int loadPercent, long taskNanos,
+            long agingMillis) throws InterruptedException {
+        PriorityScheduler scheduler = new PriorityScheduler(workers, agingMillis, TimeUnit.MILLISECONDS);
+        AtomicLongArray submitted = new AtomicLongArray(Thread.MAX_PRIORITY + 1);
+        // Arrivals are spaced evenly so that the offered work is loadPercent of the pool's capacity
+        long interval = Math.max(1, taskNanos * 100 / loadPercent / workers);
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        SplittableRandom random = new SplittableRandom(42);
+        long next = System.nanoTime();
+        while (next - end < 0) {
+            int priority = LEVELS[random.nextInt(LEVELS.length)];
+            long seed = next;
+            scheduler.execute(() -> sink += task(seed), priority);
+            submitted.incrementAndGet(priority);
+            next += interval;
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+        }
+        scheduler.shutdownNow();  // Whatever is still queued now was not served during the overload
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+
+        long totalRun = 0;
+        for (int priority : LEVELS) {
+            totalRun += scheduler.runNanos(priority);
+        }
+        System.out.printf("%n%s: %d preempted at checkpoints, %d started ahead of higher priorities by aging%n",
+                name, scheduler.preemptions(), scheduler.agedDispatches());
+        System.out.printf("%-9s %10s %10s %11s %11s %11s %11s%n", "priority", "submitted", "completed", "cpu share",
+                "wait p50 ms", "wait p99 ms", "wait max ms");
+        for (int priority : LEVELS) {
+            System.out.printf("%-9d %10d %10d %10.1f%% %11.1f %11.1f %11.1f%n", priority, submitted.get(priority),
+                    scheduler.completed(priority), 100.0 * scheduler.runNanos(priority) / Math.max(1, totalRun),
+                    scheduler.waitTime(priority).percentile(50) / 1e6, scheduler.waitTime(priority).percentile(99) / 1e6,
+                    scheduler.waitTime(priority).max() / 1e6);
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package raceCondition;
 
-public class Counter {
+import counterEngine.CounterStrategy;
 
-    private int count = 0;
+/**
+ * Unsynchronized counter. `count++` is a read-modify-write, so concurrent
+ * increments can overwrite each other and updates are lost.
+ * `count` is `volatile` so that `getCount()` sees the latest value. That fixes visibility
+ * only: `count++` is still a separate read and write, so updates are still lost.
+ */
+public class Counter implements CounterStrategy {
 
+    private volatile int count = 0;
+
+    @Override
     public void increment(){
         count++;
     }
 
+    @Override
+    public void add(long delta){
+        count += delta;
+    }
+
     public int getCount(){
         return count;
     }
+
+    @Override
+    public long value(){
+        return count;
+    }
     
 }
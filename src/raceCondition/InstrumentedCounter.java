@@ -0,0 +1,81 @@
+package raceCondition;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import counterEngine.CounterStrategy;
+
+/**
+ * The unsynchronized `count++` of `Counter`, instrumented to measure how many updates it loses.
+ * 
+ * Key Concepts:
+ * - `count++` is three steps: read `count`, add one, write `count`. Here the steps are
+ *   written out, exactly as the JIT executes them for `Counter`.
+ * - Every call is counted in `attempts()` (a `LongAdder`, so counting adds almost no
+ *   contention of its own). `lostUpdates()` is `attempts - count`: the increments that were
+ *   overwritten by another thread.
+ * - Just before the write, `count` is read once more. If it changed since the first read,
+ *   another thread wrote in between and this write is about to overwrite it. These conflicts
+ *   are counted per thread, which shows where the contention happens. A conflict that lands
+ *   after the second read is not seen, so `conflicts()` is a lower bound of `lostUpdates()`.
+ */
+public class InstrumentedCounter implements CounterStrategy {
+    private static final VarHandle COUNT;
+
+    static {
+        try {
+            COUNT = MethodHandles.lookup().findVarHandle(InstrumentedCounter.class, "count", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private int count = 0;
+    private final LongAdder attempts = new LongAdder();
+    private final Map<String, LongAdder> conflictsByThread = new ConcurrentHashMap<>();
+    private final ThreadLocal<LongAdder> conflicts = ThreadLocal.withInitial(
+            () -> conflictsByThread.computeIfAbsent(Thread.currentThread().getName(), name -> new LongAdder()));
+
+    @Override
+    public void increment() {
+        attempts.increment();
+        int observed = count;         // read
+        int next = observed + 1;      // modify
+        // Opaque read: a plain re-read could legally be folded into the first one by the JIT
+        if ((int) COUNT.getOpaque(this) != observed) {  // someone wrote since our read; our write will erase it
+            conflicts.get().increment();
+        }
+        count = next;                 // write
+    }
+
+    @Override
+    public void add(long delta) {
+        for (long i = 0; i < delta; i++) {
+            increment();
+        }
+    }
+
+    @Override
+    public long value() {
+        return count;
+    }
+
+    public long attempts() {
+        return attempts.sum();
+    }
+
+    public long lostUpdates() {
+        return attempts() - count;
+    }
+
+    // Detected conflicts per thread name
+    public Map<String, Long> conflicts() {
+        Map<String, Long> result = new TreeMap<>();
+        conflictsByThread.forEach((thread, adder) -> result.put(thread, adder.sum()));
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package raceCondition;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how fast the unsynchronized counter loses updates at different thread counts.
+ * 
+ * Usage: `java raceCondition.LostUpdateReport [secondsPerRun] [maxThreads]`
+ * 
+ * What this code does:
+ * - For 1, 2, 4, ... up to `maxThreads` threads (default: twice the number of cores), runs
+ *   threads that call `InstrumentedCounter.increment()` in a loop for `secondsPerRun` seconds.
+ * - While the workload runs, samples the number of lost updates every 100 ms and prints the
+ *   highest lost-updates-per-second rate seen in any interval.
+ * - Prints the total attempts, lost updates, lost percentage and the detected conflicts per
+ *   thread, i.e. which threads overwrote someone else's update most often.
+ * 
+ * The count is an `int`, so keep runs short enough that it does not overflow. Samples are taken
+ * while increments are in flight, so a single sample can be off by up to the number of threads.
+ */
+public class LostUpdateReport {
+    private static final long SAMPLE_MILLIS = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 1.0;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+
+        System.out.printf("%-8s %14s %12s %8s %14s %14s%n",
+                "threads", "attempts", "lost", "lost %", "avg lost/s", "peak lost/s");
+        for (int threads = 1; ; threads = Math.min(maxThreads, threads * 2)) {
+            run(threads, (long) (seconds * 1000));
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private static void run(int threads, long durationMillis) throws InterruptedException {
+        InstrumentedCounter counter = new InstrumentedCounter();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        // Each worker stops on its own after the duration, so no shared stop flag is read in the loop
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long end = System.nanoTime() + durationMillis * 1_000_000;
+                while (System.nanoTime() < end) {
+                    for (int i = 0; i < 1000; i++) {
+                        counter.increment();
+                    }
+                }
+            }, "Incrementer-" + t);
+            workers[t].start();
+        }
+
+        start.countDown();
+        long startNanos = System.nanoTime();
+        long previousLost = 0;
+        long previousNanos = startNanos;
+        double peakRate = 0;
+        while (isAnyAlive(workers)) {
+            Thread.sleep(SAMPLE_MILLIS);
+            long now = System.nanoTime();
+            long lost = Math.max(0, counter.lostUpdates());
+            peakRate = Math.max(peakRate, (lost - previousLost) * 1e9 / (now - previousNanos));
+            previousLost = lost;
+            previousNanos = now;
+        }
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        long attempts = counter.attempts();
+        long lost = counter.lostUpdates();
+        System.out.printf("%-8d %14d %12d %7.2f%% %14.0f %14.0f%n",
+                threads, attempts, lost, 100.0 * lost / Math.max(1, attempts), lost / elapsedSeconds, peakRate);
+        for (Map.Entry<String, Long> entry : counter.conflicts().entrySet()) {
+            if (entry.getValue() > 0) {
+                System.out.println("    conflicts detected in " + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+    }
+
+    private static boolean isAnyAlive(Thread[] threads) {
+        for (Thread thread : threads) {
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
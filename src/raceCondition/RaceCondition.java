@@ -1,7 +1,28 @@
 package raceCondition;
 
+import java.util.concurrent.ExecutionException;
+
+import counterEngine.CounterStrategy;
+import counterEngine.CounterType;
+import execution.ExecutionMode;
+import execution.TaskGroup;
+
+/**
+ * Two threads increment an unsynchronized `Counter`, so the final value is usually
+ * lower than 2000.
+ * 
+ * Pass `<strategy|all> [threads] [incrementsPerThread] [mode]` to run the same workload
+ * against the unsafe counter and then each `counterEngine` strategy, to compare the results.
+ * With an `execution.ExecutionMode` (`platform`, `fixed_pool` or `virtual`) the workers' bodies
+ * run as `execution.TaskGroup` subtasks on that kind of thread instead of as `Thread`s.
+ */
 public class RaceCondition {
     public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0) {
+            compareStrategies(args);
+            return;
+        }
+
         Counter counter = new Counter();
         ThreadCreate threadCreate1 = new ThreadCreate(counter);
         ThreadCreate threadCreate2 = new ThreadCreate(counter);
@@ -20,5 +41,60 @@ public class RaceCondition {
         System.out.println("Counter value: " + counter.getCount());
         
     }
-    
+
+    private static void compareStrategies(String[] args) throws InterruptedException {
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int increments = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        ExecutionMode mode = args.length > 3 ? ExecutionMode.parse(args[3]) : null;
+        boolean all = "all".equalsIgnoreCase(args[0]);
+
+        if (all || "unsafe".equalsIgnoreCase(args[0])) {
+            runWorkload("UNSAFE", new Counter(), threads, increments, mode);
+        }
+        if (all) {
+            for (CounterType type : CounterType.values()) {
+                runWorkload(type.name(), type.create(), threads, increments, mode);
+            }
+        } else if (!"unsafe".equalsIgnoreCase(args[0])) {
+            CounterType type = CounterType.parse(args[0]);
+            runWorkload(type.name(), type.create(), threads, increments, mode);
+        }
+    }
+
+    private static void runWorkload(String name, CounterStrategy counter, int threads, int increments,
+            ExecutionMode mode) throws InterruptedException {
+        ThreadCreate[] workers = new ThreadCreate[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new ThreadCreate(counter, increments);
+        }
+
+        long start = System.nanoTime();
+        startAndJoin(workers, mode);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        long expected = (long) threads * increments;
+        System.out.println(name + " counter value: " + counter.value() + " (expected " + expected
+                + ", lost " + (expected - counter.value()) + ") in " + elapsedMs + " ms");
+    }
+
+    // Runs the workers on threads of the mode, or starts and joins them as threads if mode is null
+    private static void startAndJoin(ThreadCreate[] workers, ExecutionMode mode) throws InterruptedException {
+        if (mode == null) {
+            for (ThreadCreate worker : workers) {
+                worker.start();
+            }
+            for (ThreadCreate worker : workers) {
+                worker.join();
+            }
+            return;
+        }
+        try (TaskGroup<Void> group = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, mode, workers.length, null)) {
+            for (ThreadCreate worker : workers) {
+                group.fork(worker.getName(), worker);  // Only its run() body is used
+            }
+            group.join();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Worker failed", e.getCause());
+        }
+    }
 }
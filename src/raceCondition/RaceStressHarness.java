@@ -0,0 +1,99 @@
+package raceCondition;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Consumer;
+
+/**
+ * Runs `RaceTest`s the way jcstress does and enumerates the outcomes that were observed.
+ * 
+ * Usage: `java raceCondition.RaceStressHarness [batches] [batchSize]`
+ * 
+ * How it works:
+ * - The two actors are long-lived threads. For every batch, the main thread creates
+ *   `batchSize` fresh states and releases both actors through a barrier at the same time.
+ * - Each actor runs its operation on every state of the batch, in the same order, so the
+ *   two actors hit the same state at about the same moment over and over again.
+ * - After both actors are done, the main thread turns each state into an outcome and counts it.
+ * 
+ * The report lists, per test, every outcome with its count and grade, and how often a
+ * forbidden outcome (a lost update or an overdraft) occurred. On a single core the actors
+ * rarely overlap, so forbidden outcomes may not show up at all.
+ */
+public class RaceStressHarness {
+    public static void main(String[] args) throws InterruptedException {
+        int batches = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        for (RaceTest<?> test : RaceTests.all()) {
+            run(test, batches, batchSize);
+        }
+    }
+
+    private static <S> void run(RaceTest<S> test, int batches, int batchSize) throws InterruptedException {
+        @SuppressWarnings("unchecked")
+        S[][] current = (S[][]) new Object[1][];
+        CyclicBarrier barrier = new CyclicBarrier(3);  // two actors + the main thread
+
+        Thread actor1 = new Thread(() -> actorLoop(barrier, current, batches, test::actor1), "Actor1");
+        Thread actor2 = new Thread(() -> actorLoop(barrier, current, batches, test::actor2), "Actor2");
+        actor1.start();
+        actor2.start();
+
+        Map<String, Long> outcomes = new TreeMap<>();
+        long start = System.nanoTime();
+        try {
+            for (int b = 0; b < batches; b++) {
+                @SuppressWarnings("unchecked")
+                S[] states = (S[]) new Object[batchSize];
+                for (int i = 0; i < batchSize; i++) {
+                    states[i] = test.newState();
+                }
+                current[0] = states;
+                barrier.await();  // start the actors
+                barrier.await();  // wait until both are done
+                for (S state : states) {
+                    outcomes.merge(test.outcome(state), 1L, Long::sum);
+                }
+            }
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("Actor failed", e);
+        }
+        actor1.join();
+        actor2.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long total = (long) batches * batchSize;
+        long forbidden = 0;
+        System.out.println(test.name() + ": " + total + " runs");
+        for (Map.Entry<String, Long> entry : outcomes.entrySet()) {
+            RaceTest.Grade grade = test.grade(entry.getKey());
+            if (grade == RaceTest.Grade.FORBIDDEN) {
+                forbidden += entry.getValue();
+            }
+            System.out.printf("    %-12s %12d  %s%n", entry.getKey(), entry.getValue(), grade);
+        }
+        System.out.printf("    forbidden: %.4f%% of runs, %.0f per second%n",
+                100.0 * forbidden / total, forbidden / seconds);
+    }
+
+    // Reads the batch published by the main thread; the barrier makes the array visible
+    private static <S> void actorLoop(CyclicBarrier barrier, S[][] current, int batches,
+            Consumer<S> action) {
+        try {
+            for (int b = 0; b < batches; b++) {
+                barrier.await();
+                for (S state : current[0]) {
+                    action.accept(state);
+                }
+                barrier.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (BrokenBarrierException e) {
+            // The main thread gave up; nothing left to do
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package raceCondition;
+
+/**
+ * A jcstress-style concurrency test: two actors run one operation each on a fresh state,
+ * at the same time, and the resulting state is reduced to an outcome string.
+ * 
+ * `RaceStressHarness` runs a test millions of times and counts how often each outcome occurs.
+ * 
+ * @param <S> the shared state both actors operate on
+ */
+public interface RaceTest<S> {
+
+    enum Grade {
+        ACCEPTABLE,  // A result that a correct (sequential) execution could produce
+        FORBIDDEN    // Only possible because of the race, e.g. a lost update or an overdraft
+    }
+
+    String name();
+
+    S newState();
+
+    void actor1(S state);
+
+    void actor2(S state);
+
+    // Reduces the final state to an outcome, e.g. the counter value
+    String outcome(S state);
+
+    Grade grade(String outcome);
+}
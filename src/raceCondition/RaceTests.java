@@ -0,0 +1,179 @@
+package raceCondition;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The unsafe patterns found in this repo, written as `RaceTest`s, plus a safe control.
+ */
+public final class RaceTests {
+
+    private RaceTests() {
+    }
+
+    public static RaceTest<?>[] all() {
+        return new RaceTest<?>[] {
+            new UnsafeIncrement(),
+            new SynchronizedIncrement(),
+            new CheckThenWithdraw(),
+            new GetThenPutScore()
+        };
+    }
+
+    /**
+     * Both actors call `raceCondition.Counter.increment()` once. "1" means an update was lost.
+     */
+    static final class UnsafeIncrement implements RaceTest<Counter> {
+        @Override
+        public String name() {
+            return "raceCondition.Counter count++";
+        }
+
+        @Override
+        public Counter newState() {
+            return new Counter();
+        }
+
+        @Override
+        public void actor1(Counter counter) {
+            counter.increment();
+        }
+
+        @Override
+        public void actor2(Counter counter) {
+            counter.increment();
+        }
+
+        @Override
+        public String outcome(Counter counter) {
+            return String.valueOf(counter.getCount());
+        }
+
+        @Override
+        public Grade grade(String outcome) {
+            return "2".equals(outcome) ? Grade.ACCEPTABLE : Grade.FORBIDDEN;
+        }
+    }
+
+    /**
+     * Control: the same test on `synchronizedEx.Counter`, which must never lose an update.
+     */
+    static final class SynchronizedIncrement implements RaceTest<synchronizedEx.Counter> {
+        @Override
+        public String name() {
+            return "synchronizedEx.Counter (control)";
+        }
+
+        @Override
+        public synchronizedEx.Counter newState() {
+            return new synchronizedEx.Counter();
+        }
+
+        @Override
+        public void actor1(synchronizedEx.Counter counter) {
+            counter.increment();
+        }
+
+        @Override
+        public void actor2(synchronizedEx.Counter counter) {
+            counter.increment();
+        }
+
+        @Override
+        public String outcome(synchronizedEx.Counter counter) {
+            return String.valueOf(counter.getCount());
+        }
+
+        @Override
+        public Grade grade(String outcome) {
+            return "2".equals(outcome) ? Grade.ACCEPTABLE : Grade.FORBIDDEN;
+        }
+    }
+
+    /**
+     * The balance check of `BankAccount.withdraw` without its lock: both actors withdraw 60
+     * from a balance of 100. "40" is correct (one succeeds); "-20" is an overdraft and
+     * "40" with both succeeding is a lost update, shown as "40 (both)".
+     */
+    static final class CheckThenWithdraw implements RaceTest<CheckThenWithdraw.Account> {
+        static final class Account {
+            int balance = 100;
+            boolean first;
+            boolean second;
+        }
+
+        @Override
+        public String name() {
+            return "unlocked check-then-withdraw";
+        }
+
+        @Override
+        public Account newState() {
+            return new Account();
+        }
+
+        @Override
+        public void actor1(Account account) {
+            if (account.balance >= 60) {
+                account.balance -= 60;
+                account.first = true;
+            }
+        }
+
+        @Override
+        public void actor2(Account account) {
+            if (account.balance >= 60) {
+                account.balance -= 60;
+                account.second = true;
+            }
+        }
+
+        @Override
+        public String outcome(Account account) {
+            return account.balance + (account.first && account.second ? " (both)" : "");
+        }
+
+        @Override
+        public Grade grade(String outcome) {
+            return "40".equals(outcome) ? Grade.ACCEPTABLE : Grade.FORBIDDEN;
+        }
+    }
+
+    /**
+     * Updating a score with `get` followed by `put` instead of `computeIfPresent`, as a naive
+     * version of `ThreadSafeMapExample.updateScore` would: +5 and +3 on a score of 10.
+     */
+    static final class GetThenPutScore implements RaceTest<Map<String, Integer>> {
+        @Override
+        public String name() {
+            return "score get-then-put";
+        }
+
+        @Override
+        public Map<String, Integer> newState() {
+            Map<String, Integer> scores = new HashMap<>();
+            scores.put("User1", 10);
+            return scores;
+        }
+
+        @Override
+        public void actor1(Map<String, Integer> scores) {
+            scores.put("User1", scores.get("User1") + 5);
+        }
+
+        @Override
+        public void actor2(Map<String, Integer> scores) {
+            scores.put("User1", scores.get("User1") + 3);
+        }
+
+        @Override
+        public String outcome(Map<String, Integer> scores) {
+            return String.valueOf(scores.get("User1"));
+        }
+
+        @Override
+        public Grade grade(String outcome) {
+            return "18".equals(outcome) ? Grade.ACCEPTABLE : Grade.FORBIDDEN;
+        }
+    }
+}
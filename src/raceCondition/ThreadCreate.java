@@ -1,5 +1,7 @@
 package raceCondition;
 
+import counterEngine.CounterStrategy;
+
 /**
  * This class represents a thread that will increment the shared counter.
  * 
@@ -14,21 +16,33 @@ package raceCondition;
  *   increments the counter 1000 times.
  * - By calling the `counter.increment()` method inside the loop, each thread 
  *   tries to modify the shared counter.
+ * - Any `counterEngine.CounterStrategy` can be passed instead of `Counter`. After the loop
+ *   the thread calls `flush()`, so batched strategies publish their remaining increments.
+ * - The examples can also pass an instance to `execution.TaskGroup.fork()` as a plain
+ *   `Runnable`, so the same `run()` body runs on any `execution.ExecutionMode`.
  */
 public class ThreadCreate extends Thread {
-    private Counter counter;
+    private final CounterStrategy counter;
+    private final int increments;
 
     // Constructor takes the shared Counter object
     public ThreadCreate(Counter counter) {
+        this(counter, 1000);
+    }
+
+    // Constructor for running any counter strategy with a custom number of increments
+    public ThreadCreate(CounterStrategy counter, int increments) {
         this.counter = counter;
+        this.increments = increments;
     }
 
     @Override
     public void run() {
-        // Increment the counter 1000 times
-        for (int i = 0; i < 1000; i++) {
+        // Increment the counter 1000 times (or the configured number of times)
+        for (int i = 0; i < increments; i++) {
             counter.increment();
         }
+        counter.flush();
     }
 }
 
@@ -0,0 +1,117 @@
+package scoreService;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary format spoken between `ShardedScoreClient` and `ScoreShardServer`.
+ * 
+ * Every message is a frame: a 4-byte length of the rest, then a 1-byte opcode (requests) or
+ * status (responses), then the payload. Strings are a 2-byte length plus UTF-8 bytes; numbers
+ * are big-endian.
+ * 
+ * Requests and their responses:
+ * - `PUT user score` -> `OK`
+ * - `ADD user delta` -> `OK` or `NOT_FOUND` (unknown users are ignored, like `computeIfPresent`)
+ * - `GET user` -> `OK score` or `NOT_FOUND`
+ * - `SNAPSHOT` -> `OK count (user score)*`
+ * 
+ * A server answers the requests of one connection in the order they were sent, so a client
+ * can send many requests before reading any response (pipelining) and match them up by order.
+ */
+final class ScoreProtocol {
+    static final byte PUT = 1;
+    static final byte ADD = 2;
+    static final byte GET = 3;
+    static final byte SNAPSHOT = 4;
+
+    static final byte OK = 0;
+    static final byte NOT_FOUND = 1;
+    static final byte ERROR = 2;
+
+    static final int HEADER_BYTES = Integer.BYTES;
+    static final int BUFFER_BYTES = 64 * 1024;
+    static final int MAX_USER_BYTES = 1024;
+
+    private ScoreProtocol() {
+    }
+
+    // Bytes a request needs in the buffer, including its length header
+    static int requestSize(byte[] user) {
+        return HEADER_BYTES + 1 + (user == null ? 0 : Short.BYTES + user.length + Long.BYTES);
+    }
+
+    static void putRequest(ByteBuffer out, byte op, byte[] user, long value) {
+        int start = out.position();
+        out.putInt(0);  // Length, filled in below
+        out.put(op);
+        if (op == GET) {
+            putString(out, user);
+        } else if (op != SNAPSHOT) {
+            putString(out, user);
+            out.putLong(value);
+        }
+        out.putInt(start, out.position() - start - HEADER_BYTES);
+    }
+
+    static byte[] encode(String user) {
+        byte[] bytes = user.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_USER_BYTES) {
+            throw new IllegalArgumentException("User name longer than " + MAX_USER_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    static String getString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // True if the buffer (in read mode) holds at least one complete frame
+    static boolean hasFrame(ByteBuffer in) {
+        return in.remaining() >= HEADER_BYTES && in.remaining() - HEADER_BYTES >= in.getInt(in.position());
+    }
+
+    /**
+     * Makes sure at least `bytes` bytes are readable in `in` (which is in read mode), reading
+     * from the channel as needed. Grows the buffer if it is too small and returns the buffer
+     * to use from now on.
+     */
+    static ByteBuffer require(SocketChannel channel, ByteBuffer in, int bytes) throws IOException {
+        if (in.remaining() >= bytes) {
+            return in;
+        }
+        if (in.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Integer.highestOneBit(bytes) << 1);
+            larger.put(in);
+            in = larger;
+        } else {
+            in.compact();
+        }
+        while (in.position() < bytes) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed");
+            }
+        }
+        in.flip();
+        return in;
+    }
+
+    static void writeFully(SocketChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
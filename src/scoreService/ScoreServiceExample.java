@@ -0,0 +1,56 @@
+package scoreService;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+import execution.ExecutionMode;
+import execution.TaskGroup;
+import logging.Log;
+
+/**
+ * `threadSafeCollection.ThreadSafeMapExample`, with the scores held by separate shard processes.
+ * 
+ * Usage: `java scoreService.ScoreServiceExample [shards]`
+ * 
+ * Starts `shards` (default 2) `ScoreShardServer` processes, prints which shard owns each user,
+ * lets three threads update their user's score through one shared `ShardedScoreClient`, and
+ * reads all scores back with one scatter-gather `snapshot()` and one batched `getScores()`.
+ */
+public class ScoreServiceExample {
+
+    public static void main(String[] args) throws IOException {
+        int shards = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        String[] users = { "User1", "User2", "User3" };
+
+        try (ShardCluster cluster = ShardCluster.start(shards, "ATOMIC");
+                ShardedScoreClient userScores = cluster.connect()) {
+            // Initializing the scores with one pipelined batch
+            userScores.putScores(users, new long[] { 10, 20, 30 });
+            for (String user : users) {
+                Log.println(user + " lives on shard " + ShardedScoreClient.shardOf(user, shards));
+            }
+
+            try (TaskGroup<Void> updates = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, ExecutionMode.PLATFORM)) {
+                updates.fork("User1", () -> updateScore(userScores, "User1", 5));
+                updates.fork("User2", () -> updateScore(userScores, "User2", 3));
+                updates.fork("User3", () -> updateScore(userScores, "User3", 7));
+                updates.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Log.println("Thread interrupted: " + e.getMessage());
+            } catch (ExecutionException e) {
+                Log.println("Score update failed: " + e.getCause());
+            }
+
+            Log.println("Final User Scores: " + userScores.snapshot());
+            Log.println("Batched read: " + Arrays.toString(userScores.getScores(users, 0)));
+            Log.println("Unknown user: " + userScores.getScore("User4", -1) + ", updated: " + userScores.addScore("User4", 1));
+        }
+    }
+
+    private static void updateScore(ShardedScoreClient userScores, String user, int increment) {
+        userScores.addScore(user, increment);
+        Log.println(user + " updated their score to: " + userScores.getScore(user, 0));
+    }
+}
@@ -0,0 +1,194 @@
+package scoreService;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import threadSafeCollection.AtomicScoreStore;
+import threadSafeCollection.ScoreStore;
+
+/**
+ * Compares the in-process score map with the sharded score service as the number of shards grows.
+ * 
+ * Usage: `java scoreService.ScoreServiceReport [clients] [updatesPerClient] [users] [batch] [maxShards]`
+ * 
+ * What this code does:
+ * - Each of `clients` threads (default: the number of cores, at least 2) sends `updatesPerClient`
+ *   score updates (default 500,000) to random users out of `users` (default 10,000). Every
+ *   thread uses a fixed random seed, so every run sends exactly the same updates.
+ * - Runs them against an in-process `AtomicScoreStore` first, then against 1, 2, 4 ... up to
+ *   `maxShards` (default 4) `ScoreShardServer` processes. Each client thread has its own
+ *   `ShardedScoreClient` and sends its updates in pipelined batches of `batch` (default 1000),
+ *   and also one at a time, waiting for every answer (with 1/20 of the updates, since each
+ *   costs a full round trip).
+ * - Prints the aggregate updates per second, the average number of requests per socket write,
+ *   and checks the final scores, read back with a scatter-gather `snapshot()`, against a
+ *   single-threaded replay of the same updates.
+ * 
+ * Shards only add throughput when they have cores of their own: with fewer cores than
+ * clients plus shards, the processes take turns and more shards mostly add context switches.
+ */
+public class ScoreServiceReport {
+
+    private static final String[] SHARD_JVM_OPTIONS = { "-Xmx256m" };
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(2, cores);
+        int updates = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int maxShards = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        int unbatchedUpdates = Math.max(1, updates / 20);
+
+        String[] names = new String[users];
+        for (int i = 0; i < users; i++) {
+            names[i] = "User" + (i + 1);
+        }
+        Map<String, Long> expected = replay(names, clients, updates);
+        Map<String, Long> expectedUnbatched = replay(names, clients, unbatchedUpdates);
+
+        System.out.printf("%d clients x %,d updates, %d users, batches of %d, %d cores%n", clients, updates, users, batch, cores);
+        System.out.printf("%-28s %14s %10s %12s %8s%n", "store", "updates/s", "vs local", "req/write", "scores");
+
+        ScoreStore local = new AtomicScoreStore();
+        for (String name : names) {
+            local.putScore(name, 0);
+        }
+        double localRate = run(names, clients, updates, 1, () -> local);
+        print("in-process ATOMIC", localRate, localRate, Double.NaN, local.snapshot().equals(expected));
+
+        for (int shards = 1; shards <= maxShards; shards *= 2) {
+            try (ShardCluster cluster = ShardCluster.start(shards, "ATOMIC", SHARD_JVM_OPTIONS)) {
+                runShards(cluster, shards + " shards, batch " + batch, names, clients, updates, batch, expected, localRate);
+                runShards(cluster, shards + " shards, unbatched", names, clients, unbatchedUpdates, 1, expectedUnbatched,
+                        localRate);
+            }
+        }
+    }
+
+    private static void runShards(ShardCluster cluster, String name, String[] names, int clients, int updates, int batch,
+            Map<String, Long> expected, double localRate) throws IOException, InterruptedException {
+        try (ShardedScoreClient setup = cluster.connect()) {
+            setup.putScores(names, new long[names.length]);  // Every run starts from zero
+        }
+        double rate;
+        double perWrite;
+        try (ClientPool pool = new ClientPool(cluster, clients)) {
+            rate = run(names, clients, updates, batch, pool::next);
+            perWrite = pool.requestsPerWrite();
+        }
+        try (ShardedScoreClient reader = cluster.connect()) {
+            print(name, rate, localRate, perWrite, reader.snapshot().equals(expected));
+        }
+    }
+
+    private static void print(String name, double rate, double localRate, double perWrite, boolean same) {
+        System.out.printf("%-28s %,14.0f %9.2fx %12s %8s%n", name, rate, rate / localRate,
+                Double.isNaN(perWrite) ? "-" : String.format("%.1f", perWrite), same ? "same" : "DIFFERENT");
+    }
+
+    // Sends every client's updates, in batches of `batch` where the store supports it; returns updates/s
+    private static double run(String[] names, int clients, int updates, int batch, StoreSupplier stores)
+            throws InterruptedException {
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            ScoreStore store = stores.get();
+            long seed = t + 1;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                String[] users = new String[batch];
+                long[] deltas = new long[batch];
+                int pending = 0;
+                for (int i = 0; i < updates; i++) {
+                    users[pending] = names[random.nextInt(names.length)];
+                    deltas[pending] = 1 + random.nextInt(10);
+                    pending++;
+                    if (pending == batch || i == updates - 1) {
+                        send(store, users, deltas, pending);
+                        pending = 0;
+                    }
+                }
+            }, "Client-" + t);
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) clients * updates / (elapsed / 1e9);
+    }
+
+    private static void send(ScoreStore store, String[] users, long[] deltas, int count) {
+        if (count > 1 && store instanceof ShardedScoreClient) {
+            if (count < users.length) {
+                users = Arrays.copyOf(users, count);
+                deltas = Arrays.copyOf(deltas, count);
+            }
+            ((ShardedScoreClient) store).addScores(users, deltas);
+        } else {
+            for (int i = 0; i < count; i++) {
+                store.addScore(users[i], deltas[i]);
+            }
+        }
+    }
+
+    // The scores the updates of all clients must add up to, computed on one thread
+    private static Map<String, Long> replay(String[] names, int clients, int updates) {
+        Map<String, Long> scores = new TreeMap<>();
+        for (String name : names) {
+            scores.put(name, 0L);
+        }
+        for (int t = 0; t < clients; t++) {
+            SplittableRandom random = new SplittableRandom(t + 1);
+            for (int i = 0; i < updates; i++) {
+                String user = names[random.nextInt(names.length)];
+                scores.merge(user, (long) (1 + random.nextInt(10)), Long::sum);
+            }
+        }
+        return scores;
+    }
+
+    private interface StoreSupplier {
+        ScoreStore get();
+    }
+
+    // One client, and so one set of connections, per thread
+    private static final class ClientPool implements AutoCloseable {
+        private final ShardedScoreClient[] clients;
+        private int next;
+
+        ClientPool(ShardCluster cluster, int count) throws IOException {
+            clients = new ShardedScoreClient[count];
+            for (int i = 0; i < count; i++) {
+                clients[i] = cluster.connect();
+            }
+        }
+
+        ShardedScoreClient next() {
+            return clients[next++];
+        }
+
+        double requestsPerWrite() {
+            long requests = 0;
+            long writes = 0;
+            for (ShardedScoreClient client : clients) {
+                requests += client.requests();
+                writes += client.writes();
+            }
+            return (double) requests / Math.max(1, writes);
+        }
+
+        @Override
+        public void close() {
+            for (ShardedScoreClient client : clients) {
+                client.close();
+            }
+        }
+    }
+}
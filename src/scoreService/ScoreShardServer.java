@@ -0,0 +1,182 @@
+package scoreService;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import threadSafeCollection.ScoreStore;
+import threadSafeCollection.ScoreStoreType;
+
+/**
+ * One shard of the score service: a process that owns part of the users and serves them over
+ * a Unix domain socket.
+ * 
+ * Usage: `java scoreService.ScoreShardServer <socketPath> [storeType]`
+ * 
+ * Key Concepts:
+ * - The scores are kept in an ordinary `ScoreStore` (`ATOMIC` by default), so each shard has its
+ *   own heap and its own cores, and a shard only ever sees the users that hash to it.
+ * - Each client connection is served by its own thread. It reads whatever the client has sent,
+ *   answers every complete request in the buffer, and writes all the answers with one write.
+ *   A client that pipelines 1000 requests therefore costs about one read and one write, not 1000.
+ * - Prints `READY` once the socket is bound, so `ShardCluster` knows when it can connect.
+ *   The server exits when its standard input is closed, which also happens when the parent
+ *   process dies, so shards are never left running on their own.
+ */
+public class ScoreShardServer {
+
+    private final ScoreStore store;
+    private final ServerSocketChannel server;
+
+    public ScoreShardServer(Path socket, ScoreStore store) throws IOException {
+        this.store = store;
+        Files.deleteIfExists(socket);  // A file left behind by a previous run would make bind() fail
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.server.bind(UnixDomainSocketAddress.of(socket));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java scoreService.ScoreShardServer <socketPath> [storeType]");
+            System.exit(2);
+        }
+        Path socket = Path.of(args[0]);
+        ScoreStore store = (args.length > 1 ? ScoreStoreType.parse(args[1]) : ScoreStoreType.ATOMIC).create();
+        ScoreShardServer shard = new ScoreShardServer(socket, store);
+
+        Thread watchdog = new Thread(() -> {
+            try {
+                while (System.in.read() >= 0) {
+                    // Nothing is expected on stdin; we only wait for it to be closed
+                }
+            } catch (IOException e) {
+                // Treat a broken stdin like a closed one
+            }
+            System.exit(0);
+        }, "ScoreShard-stdin");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                Files.deleteIfExists(socket);
+            } catch (IOException e) {
+                // Best effort; the next run deletes it anyway
+            }
+        }));
+
+        System.out.println("READY " + socket);
+        System.out.flush();
+        shard.serve();
+    }
+
+    // Accepts connections until the server socket is closed
+    public void serve() throws IOException {
+        int connections = 0;
+        while (server.isOpen()) {
+            SocketChannel client = server.accept();
+            Thread thread = new Thread(() -> handle(client), "ScoreShard-connection-" + connections++);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        ByteBuffer in = ByteBuffer.allocateDirect(ScoreProtocol.BUFFER_BYTES);
+        ByteBuffer out = ByteBuffer.allocateDirect(ScoreProtocol.BUFFER_BYTES);
+        try (client) {
+            while (client.read(in) >= 0) {
+                in.flip();
+                // Answer every complete request that has arrived; a partial one waits for the next read
+                while (ScoreProtocol.hasFrame(in)) {
+                    int length = in.getInt();
+                    int end = in.position() + length;
+                    answer(client, in, out);
+                    in.position(end);
+                }
+                if (in.remaining() >= ScoreProtocol.HEADER_BYTES
+                        && in.getInt(in.position()) > in.capacity() - ScoreProtocol.HEADER_BYTES) {
+                    throw new IOException("Request larger than the buffer");  // Not a client of ours
+                }
+                in.compact();
+                if (out.position() > 0) {
+                    ScoreProtocol.writeFully(client, out);
+                }
+            }
+        } catch (IOException e) {
+            // The client went away; its connection thread simply ends
+        }
+    }
+
+    private void answer(SocketChannel client, ByteBuffer in, ByteBuffer out) throws IOException {
+        byte op = in.get();
+        if (op == ScoreProtocol.SNAPSHOT) {
+            answerSnapshot(client, out);
+            return;
+        }
+        if (out.remaining() < ScoreProtocol.HEADER_BYTES + 1 + Long.BYTES) {
+            ScoreProtocol.writeFully(client, out);
+        }
+        switch (op) {
+            case ScoreProtocol.PUT: {
+                store.putScore(ScoreProtocol.getString(in), in.getLong());
+                putStatus(out, ScoreProtocol.OK);
+                break;
+            }
+            case ScoreProtocol.ADD: {
+                boolean applied = store.addScore(ScoreProtocol.getString(in), in.getLong());
+                putStatus(out, applied ? ScoreProtocol.OK : ScoreProtocol.NOT_FOUND);
+                break;
+            }
+            case ScoreProtocol.GET: {
+                String user = ScoreProtocol.getString(in);
+                long score = store.getScore(user, Long.MIN_VALUE);
+                if (score == Long.MIN_VALUE) {
+                    // Either an unknown user or a real score of Long.MIN_VALUE, so check explicitly
+                    if (!store.containsUser(user)) {
+                        putStatus(out, ScoreProtocol.NOT_FOUND);
+                        break;
+                    }
+                    score = store.getScore(user, Long.MIN_VALUE);  // The user may have been added since the first read
+                }
+                out.putInt(1 + Long.BYTES).put(ScoreProtocol.OK).putLong(score);
+                break;
+            }
+            default:
+                putStatus(out, ScoreProtocol.ERROR);
+        }
+    }
+
+    private static void putStatus(ByteBuffer out, byte status) {
+        out.putInt(1).put(status);
+    }
+
+    // A snapshot can be larger than the output buffer, so it is encoded into its own buffer
+    private void answerSnapshot(SocketChannel client, ByteBuffer out) throws IOException {
+        Map<String, Long> scores = store.snapshot();
+        byte[][] users = new byte[scores.size()][];
+        int size = ScoreProtocol.HEADER_BYTES + 1 + Integer.BYTES;
+        int i = 0;
+        for (String user : scores.keySet()) {
+            users[i] = ScoreProtocol.encode(user);
+            size += Short.BYTES + users[i].length + Long.BYTES;
+            i++;
+        }
+        ByteBuffer reply = ByteBuffer.allocate(size);
+        reply.putInt(size - ScoreProtocol.HEADER_BYTES).put(ScoreProtocol.OK).putInt(users.length);
+        i = 0;
+        for (long score : scores.values()) {
+            ScoreProtocol.putString(reply, users[i++]);
+            reply.putLong(score);
+        }
+        if (out.position() > 0) {
+            ScoreProtocol.writeFully(client, out);  // Earlier answers go first
+        }
+        ScoreProtocol.writeFully(client, reply);
+    }
+}
@@ -0,0 +1,155 @@
+package scoreService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Starts `ScoreShardServer` processes on this machine and stops them again.
+ * 
+ * Each shard is a separate JVM started with the same `java` binary and class path as the
+ * current one. Its socket file lives in a private temporary directory that is removed by
+ * `close()`. Shards are stopped by closing their standard input, and killed if they do not
+ * exit within a few seconds.
+ * 
+ * Usage: `try (ShardCluster cluster = ShardCluster.start(4, "ATOMIC", "-Xmx256m")) { ... cluster.connect() ... }`
+ */
+public class ShardCluster implements AutoCloseable {
+
+    private static final long STARTUP_TIMEOUT_SECONDS = 30;
+
+    private final Path directory;
+    private final List<Path> sockets = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+
+    private ShardCluster(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Starts `shards` shard processes, each backed by a `storeType` store, and waits until all of
+     * them accept connections.
+     * 
+     * @param jvmOptions extra options for the shard JVMs, such as the heap size
+     */
+    public static ShardCluster start(int shards, String storeType, String... jvmOptions) throws IOException {
+        ShardCluster cluster = new ShardCluster(Files.createTempDirectory("score-shards"));
+        try {
+            String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            for (int i = 0; i < shards; i++) {
+                Path socket = cluster.directory.resolve("shard-" + i + ".sock");
+                List<String> command = new ArrayList<>();
+                command.add(java);
+                Collections.addAll(command, jvmOptions);
+                Collections.addAll(command, "-cp", System.getProperty("java.class.path"),
+                        ScoreShardServer.class.getName(), socket.toString(), storeType);
+                Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                cluster.processes.add(process);
+                cluster.sockets.add(socket);
+            }
+            // The shards start up in parallel; wait for each one to report that it is listening
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STARTUP_TIMEOUT_SECONDS);
+            for (Process process : cluster.processes) {
+                awaitReady(process, deadline);
+            }
+            return cluster;
+        } catch (IOException | RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits until the shard prints its READY line, it exits, or the deadline passes. The output is
+     * read on a separate daemon thread, because `readLine()` cannot time out: a shard that hangs
+     * without printing anything would otherwise block `start()` forever. After a timeout,
+     * `close()` stops the shard, which ends the reader thread.
+     */
+    private static void awaitReady(Process process, long deadline) throws IOException {
+        CompletableFuture<Boolean> ready = new CompletableFuture<>();
+        Thread reader = new Thread(() -> {
+            BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    if (line.startsWith("READY")) {
+                        ready.complete(true);
+                        return;
+                    }
+                    System.err.println("[shard] " + line);  // Pass on anything else the shard printed, such as errors
+                }
+                ready.complete(false);
+            } catch (IOException e) {
+                ready.completeExceptionally(e);
+            }
+        }, "ShardCluster-startup");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            if (ready.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (TimeoutException e) {
+            throw new IOException("Shard did not start within " + STARTUP_TIMEOUT_SECONDS + " s");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not read the shard's output", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a shard to start");
+        }
+        throw new IOException("Shard did not start (exit code " + (process.isAlive() ? "none" : process.exitValue()) + ")");
+    }
+
+    public int shardCount() {
+        return sockets.size();
+    }
+
+    public List<Path> sockets() {
+        return Collections.unmodifiableList(sockets);
+    }
+
+    // A new client with its own connection to every shard
+    public ShardedScoreClient connect() throws IOException {
+        return new ShardedScoreClient(sockets);
+    }
+
+    @Override
+    public void close() {
+        for (Process process : processes) {
+            try {
+                process.getOutputStream().close();  // The shard exits when its stdin is closed
+            } catch (IOException e) {
+                process.destroy();
+            }
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            for (Path socket : sockets) {
+                Files.deleteIfExists(socket);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            // Leftover files in the temporary directory are harmless
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package scoreService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+
+import threadSafeCollection.ScoreStore;
+
+/**
+ * A `ScoreStore` whose users are spread over several `ScoreShardServer` processes.
+ * 
+ * Key Concepts:
+ * - **Routing**: every user belongs to exactly one shard, chosen from the hash of its name
+ *   (`shardOf`). All clients use the same function, so they agree on where a user lives.
+ * - **Pipelining and batching**: `addScores`, `putScores` and `getScores` encode all requests
+ *   for a shard into one buffer and send it with one write, without waiting for answers in
+ *   between. The answers come back in the same order and are read in one go. A batch of
+ *   1000 updates therefore costs about one round trip per shard instead of 1000.
+ * - **Scatter-gather**: a batch is first sent to every shard it touches and only then are the
+ *   answers collected, so the shards work on their parts at the same time. `snapshot()` and
+ *   `forEach()` ask all shards at once the same way and merge the results.
+ * - At most `MAX_PIPELINE` requests are outstanding per shard; beyond that the client reads the
+ *   answers so far before sending more. Otherwise a large batch could fill both socket buffers,
+ *   with client and server each waiting for the other to read.
+ * 
+ * The single-user methods take only the lock of the user's shard and wait for the answer, like
+ * any other `ScoreStore`. The batch methods take the locks of all shards, always in the same
+ * order. For the highest throughput, give each thread its own client (its own connections).
+ * A snapshot is consistent per shard but not across shards, as `ScoreStore` allows.
+ */
+public class ShardedScoreClient implements ScoreStore, AutoCloseable {
+
+    // Requests a shard may have outstanding before the client reads their answers
+    public static final int MAX_PIPELINE = 4096;
+
+    private final Shard[] shards;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    public ShardedScoreClient(List<Path> sockets) throws IOException {
+        shards = new Shard[sockets.size()];
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = new Shard(sockets.get(i));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    // The shard that owns the user, out of `shards`
+    public static int shardOf(String user, int shards) {
+        int h = user.hashCode();
+        h ^= h >>> 16;  // Mix the high bits in, like HashMap does
+        return Math.floorMod(h * 0x9E3779B9, shards);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public void putScore(String user, long score) {
+        single(ScoreProtocol.PUT, user, score, 0);
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        return single(ScoreProtocol.ADD, user, delta, 0) != 0;
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        return single(ScoreProtocol.GET, user, 0, defaultValue);
+    }
+
+    // One GET; its status says whether the user exists, whatever the score is
+    @Override
+    public boolean containsUser(String user) {
+        byte[] name = ScoreProtocol.encode(user);
+        Shard shard = shards[shardOf(user, shards.length)];
+        shard.lock.lock();
+        try {
+            ScoreProtocol.putRequest(shard.out, ScoreProtocol.GET, name, 0);
+            shard.send();
+            shard.readAnswer(ScoreProtocol.GET, 0);
+            return shard.status == ScoreProtocol.OK;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // Sets the scores of many users with one pipelined round trip per shard
+    public void putScores(String[] users, long[] scores) {
+        batch(ScoreProtocol.PUT, users, scores, new long[users.length], 0);
+    }
+
+    /**
+     * Adds `deltas[i]` to the score of `users[i]` for every i, with one pipelined round trip per
+     * shard. Like `addScore`, unknown users are skipped.
+     * 
+     * @return the number of updates that were applied
+     */
+    public int addScores(String[] users, long[] deltas) {
+        long[] applied = new long[users.length];
+        batch(ScoreProtocol.ADD, users, deltas, applied, 0);
+        int count = 0;
+        for (long a : applied) {
+            count += (int) a;
+        }
+        return count;
+    }
+
+    // Reads the scores of many users with one pipelined round trip per shard
+    public long[] getScores(String[] users, long defaultValue) {
+        long[] scores = new long[users.length];
+        batch(ScoreProtocol.GET, users, null, scores, defaultValue);
+        return scores;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        snapshot().forEach(action::accept);
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> scores = new TreeMap<>();
+        lockAll();
+        try {
+            // Scatter: every shard starts building its snapshot before we read any of them
+            for (Shard shard : shards) {
+                ScoreProtocol.putRequest(shard.out, ScoreProtocol.SNAPSHOT, null, 0);
+                shard.send();
+            }
+            // Gather
+            for (Shard shard : shards) {
+                requests.increment();
+                int length = shard.frame();
+                ByteBuffer in = shard.in;
+                int end = in.position() + length;
+                checkStatus(in.get());
+                int count = in.getInt();
+                for (int i = 0; i < count; i++) {
+                    scores.put(ScoreProtocol.getString(in), in.getLong());
+                }
+                in.position(end);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            unlockAll();
+        }
+        return scores;
+    }
+
+    // Requests sent so far
+    public long requests() {
+        return requests.sum();
+    }
+
+    // Socket writes used to send them; requests() / writes() is the average batch size
+    public long writes() {
+        return writes.sum();
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            if (shard != null) {
+                try {
+                    shard.channel.close();
+                } catch (IOException e) {
+                    // Nothing left to do with a connection we are dropping
+                }
+            }
+        }
+    }
+
+    private long single(byte op, String user, long value, long defaultValue) {
+        byte[] name = ScoreProtocol.encode(user);
+        Shard shard = shards[shardOf(user, shards.length)];
+        shard.lock.lock();
+        try {
+            ScoreProtocol.putRequest(shard.out, op, name, value);
+            shard.send();
+            return shard.readAnswer(op, defaultValue);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private void batch(byte op, String[] users, long[] values, long[] results, long defaultValue) {
+        // Encode every name before queueing anything: a name that is too long must fail the call
+        // before any request is in a shard's buffer, or the next call would send it and read its answer
+        byte[][] names = new byte[users.length][];
+        for (int i = 0; i < users.length; i++) {
+            names[i] = ScoreProtocol.encode(users[i]);
+        }
+        lockAll();
+        try {
+            for (int i = 0; i < users.length; i++) {
+                byte[] name = names[i];
+                Shard shard = shards[shardOf(users[i], shards.length)];
+                if (shard.pending == MAX_PIPELINE || shard.out.remaining() < ScoreProtocol.requestSize(name)) {
+                    // Send what this shard has and collect its answers before queueing more
+                    shard.send();
+                    shard.receive(results, defaultValue);
+                }
+                ScoreProtocol.putRequest(shard.out, op, name, values == null ? 0 : values[i]);
+                shard.pendingIndex[shard.pending] = i;
+                shard.pendingOp[shard.pending] = op;
+                shard.pending++;
+            }
+            // Scatter the rest to every shard, then gather all the answers
+            for (Shard shard : shards) {
+                shard.send();
+            }
+            for (Shard shard : shards) {
+                shard.receive(results, defaultValue);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Always in index order, so two batches can never deadlock on each other's locks
+    private void lockAll() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            shards[i].lock.unlock();
+        }
+    }
+
+    private static void checkStatus(byte status) throws IOException {
+        if (status == ScoreProtocol.ERROR) {
+            throw new IOException("Shard rejected the request");
+        }
+    }
+
+    // One connection to one shard; only used while holding its lock
+    private final class Shard {
+        final SocketChannel channel;
+        final ReentrantLock lock = new ReentrantLock();
+        final ByteBuffer out = ByteBuffer.allocateDirect(ScoreProtocol.BUFFER_BYTES);
+        ByteBuffer in = ByteBuffer.allocateDirect(ScoreProtocol.BUFFER_BYTES).flip();  // Read mode, empty
+        final int[] pendingIndex = new int[MAX_PIPELINE];
+        final byte[] pendingOp = new byte[MAX_PIPELINE];
+        int pending;
+        byte status;  // Status of the last answer read
+
+        Shard(Path socket) throws IOException {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        }
+
+        void send() throws IOException {
+            if (out.position() == 0) {
+                return;
+            }
+            ScoreProtocol.writeFully(channel, out);
+            writes.increment();
+        }
+
+        // Waits for the next answer and returns the length of its body, which is then readable in `in`
+        int frame() throws IOException {
+            in = ScoreProtocol.require(channel, in, ScoreProtocol.HEADER_BYTES);
+            int length = in.getInt();
+            in = ScoreProtocol.require(channel, in, length);
+            return length;
+        }
+
+        long readAnswer(byte op, long defaultValue) throws IOException {
+            requests.increment();
+            frame();
+            status = in.get();
+            checkStatus(status);
+            switch (op) {
+                case ScoreProtocol.ADD:
+                    return status == ScoreProtocol.OK ? 1 : 0;
+                case ScoreProtocol.GET:
+                    return status == ScoreProtocol.OK ? in.getLong() : defaultValue;
+                default:
+                    return 0;
+            }
+        }
+
+        // Reads the answers to all outstanding requests into `results`, by request index
+        void receive(long[] results, long defaultValue) throws IOException {
+            for (int k = 0; k < pending; k++) {
+                results[pendingIndex[k]] = readAnswer(pendingOp[k], defaultValue);
+            }
+            pending = 0;
+        }
+    }
+}
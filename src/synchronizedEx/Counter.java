@@ -1,5 +1,7 @@
 package synchronizedEx;
 
+import counterEngine.CounterStrategy;
+
 /**
  * This class represents the shared resource (the counter) that will be accessed
  * by multiple threads.
@@ -19,21 +21,40 @@ package synchronizedEx;
  * 
  * Methods:
  * - `increment()`: Increases the value of `count` by 1. It is synchronized to ensure thread safety.
- * - `getCount()`: Returns the current value of `count`.
+ * - `getCount()`: Returns the current value of `count`. It does not lock: `count` is `volatile`,
+ *   so a reader always sees the latest increment, while writers still use the monitor
+ *   because `count++` is not atomic on its own.
+ * 
+ * This class also implements `counterEngine.CounterStrategy`, so it can be run side by side
+ * with the other strategies in the `counterEngine` package.
  */
-public class Counter {
-    private int count = 0;
+public class Counter implements CounterStrategy {
+    private volatile int count = 0;
 
     // Synchronized block within the method ensures that only one thread at a time
     // can execute the code that modifies the shared variable "count"
+    @Override
     public void increment() {
         synchronized (this) {  // "this" refers to the Counter object
             count++;           // Only one thread at a time can increment the count
         }
     }
 
+    // Adds an arbitrary amount under the same monitor as increment()
+    @Override
+    public void add(long delta) {
+        synchronized (this) {
+            count += delta;
+        }
+    }
+
     // Getter method to return the current value of the counter
     public int getCount() {
         return count;
     }
+
+    @Override
+    public long value() {
+        return getCount();
+    }
 }
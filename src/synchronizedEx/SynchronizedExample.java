@@ -1,5 +1,12 @@
 package synchronizedEx;
 
+import java.util.concurrent.ExecutionException;
+
+import counterEngine.CounterStrategy;
+import counterEngine.CounterType;
+import execution.ExecutionMode;
+import execution.TaskGroup;
+
 /**
  * This class demonstrates the use of synchronization in Java to handle
  * multiple threads accessing and modifying a shared resource (a counter).
@@ -22,9 +29,21 @@ package synchronizedEx;
  * Expected Output:
  * - The counter should be incremented 2000 times (1000 times by each thread).
  * - The use of synchronization ensures that the final output is correct.
+ * 
+ * Comparing Strategies:
+ * - Run with `<strategy|all> [threads] [incrementsPerThread] [mode]` to drive the same workload
+ *   against the `counterEngine` strategies (monitor, atomic, striped, batched) instead.
+ *   Each run prints the final value and the elapsed time. With an `execution.ExecutionMode`
+ *   (`platform`, `fixed_pool` or `virtual`) the workers' bodies run as `execution.TaskGroup`
+ *   subtasks on that kind of thread instead of as `Thread`s.
  */
 public class SynchronizedExample {
     public static void main(String[] args) {
+        if (args.length > 0) {
+            compareStrategies(args);
+            return;
+        }
+
         // Create a shared Counter object that both threads will modify
         Counter counter = new Counter();
 
@@ -47,4 +66,54 @@ public class SynchronizedExample {
         // After both threads have finished, print the final value of the counter
         System.out.println("Counter value: " + counter.getCount());
     }
+
+    private static void compareStrategies(String[] args) {
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int increments = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        ExecutionMode mode = args.length > 3 ? ExecutionMode.parse(args[3]) : null;
+        CounterType[] types = "all".equalsIgnoreCase(args[0])
+                ? CounterType.values()
+                : new CounterType[] { CounterType.parse(args[0]) };
+
+        for (CounterType type : types) {
+            CounterStrategy counter = type.create();
+            ThreadCreate[] workers = new ThreadCreate[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new ThreadCreate(counter, increments);
+            }
+
+            long start = System.nanoTime();
+            try {
+                startAndJoin(workers, mode);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+                return;
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println(type + " counter value: " + counter.value()
+                    + " (expected " + (long) threads * increments + ") in " + elapsedMs + " ms");
+        }
+    }
+
+    // Runs the workers on threads of the mode, or starts and joins them as threads if mode is null
+    private static void startAndJoin(ThreadCreate[] workers, ExecutionMode mode) throws InterruptedException {
+        if (mode == null) {
+            for (ThreadCreate worker : workers) {
+                worker.start();
+            }
+            for (ThreadCreate worker : workers) {
+                worker.join();
+            }
+            return;
+        }
+        try (TaskGroup<Void> group = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, mode, workers.length, null)) {
+            for (ThreadCreate worker : workers) {
+                group.fork(worker.getName(), worker);  // Only its run() body is used
+            }
+            group.join();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Worker failed", e.getCause());
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package threadSafeCollection;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Score store that keeps one mutable `AtomicLong` per user.
+ * 
+ * Key Concepts:
+ * - The map itself only changes when a user is added. A score update looks the user's
+ *   `AtomicLong` up with `get()` and adds to it in place with `addAndGet()`.
+ * - Neither step allocates: no `Integer` is boxed and no lambda is captured, so the update
+ *   path produces no garbage.
+ * - Reads never block writers; `ConcurrentHashMap.get()` and `AtomicLong.get()` are both lock-free.
+ */
+public class AtomicScoreStore implements ScoreStore {
+    private final ConcurrentHashMap<String, AtomicLong> userScores = new ConcurrentHashMap<>();
+
+    @Override
+    public void putScore(String user, long score) {
+        AtomicLong existing = userScores.putIfAbsent(user, new AtomicLong(score));
+        if (existing != null) {
+            existing.set(score);
+        }
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        AtomicLong score = userScores.get(user);
+        if (score == null) {
+            return false;
+        }
+        score.addAndGet(delta);
+        return true;
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        AtomicLong score = userScores.get(user);
+        return score == null ? defaultValue : score.get();
+    }
+
+    @Override
+    public boolean containsUser(String user) {
+        return userScores.containsKey(user);
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        userScores.forEach((user, score) -> action.accept(user, score.get()));
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> copy = new TreeMap<>();
+        forEach(copy::put);
+        return copy;
+    }
+}
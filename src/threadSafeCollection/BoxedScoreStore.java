@@ -0,0 +1,57 @@
+package threadSafeCollection;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Compatibility mode: the original `ConcurrentHashMap<String, Integer>` approach of
+ * `ThreadSafeMapExample`, behind the `ScoreStore` interface.
+ * 
+ * Every update goes through `computeIfPresent()`, which boxes a new `Integer` for the
+ * result and allocates a lambda that captures the increment. Kept as the baseline for
+ * comparison with `AtomicScoreStore` and `IndexedScoreStore`.
+ */
+public class BoxedScoreStore implements ScoreStore {
+    private final ConcurrentHashMap<String, Integer> userScores = new ConcurrentHashMap<>();
+
+    // The underlying map, for code that still uses the map-based API directly
+    public ConcurrentHashMap<String, Integer> map() {
+        return userScores;
+    }
+
+    @Override
+    public void putScore(String user, long score) {
+        userScores.put(user, Math.toIntExact(score));
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        int increment = Math.toIntExact(delta);
+        return userScores.computeIfPresent(user, (key, value) -> value + increment) != null;
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        Integer value = userScores.get(user);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public boolean containsUser(String user) {
+        return userScores.containsKey(user);
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        userScores.forEach(action::accept);
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> copy = new TreeMap<>();
+        forEach(copy::put);
+        return copy;
+    }
+}
@@ -0,0 +1,98 @@
+package threadSafeCollection;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Score store where each user is interned to a dense integer id and all scores live in
+ * one `AtomicLongArray`.
+ * 
+ * Key Concepts:
+ * - `idOf(user)` does the string lookup once. Callers that keep the id can use
+ *   `addScore(int, long)`, which is a single atomic add on an array slot: no hashing,
+ *   no allocation and no pointer chasing.
+ * - `addScore(String, long)` is still available; it costs one hash lookup for the id.
+ * - The capacity is fixed when the store is created. Adding more users than that fails
+ *   with an `IllegalStateException`.
+ */
+public class IndexedScoreStore implements ScoreStore {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final AtomicLongArray scores;
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public IndexedScoreStore(int capacity) {
+        this.capacity = capacity;
+        scores = new AtomicLongArray(capacity);
+    }
+
+    // Returns the id of the user, or -1 if the user is unknown
+    public int idOf(String user) {
+        Integer id = ids.get(user);
+        return id == null ? -1 : id;
+    }
+
+    // Number of users that have been added
+    public int size() {
+        return Math.min(nextId.get(), capacity);
+    }
+
+    @Override
+    public void putScore(String user, long score) {
+        int id = ids.computeIfAbsent(user, key -> {
+            int newId = nextId.getAndIncrement();
+            if (newId >= capacity) {
+                throw new IllegalStateException("IndexedScoreStore is full (capacity " + capacity + ")");
+            }
+            return newId;
+        });
+        scores.set(id, score);
+    }
+
+    // Fast path: atomically adds delta to the score of an id returned by idOf()
+    public void addScore(int id, long delta) {
+        scores.getAndAdd(id, delta);
+    }
+
+    public long getScore(int id) {
+        return scores.get(id);
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        int id = idOf(user);
+        if (id < 0) {
+            return false;
+        }
+        scores.getAndAdd(id, delta);
+        return true;
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        int id = idOf(user);
+        return id < 0 ? defaultValue : scores.get(id);
+    }
+
+    @Override
+    public boolean containsUser(String user) {
+        return ids.containsKey(user);
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        // Iterating the id map ensures we only visit ids whose user is fully published
+        ids.forEach((user, id) -> action.accept(user, scores.get(id)));
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> copy = new TreeMap<>();
+        forEach(copy::put);
+        return copy;
+    }
+}
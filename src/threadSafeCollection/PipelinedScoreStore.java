@@ -0,0 +1,306 @@
+package threadSafeCollection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ObjLongConsumer;
+
+import metrics.LogHistogram;
+
+/**
+ * Score store where producers only publish events and a few consumer threads apply them,
+ * modeled on the LMAX Disruptor.
+ * 
+ * Key Concepts:
+ * - **Preallocated ring buffer**: events (score cell, delta, publish time) are written into
+ *   parallel arrays that are allocated once. Publishing an event allocates nothing.
+ * - **Multiple producers**: a producer claims the next sequence number with one atomic
+ *   increment, fills the slot and marks it available for that lap of the ring. Producers never
+ *   wait for each other, however hot the user they update.
+ * - **Partitioned single writers**: every user belongs to exactly one of the `consumers`
+ *   partitions. Each consumer reads the ring and applies only the events of its own users, so
+ *   every score has a single writer and is updated with a plain read and a release store, with
+ *   no CAS and no lock.
+ * - **Batching**: a consumer takes every available event in one pass and publishes its progress
+ *   once per batch. Producers only wrap around the ring once the slowest consumer has passed.
+ * - **Latency**: each consumer records the time from `addScore()` to the moment the delta is
+ *   applied in `latency()`.
+ * 
+ * Updates are asynchronous: `getScore()` right after `addScore()` may not show the delta yet.
+ * `flush()` waits until everything published so far has been applied; after that, reads see
+ * the same scores the synchronous stores would. `putScore()` also goes through the ring, so it
+ * is ordered with the adds of the same producer, and a new user only becomes visible to
+ * `addScore()` once its first `putScore()` is in the ring. Call `close()` to stop the consumer
+ * threads; updates that race with it are still applied.
+ */
+public class PipelinedScoreStore implements ScoreStore, AutoCloseable {
+
+    // One user's score; written only by the consumer that owns its partition
+    static final class ScoreCell {
+        final String user;
+        final int partition;
+        long value;  // Accessed through VALUE
+
+        ScoreCell(String user, int partition) {
+            this.user = user;
+            this.partition = partition;
+        }
+    }
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(ScoreCell.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int PAD = 16;  // Consumer sequences 128 bytes apart, as in StripedCounter
+    private static final int MAX_BATCH = 1024;
+
+    private final ConcurrentHashMap<String, ScoreCell> cells = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final int mask;
+    private final int shift;                     // log2(capacity); sequence >>> shift is the lap
+    private final ScoreCell[] eventCells;
+    private final long[] eventDeltas;
+    private final long[] eventTimes;
+    private final boolean[] eventIsSet;          // true for putScore(), false for addScore()
+    private final AtomicIntegerArray available;  // Lap in which each slot was last published
+    private final AtomicLong cursor = new AtomicLong();  // Next sequence to claim
+    private final AtomicLongArray consumed;      // Last sequence each consumer has processed
+    private volatile long gateCache = -1;        // Recently seen minimum of consumed
+    private final WaitStrategy waitStrategy;
+    private final Thread[] consumers;
+    private final LogHistogram[] latencies;
+    private volatile boolean closed;
+
+    public PipelinedScoreStore(int consumerCount, int minCapacity, WaitStrategy waitStrategy) {
+        capacity = Integer.highestOneBit(Math.max(2, minCapacity - 1)) << 1;  // Power of two
+        mask = capacity - 1;
+        shift = Integer.numberOfTrailingZeros(capacity);
+        eventCells = new ScoreCell[capacity];
+        eventDeltas = new long[capacity];
+        eventTimes = new long[capacity];
+        eventIsSet = new boolean[capacity];
+        available = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            available.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy;
+        consumed = new AtomicLongArray(consumerCount * PAD);
+        consumers = new Thread[consumerCount];
+        latencies = new LogHistogram[consumerCount];
+        for (int p = 0; p < consumerCount; p++) {
+            consumed.set(p * PAD, -1);
+            latencies[p] = new LogHistogram();
+            int partition = p;
+            consumers[p] = new Thread(() -> consumeLoop(partition), "ScoreConsumer-" + p);
+            consumers[p].setDaemon(true);
+            consumers[p].start();
+        }
+    }
+
+    @Override
+    public void putScore(String user, long score) {
+        ScoreCell cell = cells.get(user);
+        if (cell == null) {
+            // A new user's cell becomes visible only after its SET has a sequence, so every add
+            // that finds the cell is ordered after the SET instead of being overwritten by it
+            long[] claimed = { -1 };
+            cell = cells.computeIfAbsent(user, key -> {
+                claimed[0] = claim();
+                return new ScoreCell(key, Math.floorMod(key.hashCode() * 0x9E3779B9, consumers.length));
+            });
+            if (claimed[0] >= 0) {
+                publish(claimed[0], cell, score, true);
+                return;
+            }
+        }
+        publish(claim(), cell, score, true);
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        ScoreCell cell = cells.get(user);
+        if (cell == null) {
+            return false;  // Unknown users are ignored, like computeIfPresent()
+        }
+        publish(claim(), cell, delta, false);
+        return true;
+    }
+
+    private long claim() {
+        if (closed) {
+            throw new IllegalStateException("PipelinedScoreStore is closed");
+        }
+        return cursor.getAndIncrement();
+    }
+
+    private void publish(long sequence, ScoreCell cell, long value, boolean isSet) {
+        long wrapPoint = sequence - capacity;
+        if (wrapPoint > gateCache) {
+            // The slot may still hold an event that a consumer has not processed
+            int rounds = 0;
+            long gate;
+            while (wrapPoint > (gate = minConsumed())) {
+                rounds = waitStrategy.idle(rounds);
+            }
+            gateCache = gate;
+        }
+        int index = (int) (sequence & mask);
+        eventCells[index] = cell;
+        eventDeltas[index] = value;
+        eventIsSet[index] = isSet;
+        eventTimes[index] = System.nanoTime();
+        available.lazySet(index, (int) (sequence >>> shift));  // Release: the fields above become visible
+        if (closed) {
+            // close() began after the claim, so the consumers may have stopped before this sequence
+            drainAfterClose();
+        }
+    }
+
+    private long minConsumed() {
+        long min = Long.MAX_VALUE;
+        for (int p = 0; p < consumers.length; p++) {
+            min = Math.min(min, consumed.get(p * PAD));
+        }
+        return min;
+    }
+
+    private boolean isAvailable(long sequence) {
+        return available.get((int) (sequence & mask)) == (int) (sequence >>> shift);
+    }
+
+    private void consumeLoop(int partition) {
+        LogHistogram latency = latencies[partition];
+        long next = consumed.get(partition * PAD) + 1;
+        int rounds = 0;
+        while (true) {
+            long last = next - 1;
+            while (last - next + 1 < MAX_BATCH && isAvailable(last + 1)) {
+                last++;
+            }
+            if (last < next) {
+                if (closed && next >= cursor.get()) {
+                    return;
+                }
+                rounds = waitStrategy.idle(rounds);
+                continue;
+            }
+            rounds = 0;
+            long now = System.nanoTime();
+            for (long sequence = next; sequence <= last; sequence++) {
+                int index = (int) (sequence & mask);
+                ScoreCell cell = eventCells[index];
+                if (cell.partition != partition) {
+                    continue;
+                }
+                long current = eventIsSet[index] ? 0 : (long) VALUE.get(cell);
+                VALUE.setRelease(cell, current + eventDeltas[index]);
+                latency.record(now - eventTimes[index]);
+            }
+            consumed.lazySet(partition * PAD, last);  // Frees the slots for producers
+            next = last + 1;
+        }
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        ScoreCell cell = cells.get(user);
+        return cell == null ? defaultValue : (long) VALUE.getAcquire(cell);
+    }
+
+    @Override
+    public boolean containsUser(String user) {
+        return cells.containsKey(user);
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        cells.forEach((user, cell) -> action.accept(user, (long) VALUE.getAcquire(cell)));
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> copy = new TreeMap<>();
+        forEach(copy::put);
+        return copy;
+    }
+
+    // Waits until every update published before this call has been applied
+    @Override
+    public void flush() {
+        long target = cursor.get() - 1;
+        int rounds = 0;
+        while (minConsumed() < target) {
+            rounds = waitStrategy.idle(rounds);
+        }
+    }
+
+    // Time from publish to apply, over all consumers
+    public LogHistogram latency() {
+        LogHistogram total = new LogHistogram();
+        for (LogHistogram histogram : latencies) {
+            total.add(histogram);
+        }
+        return total;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Applies everything already published, then stops the consumer threads
+    @Override
+    public void close() {
+        closed = true;
+        drainAfterClose();
+    }
+
+    /**
+     * Waits for the consumers to stop, then applies every claimed event they did not get to.
+     * Called by `close()` and by producers that claimed a sequence while `close()` was running,
+     * so no accepted update is lost and `flush()` always finishes. Synchronized, so the events
+     * still have a single writer.
+     */
+    private synchronized void drainAfterClose() {
+        boolean interrupted = false;
+        for (Thread consumer : consumers) {
+            while (consumer.isAlive()) {
+                try {
+                    consumer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (long sequence = minConsumed() + 1; sequence < cursor.get(); sequence++) {
+            int rounds = 0;
+            while (!isAvailable(sequence)) {
+                rounds = waitStrategy.idle(rounds);  // Its producer is still writing the slot
+            }
+            int index = (int) (sequence & mask);
+            ScoreCell cell = eventCells[index];
+            if (consumed.get(cell.partition * PAD) < sequence) {
+                long current = eventIsSet[index] ? 0 : (long) VALUE.get(cell);
+                VALUE.setRelease(cell, current + eventDeltas[index]);
+            }
+            for (int p = 0; p < consumers.length; p++) {
+                if (consumed.get(p * PAD) < sequence) {
+                    consumed.lazySet(p * PAD, sequence);  // Frees the slot for producers waiting to wrap
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
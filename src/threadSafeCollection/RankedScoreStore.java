@@ -0,0 +1,193 @@
+package threadSafeCollection;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Score store that also maintains a leaderboard, ordered by score, as scores change.
+ * 
+ * Key Concepts:
+ * - Besides the user -> score map, every user has exactly one `Entry` in a
+ *   `ConcurrentSkipListSet` sorted by score (highest first, ties broken by user name).
+ * - An update replaces the user's entry: insert the new one, then remove the old one. Updates to
+ *   the same user are serialized on that user's slot, so the old entry is always the one in
+ *   the set. Updates to different users never wait for each other.
+ * - `topK(k)` walks the first `k` entries of the skip list, so it costs O(k) instead of
+ *   sorting the whole map. `rankOf(user)` counts the entries ahead of the user, O(rank).
+ * - Queries never take a lock. An update adds the new entry before it removes the old one, so
+ *   for a moment the set holds both. Queries skip every entry that is not its user's current
+ *   one, and also remember the users they have already returned: when a score goes down, the
+ *   new entry sorts after the old one, so one walk can see the old entry while it is still
+ *   current and then the new one. Each user therefore appears at most once. While an update is
+ *   in flight, its user may briefly be missing from a query result; every entry a query does
+ *   return is a real (user, score) pair.
+ * - `RankingStressCheck` moves scores up and down while other threads query, and checks this.
+ */
+public class RankedScoreStore implements ScoreStore {
+
+    /**
+     * One row of the leaderboard. Immutable; a new entry is created for every update.
+     */
+    public static final class Entry implements Comparable<Entry> {
+        private final String user;
+        private final long score;
+
+        Entry(String user, long score) {
+            this.user = user;
+            this.score = score;
+        }
+
+        public String user() {
+            return user;
+        }
+
+        public long score() {
+            return score;
+        }
+
+        // Highest score first; equal scores are ordered by user so every user has a distinct position
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Long.compare(other.score, score);
+            return byScore != 0 ? byScore : user.compareTo(other.user);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && compareTo((Entry) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return user.hashCode() * 31 + Long.hashCode(score);
+        }
+
+        @Override
+        public String toString() {
+            return user + "=" + score;
+        }
+    }
+
+    // Per-user slot; its monitor serializes updates to that one user
+    private static final class Slot {
+        volatile Entry current;
+
+        Slot(Entry current) {
+            this.current = current;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>();
+
+    @Override
+    public void putScore(String user, long score) {
+        Slot slot = slots.computeIfAbsent(user, key -> new Slot(null));
+        synchronized (slot) {
+            replace(slot, new Entry(user, score));
+        }
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        Slot slot = slots.get(user);
+        if (slot == null) {
+            return false;
+        }
+        synchronized (slot) {
+            Entry old = slot.current;
+            if (old == null) {
+                return false;  // Another thread is still inserting this user
+            }
+            replace(slot, new Entry(user, old.score + delta));
+        }
+        return true;
+    }
+
+    // Must be called while holding the slot's monitor
+    private void replace(Slot slot, Entry next) {
+        Entry old = slot.current;
+        if (old != null && old.equals(next)) {
+            return;  // Same score: keep the entry that is already in the set
+        }
+        ranking.add(next);  // Add first, so the user is never absent from the slot itself
+        slot.current = next;
+        if (old != null) {
+            ranking.remove(old);
+        }
+    }
+
+    // False for an entry that an update in flight has already replaced, or not yet installed
+    private boolean isCurrent(Entry entry) {
+        Slot slot = slots.get(entry.user);
+        return slot != null && slot.current == entry;
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        Slot slot = slots.get(user);
+        Entry entry = slot == null ? null : slot.current;
+        return entry == null ? defaultValue : entry.score;
+    }
+
+    @Override
+    public boolean containsUser(String user) {
+        Slot slot = slots.get(user);
+        return slot != null && slot.current != null;  // A slot without an entry is still being inserted
+    }
+
+    // The k highest-scoring users, highest first
+    public List<Entry> topK(int k) {
+        List<Entry> top = new ArrayList<>(k);
+        Set<String> seen = new HashSet<>();
+        Iterator<Entry> it = ranking.iterator();
+        while (top.size() < k && it.hasNext()) {
+            Entry entry = it.next();
+            if (isCurrent(entry) && seen.add(entry.user)) {
+                top.add(entry);
+            }
+        }
+        return top;
+    }
+
+    // 1-based rank of the user (1 = highest score), or -1 if the user is unknown
+    public int rankOf(String user) {
+        Slot slot = slots.get(user);
+        Entry entry = slot == null ? null : slot.current;
+        if (entry == null) {
+            return -1;
+        }
+        Set<String> ahead = new HashSet<>();
+        for (Entry other : ranking.headSet(entry)) {
+            if (isCurrent(other) && !other.user.equals(user)) {
+                ahead.add(other.user);  // A user whose score just went down may be seen twice
+            }
+        }
+        return ahead.size() + 1;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        slots.forEach((user, slot) -> {
+            Entry entry = slot.current;
+            if (entry != null) {
+                action.accept(user, entry.score);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> copy = new TreeMap<>();
+        forEach(copy::put);
+        return copy;
+    }
+}
@@ -0,0 +1,85 @@
+package threadSafeCollection;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that `RankedScoreStore` queries never report a user twice while scores move.
+ *
+ * Usage: `java threadSafeCollection.RankingStressCheck [seconds] [users] [k]`
+ *
+ * What this code does:
+ * - Adds `users` users (default 100), then starts one writer thread that moves random users far
+ *   up and back down again, so their entries overtake many others in both directions.
+ * - At the same time, one reader thread per core calls `topK(k)` (default 60) and `rankOf()`
+ *   for a random user, for `seconds` seconds (default 2).
+ * - Counts the `topK` results that list a user twice and the ranks outside `1..users`, and
+ *   throws if there are any.
+ */
+public class RankingStressCheck {
+
+    public static void main(String[] args) throws InterruptedException {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2.0;
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int readers = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+        RankedScoreStore store = new RankedScoreStore();
+        for (int u = 0; u < users; u++) {
+            store.putScore("User" + u, u * 10L);
+        }
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        AtomicLong queries = new AtomicLong();
+        AtomicLong duplicates = new AtomicLong();
+        AtomicLong badRanks = new AtomicLong();
+
+        Thread writer = new Thread(() -> {
+            SplittableRandom random = new SplittableRandom(1);
+            while (System.nanoTime() - end < 0) {
+                String user = "User" + random.nextInt(users);
+                long jump = users * 10L;
+                store.addScore(user, jump);   // Up past most other users...
+                store.addScore(user, -jump);  // ...and back down, behind its old entry
+            }
+        }, "RankingWriter");
+        Thread[] readerThreads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            SplittableRandom random = new SplittableRandom(100 + r);
+            readerThreads[r] = new Thread(() -> {
+                while (System.nanoTime() - end < 0) {
+                    List<RankedScoreStore.Entry> top = store.topK(k);
+                    Set<String> seen = new HashSet<>();
+                    for (RankedScoreStore.Entry entry : top) {
+                        if (!seen.add(entry.user())) {
+                            duplicates.incrementAndGet();
+                            break;
+                        }
+                    }
+                    int rank = store.rankOf("User" + random.nextInt(users));
+                    if (rank < 1 || rank > users) {
+                        badRanks.incrementAndGet();
+                    }
+                    queries.incrementAndGet();
+                }
+            }, "RankingReader-" + r);
+        }
+
+        writer.start();
+        for (Thread reader : readerThreads) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readerThreads) {
+            reader.join();
+        }
+
+        System.out.printf("%,d queries by %d readers: %d with a duplicate user, %d ranks out of range%n",
+                queries.get(), readers, duplicates.get(), badRanks.get());
+        if (duplicates.get() != 0 || badRanks.get() != 0) {
+            throw new IllegalStateException("RankedScoreStore reported inconsistent results");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package threadSafeCollection;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Compares direct score updates with the `PipelinedScoreStore` ring buffer under a hot-user load.
+ * 
+ * Usage: `java threadSafeCollection.ScoreIngestReport [producers] [updatesPerProducer] [users] [hotPercent]`
+ * 
+ * What this code does:
+ * - Each producer thread (default: the number of cores) sends `updatesPerProducer` updates
+ *   (default 2 million). `hotPercent` of them (default 50) go to `User1`, the rest to random
+ *   users out of `users` (default 1000). Every producer uses a fixed random seed, so every run
+ *   sends exactly the same updates.
+ * - Runs the updates directly against `BOXED` (`computeIfPresent`, the original path) and `ATOMIC`
+ *   stores, then through `PipelinedScoreStore` with 1 and 2 consumers and each `WaitStrategy`.
+ * - Prints updates per second, counted until all updates are applied, and for the pipelined
+ *   runs the publish-to-apply latency percentiles. It checks that every run ends with exactly
+ *   the same scores as `BOXED`.
+ * 
+ * `BUSY_SPIN` needs a free core per consumer; on small machines it is skipped for
+ * configurations that would spin on more threads than there are cores.
+ */
+public class ScoreIngestReport {
+
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : cores;
+        int updates = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int hotPercent = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        System.out.printf("%d producers x %,d updates, %d users, %d%% to User1%n", producers, updates, users, hotPercent);
+        System.out.printf("%-26s %14s %10s %10s %10s %8s%n", "store", "updates/s", "p50 us", "p99 us", "p99.9 us", "scores");
+
+        Map<String, Long> expected = run("BOXED", new BoxedScoreStore(), producers, updates, users, hotPercent, null);
+        run("ATOMIC", new AtomicScoreStore(), producers, updates, users, hotPercent, expected);
+        for (int consumers = 1; consumers <= 2; consumers++) {
+            for (WaitStrategy strategy : WaitStrategy.values()) {
+                String name = "PIPELINED " + consumers + "c " + strategy;
+                if (strategy == WaitStrategy.BUSY_SPIN && consumers + producers > cores) {
+                    System.out.printf("%-26s skipped: needs %d cores%n", name, consumers + producers);
+                    continue;
+                }
+                try (PipelinedScoreStore store = new PipelinedScoreStore(consumers, 1 << 16, strategy)) {
+                    run(name, store, producers, updates, users, hotPercent, expected);
+                    System.out.printf("%-26s %14s %10.1f %10.1f %10.1f%n", "", "latency:",
+                            store.latency().percentile(50) / 1e3, store.latency().percentile(99) / 1e3,
+                            store.latency().percentile(99.9) / 1e3);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Long> run(String name, ScoreStore store, int producers, int updates, int users,
+            int hotPercent, Map<String, Long> expected) throws InterruptedException {
+        String[] names = new String[users];
+        for (int i = 0; i < users; i++) {
+            names[i] = "User" + (i + 1);
+            store.putScore(names[i], 0);
+        }
+        store.flush();
+
+        Thread[] threads = new Thread[producers];
+        for (int t = 0; t < producers; t++) {
+            long seed = t + 1;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < updates; i++) {
+                    String user = random.nextInt(100) < hotPercent ? names[0] : names[random.nextInt(users)];
+                    store.addScore(user, 1 + random.nextInt(10));
+                }
+            }, "Producer-" + t);
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        store.flush();
+        long elapsed = System.nanoTime() - start;
+
+        Map<String, Long> scores = store.snapshot();
+        String check = expected == null ? "-" : (scores.equals(expected) ? "same" : "DIFFERENT");
+        System.out.printf("%-26s %,14.0f %10s %10s %10s %8s%n", name, (double) producers * updates / (elapsed / 1e9),
+                "", "", "", check);
+        return scores;
+    }
+}
@@ -0,0 +1,39 @@
+package threadSafeCollection;
+
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A concurrent table of user scores that many threads update at the same time.
+ * 
+ * Key Concepts:
+ * - `addScore()` behaves like `ConcurrentHashMap.computeIfPresent()` in `ThreadSafeMapExample`:
+ *   it only updates users that already exist and returns false for unknown users.
+ * - `forEach()` and `snapshot()` may run while writers are active. Each score they report is
+ *   a value the user really had at some point, but the scores of different users are not
+ *   taken at the same instant.
+ */
+public interface ScoreStore {
+
+    // Adds a user with the given score, replacing any previous score
+    void putScore(String user, long score);
+
+    // Atomically adds delta to an existing user's score; returns false if the user is unknown
+    boolean addScore(String user, long delta);
+
+    // Returns the user's score, or defaultValue if the user is unknown
+    long getScore(String user, long defaultValue);
+
+    // Whether the user has been added; users are never removed, so once true it stays true
+    boolean containsUser(String user);
+
+    // Calls the action for every user and score without building an intermediate map
+    void forEach(ObjLongConsumer<String> action);
+
+    // Copies all scores into a new map, sorted by user
+    Map<String, Long> snapshot();
+
+    // Waits until all updates made so far are visible to readers; stores that update synchronously do nothing
+    default void flush() {
+    }
+}
@@ -0,0 +1,93 @@
+package threadSafeCollection;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares how many bytes each `ScoreStore` allocates per score update.
+ * 
+ * Usage: `java threadSafeCollection.ScoreStoreAllocationReport [users] [updates]`
+ * 
+ * What this code does:
+ * - Fills every store type with the same users.
+ * - Runs a warm-up round so the JIT has compiled the update path, then measures the bytes
+ *   the current thread allocates during `updates` calls to `addScore()`, using
+ *   `com.sun.management.ThreadMXBean.getThreadAllocatedBytes()`.
+ * - For `INDEXED` it also measures the id-based fast path `addScore(int, long)`.
+ * 
+ * Deltas above 127 are used on purpose: `Integer.valueOf` caches small values, which would
+ * hide the boxing cost of the `BOXED` store.
+ */
+public class ScoreStoreAllocationReport {
+    private static final long DELTA = 1000;
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int updates = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        String[] names = new String[users];
+        for (int i = 0; i < users; i++) {
+            names[i] = "User" + (i + 1);
+        }
+
+        for (ScoreStoreType type : ScoreStoreType.values()) {
+            ScoreStore store = type.create();
+            for (String name : names) {
+                store.putScore(name, 0);
+            }
+            runUpdates(store, names, updates);  // Warm-up
+
+            long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            runUpdates(store, names, updates);
+            store.flush();  // Asynchronous stores: include the time to apply the updates
+            long elapsed = System.nanoTime() - start;
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            print(type.name(), updates, allocated, elapsed);
+
+            if (store instanceof IndexedScoreStore) {
+                IndexedScoreStore indexed = (IndexedScoreStore) store;
+                int[] ids = new int[users];
+                for (int i = 0; i < users; i++) {
+                    ids[i] = indexed.idOf(names[i]);
+                }
+                runIdUpdates(indexed, ids, updates);  // Warm-up
+
+                allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+                start = System.nanoTime();
+                runIdUpdates(indexed, ids, updates);
+                elapsed = System.nanoTime() - start;
+                allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+                print(type.name() + " (by id)", updates, allocated, elapsed);
+            }
+            if (store instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) store).close();
+                } catch (Exception e) {
+                    System.err.println("Could not close " + type + ": " + e);
+                }
+            }
+        }
+    }
+
+    private static void runUpdates(ScoreStore store, String[] names, int updates) {
+        for (int i = 0; i < updates; i++) {
+            store.addScore(names[i % names.length], DELTA);
+        }
+    }
+
+    private static void runIdUpdates(IndexedScoreStore store, int[] ids, int updates) {
+        for (int i = 0; i < updates; i++) {
+            store.addScore(ids[i % ids.length], DELTA);
+        }
+    }
+
+    private static void print(String name, int updates, long allocatedBytes, long elapsedNanos) {
+        System.out.printf("%-18s %8.2f bytes/update %10.1f ns/update %12.0f updates/s%n",
+                name, (double) allocatedBytes / updates, (double) elapsedNanos / updates,
+                updates * 1e9 / elapsedNanos);
+    }
+}
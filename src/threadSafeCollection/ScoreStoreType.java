@@ -0,0 +1,46 @@
+package threadSafeCollection;
+
+import java.util.Locale;
+
+/**
+ * The `ScoreStore` implementations that `ThreadSafeMapExample` can run against.
+ */
+public enum ScoreStoreType {
+    BOXED,    // ConcurrentHashMap<String, Integer> with computeIfPresent (original behavior)
+    ATOMIC,   // ConcurrentHashMap<String, AtomicLong>, updated in place
+    INDEXED,  // interned ids into an AtomicLongArray
+    RANKED,   // per-user entries plus a score-ordered skip list for top-K queries
+    SNAPSHOT, // seqlock-guarded arrays; lock-free, consistent reads for read-mostly traffic
+    PIPELINED; // producers publish into a ring buffer; partitioned consumer threads apply the updates
+
+    // Capacity used for INDEXED stores created by create()
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    // Ring buffer size of PIPELINED stores created by create()
+    public static final int DEFAULT_RING_CAPACITY = 1 << 16;
+
+    public ScoreStore create() {
+        switch (this) {
+            case BOXED:
+                return new BoxedScoreStore();
+            case ATOMIC:
+                return new AtomicScoreStore();
+            case INDEXED:
+                return new IndexedScoreStore(DEFAULT_CAPACITY);
+            case RANKED:
+                return new RankedScoreStore();
+            case SNAPSHOT:
+                return new SnapshotScoreStore();
+            case PIPELINED:
+                // Parking consumers, so idle stores do not keep cores busy
+                return new PipelinedScoreStore(Math.max(1, Runtime.getRuntime().availableProcessors() / 4),
+                        DEFAULT_RING_CAPACITY, WaitStrategy.PARK);
+            default:
+                throw new AssertionError(this);
+        }
+    }
+
+    public static ScoreStoreType parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
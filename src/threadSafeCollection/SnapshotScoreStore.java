@@ -0,0 +1,162 @@
+package threadSafeCollection;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjLongConsumer;
+
+import locksEx.SeqLock;
+
+/**
+ * Score store for read-mostly traffic, whose `snapshot()` is consistent across all users.
+ * 
+ * Key Concepts:
+ * - Users are interned to dense ids, like `IndexedScoreStore`. Names and scores live in two
+ *   plain arrays that are guarded by a `locksEx.SeqLock`.
+ * - Writers take the write lock, so updates run one at a time. Readers never lock:
+ *   `getScore()`, `forEach()` and `snapshot()` copy what they need and retry if a write
+ *   overlapped the copy.
+ * - Unlike the other stores, `snapshot()` and `forEach()` show every score as of the same
+ *   moment, between two writes.
+ * - `readRetries()` counts the repeated reads, so the cost of overlapping writes is visible.
+ */
+public class SnapshotScoreStore implements ScoreStore {
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final SeqLock seqLock = new SeqLock();
+    // Written only under the write lock; readers copy them between beginRead() and endRead()
+    private String[] users = new String[16];
+    private long[] scores = new long[16];
+    private int size;
+
+    @Override
+    public void putScore(String user, long score) {
+        seqLock.lockWrite();
+        try {
+            Integer id = ids.get(user);
+            if (id == null) {
+                if (size == scores.length) {
+                    // Readers holding the old arrays fail endRead(), because this is a write
+                    users = Arrays.copyOf(users, size * 2);
+                    scores = Arrays.copyOf(scores, size * 2);
+                }
+                id = size;
+                users[id] = user;
+                size++;
+                ids.put(user, id);
+            }
+            scores[id] = score;
+        } finally {
+            seqLock.unlockWrite();
+        }
+    }
+
+    @Override
+    public boolean addScore(String user, long delta) {
+        Integer id = ids.get(user);
+        if (id == null) {
+            return false;
+        }
+        seqLock.lockWrite();
+        try {
+            scores[id] += delta;
+        } finally {
+            seqLock.unlockWrite();
+        }
+        return true;
+    }
+
+    // Moves delta points from one existing user to another in one write; false if either is unknown
+    public boolean moveScore(String from, String to, long delta) {
+        Integer fromId = ids.get(from);
+        Integer toId = ids.get(to);
+        if (fromId == null || toId == null) {
+            return false;
+        }
+        seqLock.lockWrite();
+        try {
+            scores[fromId] -= delta;
+            scores[toId] += delta;
+        } finally {
+            seqLock.unlockWrite();
+        }
+        return true;
+    }
+
+    @Override
+    public long getScore(String user, long defaultValue) {
+        Integer id = ids.get(user);
+        if (id == null) {
+            return defaultValue;
+        }
+        while (true) {
+            long stamp = seqLock.beginRead();
+            long[] current = scores;
+            long value = id < current.length ? current[id] : 0;
+            if (seqLock.endRead(stamp)) {
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public boolean containsUser(String user) {
+        return ids.containsKey(user);
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<String> action) {
+        String[] userCopy;
+        long[] scoreCopy;
+        while (true) {
+            long stamp = seqLock.beginRead();
+            String[] currentUsers = users;
+            long[] currentScores = scores;
+            int count = Math.min(size, Math.min(currentUsers.length, currentScores.length));
+            userCopy = Arrays.copyOf(currentUsers, count);
+            scoreCopy = Arrays.copyOf(currentScores, count);
+            if (seqLock.endRead(stamp)) {
+                break;
+            }
+        }
+        // The action runs outside the read, so a slow action cannot cause retries
+        for (int i = 0; i < userCopy.length; i++) {
+            action.accept(userCopy[i], scoreCopy[i]);
+        }
+    }
+
+    @Override
+    public Map<String, Long> snapshot() {
+        Map<String, Long> copy = new TreeMap<>();
+        forEach(copy::put);
+        return copy;
+    }
+
+    // Sum of all scores as of one point in time
+    public long total() {
+        while (true) {
+            long stamp = seqLock.beginRead();
+            long[] current = scores;
+            int count = Math.min(size, current.length);
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += current[i];
+            }
+            if (seqLock.endRead(stamp)) {
+                return sum;
+            }
+        }
+    }
+
+    public long reads() {
+        return seqLock.reads();
+    }
+
+    public long readRetries() {
+        return seqLock.retries();
+    }
+
+    public void resetStats() {
+        seqLock.resetStats();
+    }
+}
@@ -1,45 +1,69 @@
 package threadSafeCollection;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
+import execution.ExecutionMode;
+import execution.TaskGroup;
+import logging.Log;
+
+/**
+ * Three threads update user scores in a shared, thread-safe score table.
+ * 
+ * Usage: `java threadSafeCollection.ThreadSafeMapExample [boxed|atomic|indexed|ranked|snapshot|pipelined]`
+ * 
+ * The scores are kept in a `ScoreStore`; the argument names one of the `ScoreStoreType`
+ * implementations, and `boxed` is the default:
+ * - `boxed` is the original `ConcurrentHashMap<String, Integer>` updated with `computeIfPresent`.
+ * - `atomic` and `indexed` update a primitive `long` in place, without boxing.
+ * - `ranked` also keeps a leaderboard up to date; the top users are printed at the end.
+ * - `snapshot` reads without locking and prints tables that are consistent across users,
+ *   even while writers are active.
+ * - `pipelined` publishes the updates into a ring buffer that consumer threads apply
+ *   asynchronously; the final scores are printed after `flush()`, so they are the same.
+ * 
+ * The three update threads are forked and joined as one `execution.TaskGroup`, and messages
+ * are written through the asynchronous `logging.Log`. See `ScoreStoreAllocationReport` for how
+ * much each store allocates per update.
+ */
 public class ThreadSafeMapExample {
 
-    private static final ConcurrentHashMap<String, Integer> userScores = new ConcurrentHashMap<>();
+    private static ScoreStore userScores = new BoxedScoreStore();
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            userScores = ScoreStoreType.parse(args[0]).create();
+        }
+
         // Initializing the map with some user scores
-        userScores.put("User1", 10);
-        userScores.put("User2", 20);
-        userScores.put("User3", 30);
-
-        // Creating threads that update user scores
-        Thread user1Thread = new Thread(() -> updateScore("User1", 5));
-        Thread user2Thread = new Thread(() -> updateScore("User2", 3));
-        Thread user3Thread = new Thread(() -> updateScore("User3", 7));
-
-        // Starting the threads
-        user1Thread.start();
-        user2Thread.start();
-        user3Thread.start();
-
-        try {
-            // Wait for all threads to finish
-            user1Thread.join();
-            user2Thread.join();
-            user3Thread.join();
+        userScores.putScore("User1", 10);
+        userScores.putScore("User2", 20);
+        userScores.putScore("User3", 30);
+
+        // Forking one task per user update and waiting for all of them
+        try (TaskGroup<Void> updates = new TaskGroup<>(TaskGroup.Policy.JOIN_ALL, ExecutionMode.PLATFORM)) {
+            updates.fork("User1", () -> updateScore("User1", 5));
+            updates.fork("User2", () -> updateScore("User2", 3));
+            updates.fork("User3", () -> updateScore("User3", 7));
+            updates.join();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            System.out.println("Thread interrupted: " + e.getMessage());
+            Log.println("Thread interrupted: " + e.getMessage());
+        } catch (ExecutionException e) {
+            Log.println("Score update failed: " + e.getCause());
         }
 
-        // Display final scores
-        System.out.println("Final User Scores: " + userScores);
+        // Display final scores, once every update has been applied
+        userScores.flush();
+        Log.println("Final User Scores: " + userScores.snapshot());
+        if (userScores instanceof RankedScoreStore) {
+            Log.println("Leaderboard: " + ((RankedScoreStore) userScores).topK(3));
+        }
     }
 
     // Method to update user score
     private static void updateScore(String user, int increment) {
-        userScores.computeIfPresent(user, (key, value) -> value + increment);
-        System.out.println(user + " updated their score to: " + userScores.get(user));
+        userScores.addScore(user, increment);
+        Log.println(user + " updated their score to: " + userScores.getScore(user, 0));
     }
     
 }
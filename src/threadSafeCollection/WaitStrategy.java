@@ -0,0 +1,41 @@
+package threadSafeCollection;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a `PipelinedScoreStore` thread does while it has nothing to do: a consumer waiting
+ * for events, or a producer waiting for a full ring buffer to drain.
+ * 
+ * - `BUSY_SPIN`: loop with `Thread.onSpinWait()`. Lowest latency, but the thread keeps a core
+ *   busy all the time. Only use it with fewer spinning threads than cores.
+ * - `YIELD`: spin briefly, then `Thread.yield()`. Low latency, and gives other threads a
+ *   chance to run on busy machines, but still uses CPU while idle.
+ * - `PARK`: spin briefly, then park for up to `PARK_NANOS` at a time. Uses almost no CPU while
+ *   idle, at the cost of up to that much extra latency for the first event after a pause.
+ */
+public enum WaitStrategy {
+    BUSY_SPIN,
+    YIELD,
+    PARK;
+
+    static final int SPIN_ROUNDS = 100;
+    static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // Waits once; pass 0 after doing work and the returned value while idle
+    public int idle(int rounds) {
+        if (this == BUSY_SPIN || rounds < SPIN_ROUNDS) {
+            Thread.onSpinWait();
+        } else if (this == YIELD) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return rounds + 1;
+    }
+
+    public static WaitStrategy parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
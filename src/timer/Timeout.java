@@ -0,0 +1,89 @@
+package timer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Handle for a task scheduled on a `TimerWheel`.
+ * 
+ * The handle is also the wheel's list node, so scheduling a task allocates nothing else.
+ * `cancel()` only flips the state and queues the handle for the ticker thread, which unlinks it
+ * from its bucket in constant time.
+ */
+public final class Timeout {
+    static final int PENDING = 0;
+    static final int CANCELLED = 1;
+    static final int EXPIRED = 2;
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    final TimerWheel wheel;
+    final Runnable task;
+    final long periodNanos;  // 0 for one-shot timeouts
+    volatile long deadlineNanos;  // Advanced by the ticker for periodic timeouts
+    private volatile int state;
+
+    // Owned by the ticker thread
+    Timeout prev;
+    Timeout next;
+    int bucket = -1;         // Index into the wheel's buckets, -1 while not linked
+
+    // Links of the lock-free stacks that hand new and cancelled timeouts to the ticker
+    Timeout nextPending;
+    Timeout nextCancelled;
+
+    Timeout(TimerWheel wheel, Runnable task, long deadlineNanos, long periodNanos) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Stops the task from running. A periodic task stops repeating; a run that has already been
+     * handed to the executor is not interrupted.
+     * 
+     * @return true if this call cancelled it; false if it had already run or been cancelled
+     */
+    public boolean cancel() {
+        if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+            return false;
+        }
+        wheel.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    // True once a one-shot task has been handed to the executor
+    public boolean isExpired() {
+        return state == EXPIRED;
+    }
+
+    public boolean isPeriodic() {
+        return periodNanos > 0;
+    }
+
+    // When the task is (next) due, on the `System.nanoTime()` clock
+    public long deadlineNanos() {
+        return deadlineNanos;
+    }
+
+    boolean isPending() {
+        return state == PENDING;
+    }
+
+    boolean expire() {
+        return STATE.compareAndSet(this, PENDING, EXPIRED);
+    }
+}
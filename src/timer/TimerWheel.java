@@ -0,0 +1,337 @@
+package timer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A timer for large numbers of timeouts, retries and periodic tasks, driven by a single daemon
+ * thread: a hierarchical timing wheel, as in the Linux kernel's timer wheel.
+ * 
+ * Key Concepts:
+ * - **Ticks**: time is counted in ticks of `tickNanos` (1 ms for `shared()`). A task runs at the
+ *   first tick at or after its deadline, so it may run up to one tick late, never early.
+ * - **Hierarchy**: there are `LEVELS` wheels of `SLOTS` buckets each. Level 0 has one bucket
+ *   per tick for the next 256 ticks, level 1 one bucket per 256 ticks, and so on. A timeout
+ *   goes into the level of the highest tick digit (base 256) in which its deadline differs
+ *   from the current tick. When the lower digits of the current tick roll over to zero, the
+ *   bucket of the next higher level is "cascaded": its timeouts are placed again, now into
+ *   lower levels. Each timeout moves at most `LEVELS - 1` times in its life.
+ * - **O(1) insert and cancel**: `schedule()` pushes the timeout onto a lock-free stack with one
+ *   compare-and-set; `cancel()` does the same on a second stack. The ticker thread takes both
+ *   stacks whole, links new timeouts into their buckets and unlinks cancelled ones from their
+ *   doubly-linked bucket lists. Only the ticker touches the buckets, so they need no locks.
+ * - **One thread**: the ticker wakes up once per tick while timeouts are pending, and parks
+ *   indefinitely when there are none, so an idle timer costs nothing. Due tasks are handed to
+ *   the `Executor`; only a direct executor (`Runnable::run`) runs them on the ticker itself,
+ *   which is fine for tasks that just set a flag or wake a thread.
+ * - One pending timeout costs one small object, instead of a sleeping thread
+ *   (`Thread.sleep` in `MyThread`) or a heap entry in a `ScheduledThreadPoolExecutor`.
+ * 
+ * Delays are capped at `2^32` ticks (about 49 days at 1 ms). The tick count itself has no
+ * limit: once it passes `2^40` (18 minutes at 1 ns ticks, 35 years at 1 ms), a deadline can differ
+ * from the current tick in a digit above the top level. Such a timeout goes into the top level,
+ * whose next bucket to cascade is always the one that covers it, so it still fires on time.
+ */
+public final class TimerWheel implements AutoCloseable {
+    static final int SLOT_BITS = 8;
+    static final int SLOTS = 1 << SLOT_BITS;
+    static final int LEVELS = 5;
+    private static final long MAX_DELAY_TICKS = 1L << 32;
+
+    private final long tickNanos;
+    private final Executor executor;
+    private final long startNanos;
+    private final Thread ticker;
+
+    // Bucket lists, owned by the ticker: LEVELS * SLOTS heads
+    private final Timeout[] buckets = new Timeout[LEVELS * SLOTS];
+    private long now;          // Last tick processed; owned by the ticker
+    private long linked;       // Timeouts in buckets; owned by the ticker
+
+    private final AtomicReference<Timeout> newTimeouts = new AtomicReference<>();
+    private final AtomicReference<Timeout> cancelledTimeouts = new AtomicReference<>();
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private static final class Shared {
+        static final TimerWheel INSTANCE = new TimerWheel(1, TimeUnit.MILLISECONDS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param tick     length of one tick; the timer's resolution
+     * @param executor runs the tasks that are due
+     */
+    public TimerWheel(long tick, TimeUnit unit, Executor executor) {
+        this("TimerWheel-ticker", tick, unit, executor);
+    }
+
+    // Like the constructor above, with a name for the ticker thread so profiles can tell wheels apart
+    public TimerWheel(String tickerName, long tick, TimeUnit unit, Executor executor) {
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.ticker = new Thread(this::tickLoop, tickerName);
+        this.ticker.setDaemon(true);  // Pending timeouts must never keep the JVM alive
+        this.ticker.start();
+    }
+
+    // A process-wide wheel with 1 ms ticks that runs due tasks on the common ForkJoinPool
+    public static TimerWheel shared() {
+        return Shared.INSTANCE;
+    }
+
+    // Runs the task once after the delay
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return add(new Timeout(this, task, deadline(delay, unit), 0));
+    }
+
+    /**
+     * Runs the task after `initialDelay`, then every `period` (at fixed rate, measured from the
+     * first deadline, not from when each run ends) until the timeout is cancelled. Periods
+     * shorter than one tick are rounded up to one tick. Runs missed because the ticker could
+     * not keep up are skipped, not run back to back.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        long periodNanos = Math.max(tickNanos, unit.toNanos(period));
+        return add(new Timeout(this, task, deadline(initialDelay, unit), periodNanos));
+    }
+
+    private long deadline(long delay, TimeUnit unit) {
+        long delayNanos = Math.min(Math.max(0, unit.toNanos(delay)), (MAX_DELAY_TICKS - 1) * tickNanos);
+        return System.nanoTime() + delayNanos;
+    }
+
+    private Timeout add(Timeout timeout) {
+        if (closed) {
+            throw new RejectedExecutionException("TimerWheel is closed");
+        }
+        scheduled.increment();
+        Timeout head;
+        do {
+            head = newTimeouts.get();
+            timeout.nextPending = head;
+        } while (!newTimeouts.compareAndSet(head, timeout));
+        if (idle) {
+            LockSupport.unpark(ticker);  // The ticker parks without a deadline while the wheel is empty
+        }
+        return timeout;
+    }
+
+    // Called by Timeout.cancel() after it won the state change
+    void cancelled(Timeout timeout) {
+        cancelled.increment();
+        scheduled.decrement();
+        Timeout head;
+        do {
+            head = cancelledTimeouts.get();
+            timeout.nextCancelled = head;
+        } while (!cancelledTimeouts.compareAndSet(head, timeout));
+    }
+
+    private void tickLoop() {
+        while (!closed) {
+            takeNewTimeouts();
+            takeCancelledTimeouts();
+            if (linked == 0) {
+                idle = true;
+                if (newTimeouts.get() == null && !closed) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                now = currentTick();  // Nothing is linked, so the wheel can jump to the present
+                continue;
+            }
+            long target = currentTick();
+            while (now < target) {
+                processTick(++now);
+            }
+            long wakeUp = startNanos + (now + 1) * tickNanos;
+            long sleep = wakeUp - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / tickNanos;
+    }
+
+    // The first tick at or after the deadline, so tasks never run early
+    private long deadlineTick(Timeout timeout) {
+        long sinceStart = timeout.deadlineNanos - startNanos;
+        return Math.max(0, (sinceStart + tickNanos - 1) / tickNanos);
+    }
+
+    private void takeNewTimeouts() {
+        Timeout timeout = newTimeouts.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextPending;
+            timeout.nextPending = null;
+            if (timeout.isPending()) {
+                place(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void takeCancelledTimeouts() {
+        Timeout timeout = cancelledTimeouts.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            if (timeout.bucket >= 0) {
+                unlink(timeout);
+            }
+            // Not linked yet: takeNewTimeouts() skips it because it is no longer pending
+            timeout = next;
+        }
+    }
+
+    // Links the timeout into the bucket for its deadline, or runs it if it is already due
+    private void place(Timeout timeout) {
+        long due = deadlineTick(timeout);
+        if (due <= now) {
+            fire(timeout);
+            return;
+        }
+        long differing = due ^ now;
+        // Past the top level's digit (the tick count crossed 2^40), the top level still holds it:
+        // the delay cap keeps the deadline within the next top-level bucket, which cascades first
+        int level = Math.min((63 - Long.numberOfLeadingZeros(differing)) / SLOT_BITS, LEVELS - 1);
+        int slot = (int) (due >>> (level * SLOT_BITS)) & (SLOTS - 1);
+        link(timeout, level * SLOTS + slot);
+    }
+
+    private void processTick(long tick) {
+        // Cascade every level whose lower digits just rolled over to zero
+        for (int level = 1; level < LEVELS; level++) {
+            if ((tick & ((1L << (level * SLOT_BITS)) - 1)) != 0) {
+                break;
+            }
+            int slot = (int) (tick >>> (level * SLOT_BITS)) & (SLOTS - 1);
+            Timeout timeout = detachAll(level * SLOTS + slot);
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                place(timeout);
+                timeout = next;
+            }
+        }
+        Timeout timeout = detachAll((int) (tick & (SLOTS - 1)));
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            fire(timeout);
+            timeout = next;
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        if (timeout.isPeriodic()) {
+            if (!timeout.isPending()) {
+                return;
+            }
+            long next = timeout.deadlineNanos + timeout.periodNanos;
+            long present = startNanos + now * tickNanos;
+            if (next - present <= 0) {
+                // The ticker fell behind by more than a period (a long GC pause, say): skip the missed runs
+                next += ((present - next) / timeout.periodNanos + 1) * timeout.periodNanos;
+            }
+            timeout.deadlineNanos = next;
+            place(timeout);  // Strictly in the future, so this links it instead of firing again
+        } else if (!timeout.expire()) {
+            return;  // Cancelled in the meantime
+        } else {
+            scheduled.decrement();
+        }
+        fired.increment();
+        try {
+            executor.execute(timeout.task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+        } catch (RuntimeException | Error e) {
+            // Only a direct executor gets here; a failing task must not stop the ticker
+            ticker.getUncaughtExceptionHandler().uncaughtException(ticker, e);
+        }
+    }
+
+    private void link(Timeout timeout, int bucket) {
+        Timeout head = buckets[bucket];
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[bucket] = timeout;
+        linked++;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        linked--;
+    }
+
+    // Empties a bucket and returns its list, still linked through `next`
+    private Timeout detachAll(int bucket) {
+        Timeout head = buckets[bucket];
+        buckets[bucket] = null;
+        for (Timeout t = head; t != null; t = t.next) {
+            t.bucket = -1;
+            t.prev = null;
+            linked--;
+        }
+        return head;
+    }
+
+    // Timeouts scheduled and neither run (one-shot) nor cancelled yet
+    public long pending() {
+        return scheduled.sum();
+    }
+
+    // Runs handed to the executor, periodic runs included
+    public long fired() {
+        return fired.sum();
+    }
+
+    public long cancelledCount() {
+        return cancelled.sum();
+    }
+
+    // Runs the executor refused
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long tickNanos() {
+        return tickNanos;
+    }
+
+    // Stops the ticker; timeouts that are still pending never run
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+}
@@ -0,0 +1,243 @@
+package timer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import metrics.LogHistogram;
+
+/**
+ * Compares `TimerWheel` with `ScheduledThreadPoolExecutor` for many timeouts.
+ * 
+ * Usage: `java timer.TimerWheelReport [timeouts] [firingTimeouts] [spreadMillis]`
+ * 
+ * What this code does:
+ * - **Insert and cancel**: schedules `timeouts` (default 1,000,000) timeouts with random delays
+ *   between 1 and 60 seconds from one thread, measures the time per `schedule()` and the heap per
+ *   pending timeout, then cancels all of them and measures the time per `cancel()`. The executor
+ *   is run with and without `setRemoveOnCancelPolicy(true)`: without it, cancelled tasks stay in
+ *   its queue (and in memory) until their delay has passed. The wheel's caller only pushes onto
+ *   a stack and its ticker does the linking and unlinking, so the ticker's CPU time per timeout
+ *   is shown as well. With a single core, the two add up in the caller's wall-clock times.
+ * - **Accuracy**: schedules `firingTimeouts` (default 200,000) timeouts spread evenly over
+ *   `spreadMillis` (default 2000) and records how late each one runs, measured from its exact
+ *   deadline. Tasks run on the timer thread itself in both cases. Also prints the CPU time the
+ *   timer thread used for the whole batch.
+ * - **Periodic**: a housekeeping task every 10 ms for one second; prints how many runs there
+ *   were and how late they ran.
+ * 
+ * The wheel's ticks are 1 ms, so its timeouts run up to 1 ms late by design. In exchange,
+ * insert and cancel cost the same no matter how many timeouts are pending.
+ */
+public class TimerWheelReport {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws InterruptedException {
+        int timeouts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int firing = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        long spreadMillis = args.length > 2 ? Long.parseLong(args[2]) : 2000;
+        if (THREADS.isThreadCpuTimeSupported()) {
+            THREADS.setThreadCpuTimeEnabled(true);
+        }
+
+        System.out.printf("Insert and cancel, %,d timeouts due in 1-60 s%n", timeouts);
+        System.out.printf("%-28s %12s %12s %16s %14s%n", "timer", "schedule ns", "cancel ns", "timer thread ns",
+                "heap B/timeout");
+        for (int round = 0; round < 2; round++) {  // The first round warms up the JIT
+            boolean print = round == 1;
+            insertAndCancel("TimerWheel", print, timeouts, new WheelTimer());
+            insertAndCancel("STPE", print, timeouts, new ExecutorTimer(false));
+            insertAndCancel("STPE, remove on cancel", print, timeouts, new ExecutorTimer(true));
+        }
+
+        System.out.printf("%nAccuracy, %,d timeouts spread over %d ms%n", firing, spreadMillis);
+        System.out.printf("%-28s %10s %10s %10s %10s %14s%n", "timer", "p50 us", "p99 us", "p99.9 us", "max us",
+                "timer cpu ms");
+        accuracy("TimerWheel", firing, spreadMillis, new WheelTimer());
+        accuracy("STPE", firing, spreadMillis, new ExecutorTimer(true));
+
+        System.out.printf("%nPeriodic, every 10 ms for 1 s%n");
+        System.out.printf("%-28s %10s %10s %10s%n", "timer", "runs", "p50 us", "max us");
+        periodic("TimerWheel", new WheelTimer());
+        periodic("STPE", new ExecutorTimer(true));
+    }
+
+    private static void insertAndCancel(String name, boolean print, int count, Timer timer) throws InterruptedException {
+        SplittableRandom random = new SplittableRandom(7);
+        Object[] handles = new Object[count];
+        Runnable task = () -> { };
+        long heapBefore = usedHeap();
+        long cpuBefore = timer.threadCpuNanos();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            handles[i] = timer.schedule(task, 1000 + random.nextInt(59_000));
+        }
+        long scheduled = System.nanoTime();
+        long heapAfter = usedHeap();
+        for (int i = 0; i < count; i++) {
+            timer.cancel(handles[i]);
+        }
+        long cancelled = System.nanoTime();
+        Thread.sleep(200);  // Lets the wheel's ticker finish linking and unlinking
+        long timerCpu = timer.threadCpuNanos() - cpuBefore;
+        timer.close();
+        if (print) {
+            System.out.printf("%-28s %12.0f %12.0f %16.0f %14.0f%n", name, (double) (scheduled - start) / count,
+                    (double) (cancelled - scheduled) / count, (double) timerCpu / count,
+                    // The handles array is counted in both measurements, so this is the timer's own cost
+                    (double) (heapAfter - heapBefore) / count);
+        }
+    }
+
+    private static void accuracy(String name, int count, long spreadMillis, Timer timer) throws InterruptedException {
+        LogHistogram lateness = new LogHistogram();
+        CountDownLatch done = new CountDownLatch(count);
+        long spreadNanos = TimeUnit.MILLISECONDS.toNanos(spreadMillis);
+        long cpuBefore = timer.threadCpuNanos();
+        long base = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);  // Time to schedule them all first
+        for (int i = 0; i < count; i++) {
+            long deadline = base + spreadNanos * i / count;
+            timer.scheduleAt(() -> {
+                lateness.record(System.nanoTime() - deadline);
+                done.countDown();
+            }, deadline);
+        }
+        done.await();
+        long cpu = timer.threadCpuNanos() - cpuBefore;
+        timer.close();
+        System.out.printf("%-28s %10.1f %10.1f %10.1f %10.1f %14.1f%n", name, lateness.percentile(50) / 1e3,
+                lateness.percentile(99) / 1e3, lateness.percentile(99.9) / 1e3, lateness.max() / 1e3, cpu / 1e6);
+    }
+
+    private static void periodic(String name, Timer timer) throws InterruptedException {
+        LogHistogram lateness = new LogHistogram();
+        long period = TimeUnit.MILLISECONDS.toNanos(10);
+        long[] first = new long[1];
+        // Measured against the nearest earlier point of the schedule, so a skipped run does not shift the rest
+        Runnable task = () -> lateness.record((System.nanoTime() - first[0]) % period);
+        first[0] = System.nanoTime() + period;  // Taken after creating the task, which can take a while the first time
+        Object handle = timer.scheduleAtFixedRate(task, period);
+        Thread.sleep(1000 + 5);
+        timer.cancel(handle);
+        timer.close();
+        System.out.printf("%-28s %10d %10.1f %10.1f%n", name, lateness.count(), lateness.percentile(50) / 1e3,
+                lateness.max() / 1e3);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // The two timers behind one interface, so every measurement runs the same code for both
+    private interface Timer {
+        Object schedule(Runnable task, long delayMillis);
+
+        Object scheduleAt(Runnable task, long deadlineNanos);
+
+        Object scheduleAtFixedRate(Runnable task, long periodNanos);
+
+        void cancel(Object handle);
+
+        long threadCpuNanos();
+
+        void close();
+    }
+
+    private static final class WheelTimer implements Timer {
+        // Tasks run directly on the ticker, like they do on the executor's single thread
+        private final TimerWheel wheel = new TimerWheel(1, TimeUnit.MILLISECONDS, Runnable::run);
+
+        @Override
+        public Object schedule(Runnable task, long delayMillis) {
+            return wheel.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public Object scheduleAt(Runnable task, long deadlineNanos) {
+            return wheel.schedule(task, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public Object scheduleAtFixedRate(Runnable task, long periodNanos) {
+            return wheel.scheduleAtFixedRate(task, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void cancel(Object handle) {
+            ((Timeout) handle).cancel();
+        }
+
+        @Override
+        public long threadCpuNanos() {
+            return cpuOf("TimerWheel-ticker");
+        }
+
+        @Override
+        public void close() {
+            wheel.close();
+        }
+    }
+
+    private static final class ExecutorTimer implements Timer {
+        private final ScheduledThreadPoolExecutor executor;
+
+        ExecutorTimer(boolean removeOnCancel) {
+            executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "STPE-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.setRemoveOnCancelPolicy(removeOnCancel);
+            executor.prestartAllCoreThreads();
+        }
+
+        @Override
+        public Object schedule(Runnable task, long delayMillis) {
+            return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public Object scheduleAt(Runnable task, long deadlineNanos) {
+            return executor.schedule(task, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public Object scheduleAtFixedRate(Runnable task, long periodNanos) {
+            return executor.scheduleAtFixedRate(task, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void cancel(Object handle) {
+            ((ScheduledFuture<?>) handle).cancel(false);
+        }
+
+        @Override
+        public long threadCpuNanos() {
+            return cpuOf("STPE-timer");
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+
+    // CPU time of the live thread with this name (the most recent one, if several have had it)
+    private static long cpuOf(String threadName) {
+        long cpu = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(threadName) && thread.isAlive()) {
+                cpu = Math.max(cpu, THREADS.getThreadCpuTime(thread.getId()));
+            }
+        }
+        return cpu;
+    }
+}
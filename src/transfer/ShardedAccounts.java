@@ -0,0 +1,107 @@
+package transfer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Balances for many accounts, split into shards that each have one lock.
+ * 
+ * Key Concepts:
+ * - Account `i` belongs to shard `i % shardCount`. One lock protects all accounts of a shard,
+ *   so thousands of accounts need only a handful of lock objects.
+ * - `applyBatch()` applies a whole list of transfers under a single acquisition of the
+ *   lock(s) involved, instead of locking once per transfer.
+ * - Deadlock avoidance: when a batch touches two shards, the lock of the lower-numbered shard
+ *   is always taken first. Two workers can therefore never each hold one lock while waiting
+ *   for the other's.
+ */
+public class ShardedAccounts {
+    private final long[] balances;
+    private final ReentrantLock[] shardLocks;
+
+    public ShardedAccounts(int accounts, int shards, long initialBalance) {
+        if (accounts < 1 || shards < 1) {
+            throw new IllegalArgumentException("accounts and shards must be positive");
+        }
+        balances = new long[accounts];
+        Arrays.fill(balances, initialBalance);
+        shardLocks = new ReentrantLock[shards];
+        for (int i = 0; i < shards; i++) {
+            shardLocks[i] = new ReentrantLock();  // Non-fair: fairness costs throughput and batches already bound waiting
+        }
+    }
+
+    public int accountCount() {
+        return balances.length;
+    }
+
+    public int shardCount() {
+        return shardLocks.length;
+    }
+
+    public int shardOf(int account) {
+        return account % shardLocks.length;
+    }
+
+    public boolean isValid(TransferRequest request) {
+        return request.amount() > 0
+                && request.from() >= 0 && request.from() < balances.length
+                && request.to() >= 0 && request.to() < balances.length
+                && request.from() != request.to();
+    }
+
+    /**
+     * Applies every transfer in the batch. All transfers must only touch accounts of
+     * `shardA` and `shardB` (which may be the same shard).
+     * 
+     * @return the number of transfers that were applied; the rest lacked balance
+     */
+    public int applyBatch(int shardA, int shardB, List<TransferRequest> batch) {
+        ReentrantLock first = shardLocks[Math.min(shardA, shardB)];
+        ReentrantLock second = shardLocks[Math.max(shardA, shardB)];
+
+        // Always lock in ascending shard order so two-shard batches cannot deadlock
+        first.lock();
+        if (second != first) {
+            second.lock();
+        }
+        try {
+            int applied = 0;
+            for (TransferRequest request : batch) {
+                // Same rule as BankAccount.withdraw: only deduct if the balance covers the amount
+                if (balances[request.from()] >= request.amount()) {
+                    balances[request.from()] -= request.amount();
+                    balances[request.to()] += request.amount();
+                    applied++;
+                }
+            }
+            return applied;
+        } finally {
+            if (second != first) {
+                second.unlock();
+            }
+            first.unlock();
+        }
+    }
+
+    // Reads the balance under its shard lock
+    public long balance(int account) {
+        ReentrantLock lock = shardLocks[shardOf(account)];
+        lock.lock();
+        try {
+            return balances[account];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sum of all balances; only meaningful while no transfers are running
+    public long totalBalance() {
+        long total = 0;
+        for (int i = 0; i < balances.length; i++) {
+            total += balance(i);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,124 @@
+package transfer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves money between `ShardedAccounts` by group-committing transfer requests.
+ * 
+ * How it works:
+ * - Producers call `submit()`, which puts the request into a bounded queue. When the queue
+ *   is full, `submit()` blocks, so producers cannot run ahead of the engine (back-pressure).
+ * - Each worker thread takes one request and then drains up to `maxBatchSize - 1` more
+ *   that are already waiting.
+ * - The drained requests are grouped by the pair of shards they touch. Every group is
+ *   applied with one `ShardedAccounts.applyBatch()` call, i.e. one lock acquisition per
+ *   shard instead of one per transfer.
+ * - Within a group, requests are applied in queue order. Requests in different groups,
+ *   or drained by different workers, have no ordering guarantee relative to each other.
+ * 
+ * Workers are plain `Runnable` tasks running on named threads, as in `locksEx.ThreadEx`.
+ */
+public class TransferEngine {
+    private final ShardedAccounts accounts;
+    private final BlockingQueue<TransferRequest> queue;
+    private final int maxBatchSize;
+    private final Thread[] workers;
+    private final TransferStats stats = new TransferStats();
+    private volatile boolean running = true;
+    private final AtomicInteger submitting = new AtomicInteger();  // submit() calls between their check and put
+
+    public TransferEngine(ShardedAccounts accounts, int queueCapacity, int maxBatchSize, int workerCount) {
+        this.accounts = accounts;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.workers = new Thread[workerCount];
+
+        Runnable task = this::drainLoop;
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(task, "TransferWorker-" + i);
+        }
+    }
+
+    public void start() {
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    // Blocks while the queue is full
+    public void submit(TransferRequest request) throws InterruptedException {
+        // Counted before the check: workers do not exit while a submit that saw `running` is still putting
+        submitting.incrementAndGet();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Engine is shut down");
+            }
+            queue.put(request);
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    public TransferStats stats() {
+        return stats;
+    }
+
+    // Stops accepting work, lets the workers finish everything already queued or being submitted and waits for them
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void drainLoop() {
+        List<TransferRequest> drained = new ArrayList<>(maxBatchSize);
+        Map<Long, List<TransferRequest>> groups = new HashMap<>();
+        try {
+            while (running || submitting.get() > 0 || !queue.isEmpty()) {
+                TransferRequest first = queue.poll(10, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+                queue.drainTo(drained, maxBatchSize - 1);
+                applyGrouped(drained, groups);
+                drained.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // Restore interrupted status and stop the worker
+        }
+    }
+
+    private void applyGrouped(List<TransferRequest> drained, Map<Long, List<TransferRequest>> groups) {
+        for (TransferRequest request : drained) {
+            if (!accounts.isValid(request)) {
+                stats.recordInvalid();
+                continue;
+            }
+            int a = accounts.shardOf(request.from());
+            int b = accounts.shardOf(request.to());
+            long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(request);
+        }
+
+        for (Map.Entry<Long, List<TransferRequest>> group : groups.entrySet()) {
+            List<TransferRequest> batch = group.getValue();
+            if (batch.isEmpty()) {
+                continue;
+            }
+            int low = (int) (group.getKey() >>> 32);
+            int high = (int) (long) group.getKey();
+            int applied = accounts.applyBatch(low, high, batch);
+            stats.recordBatch(batch.size(), applied);
+            batch.clear();  // Keep the list for reuse by the next drain
+        }
+    }
+}
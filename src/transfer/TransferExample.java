@@ -0,0 +1,56 @@
+package transfer;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs random transfers between thousands of accounts through a `TransferEngine`.
+ * 
+ * Usage: `java transfer.TransferExample [accounts] [shards] [producers] [transfersPerProducer]`
+ * 
+ * What this code does:
+ * - Creates the accounts with a balance of 100 each, like `locksEx.BankAccount`.
+ * - Starts producer threads that submit random transfers. The bounded queue slows them down
+ *   when the workers fall behind.
+ * - Shuts the engine down, prints the statistics and checks that the total amount of money
+ *   did not change (transfers only move money, they never create or destroy it).
+ */
+public class TransferExample {
+    public static void main(String[] args) throws InterruptedException {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int producers = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int perProducer = args.length > 3 ? Integer.parseInt(args[3]) : 250_000;
+
+        ShardedAccounts accounts = new ShardedAccounts(accountCount, shards, 100);
+        long totalBefore = accounts.totalBalance();
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors());
+        TransferEngine engine = new TransferEngine(accounts, 8192, 512, workers);
+        engine.start();
+
+        Runnable task = () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                for (int i = 0; i < perProducer; i++) {
+                    int from = random.nextInt(accountCount);
+                    int to = random.nextInt(accountCount);
+                    engine.submit(new TransferRequest(from, to, 1 + random.nextInt(50)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            threads[i] = new Thread(task, "Producer-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        engine.shutdown();
+
+        System.out.println(engine.stats().summary());
+        System.out.println("Money conserved: " + (accounts.totalBalance() == totalBefore));
+    }
+}
@@ -0,0 +1,36 @@
+package transfer;
+
+/**
+ * A request to move `amount` from one account to another.
+ * 
+ * Like `locksEx.BankAccount.withdraw(int)`, the transfer only happens if the source
+ * account has enough balance; otherwise it is rejected and no balance changes.
+ */
+public final class TransferRequest {
+    private final int from;
+    private final int to;
+    private final int amount;
+
+    public TransferRequest(int from, int to, int amount) {
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+    }
+
+    public int from() {
+        return from;
+    }
+
+    public int to() {
+        return to;
+    }
+
+    public int amount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return "Transfer[" + from + " -> " + to + ": " + amount + "]";
+    }
+}
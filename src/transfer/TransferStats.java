@@ -0,0 +1,76 @@
+package transfer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and batch-size statistics for a `TransferEngine`.
+ * 
+ * Batch sizes are recorded in a power-of-two histogram: bucket `b` counts batches
+ * whose size is in `[2^b, 2^(b+1))`.
+ */
+public class TransferStats {
+    private static final int BUCKETS = 32;
+
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong maxBatch = new AtomicLong();
+    private final AtomicLongArray batchHistogram = new AtomicLongArray(BUCKETS);
+    private final long startNanos = System.nanoTime();
+
+    void recordBatch(int size, int appliedCount) {
+        batches.increment();
+        applied.add(appliedCount);
+        rejected.add(size - appliedCount);
+        batchHistogram.incrementAndGet(31 - Integer.numberOfLeadingZeros(size));
+        maxBatch.accumulateAndGet(size, Math::max);
+    }
+
+    void recordInvalid() {
+        invalid.increment();
+    }
+
+    public long applied() {
+        return applied.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long invalid() {
+        return invalid.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+
+    public double averageBatchSize() {
+        long b = batches();
+        return b == 0 ? 0 : (double) (applied() + rejected()) / b;
+    }
+
+    // Transfers processed (applied or rejected) per second since the engine was created
+    public double throughputPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds == 0 ? 0 : (applied() + rejected()) / seconds;
+    }
+
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("applied=%d rejected=%d invalid=%d batches=%d avgBatch=%.1f maxBatch=%d throughput=%.0f/s%n",
+                applied(), rejected(), invalid(), batches(), averageBatchSize(), maxBatch.get(), throughputPerSecond()));
+        sb.append("batch size histogram:");
+        for (int b = 0; b < BUCKETS; b++) {
+            long count = batchHistogram.get(b);
+            if (count > 0) {
+                sb.append(' ').append('[').append(1L << b).append(',').append(1L << (b + 1)).append(")=").append(count);
+            }
+        }
+        return sb.toString();
+    }
+}